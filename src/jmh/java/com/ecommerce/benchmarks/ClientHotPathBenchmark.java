@@ -0,0 +1,151 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.models.User;
+import com.ecommerce.stepdefinitions.AuthSteps;
+import com.ecommerce.stepdefinitions.CartSteps;
+import com.ecommerce.testdata.TestDataManager;
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.BodyMatcher;
+import com.ecommerce.utils.JdkHttpTransport;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Cookie;
+import io.restassured.http.Cookies;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ⚡ 客户端热点路径基准测试 - 纯内存，不发送任何请求
+ * 覆盖：构建请求、生成测试用户、注册表单参数与编码、提取会话Cookie和Location、步骤中的响应体检查
+ *
+ * 🎯 运行方式（-prof gc 输出每次操作分配的字节数 gc.alloc.rate.norm）：
+ *   mvn -Pbenchmark test -Djmh.args="ClientHotPathBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ClientHotPathBenchmark {
+
+    private static final Pattern CART_COUNT = Pattern.compile("CART (\\d+)");
+
+    private ApiClient apiClient;
+    private ApiClient sessionClient;
+    private User user;
+    private Map<String, String> registrationParams;
+    private Response loginRedirect;
+    private Response homePage;
+    private Response cartPage;
+
+    @Setup
+    public void setUp(){
+        apiClient = new ApiClient("http://localhost:5000/");
+        sessionClient = apiClient.withSession("0123456789abcdef0123456789abcdef");
+        user = TestDataManager.newUser();
+        registrationParams = TestDataManager.registrationParams(user);
+
+        loginRedirect = new ResponseBuilder()
+                .setStatusCode(302)
+                .setHeader("Location", "/")
+                .setHeader("Set-Cookie", "session=0123456789abcdef0123456789abcdef; Path=/; HttpOnly")
+                .setCookies(new Cookies(new Cookie.Builder("session", "0123456789abcdef0123456789abcdef").build()))
+                .setBody("")
+                .build();
+        homePage = htmlResponse(Fixtures.homePage());
+        cartPage = htmlResponse(Fixtures.cartPage(3));
+    }
+
+    // ==================== 构建请求 ====================
+
+    @Benchmark
+    public RequestSpecification newAnonymousRequest(){
+        return apiClient.newRequest();
+    }
+
+    @Benchmark
+    public RequestSpecification newSessionRequest(){
+        return apiClient.withSession("0123456789abcdef0123456789abcdef").newRequest();
+    }
+
+    @Benchmark
+    public RequestSpecification newRegistrationRequest(){
+        return apiClient.newRequest().formParams(TestDataManager.registrationParams(user));
+    }
+
+    // ==================== 测试数据 ====================
+
+    /** 🏭 压测中每次迭代都会生成一个新用户 */
+    @Benchmark
+    public User newUser(){
+        return TestDataManager.newUser();
+    }
+
+    // ==================== 表单参数 ====================
+
+    @Benchmark
+    public Map<String, String> registrationParams(){
+        return TestDataManager.registrationParams(user);
+    }
+
+    /** 📮 JdkHttpTransport发送注册请求时编码的表单请求体（RestAssured传输层的编码计入newRegistrationRequest） */
+    @Benchmark
+    public String encodeRegistrationForm(){
+        return JdkHttpTransport.encodeForm(registrationParams);
+    }
+
+    // ==================== 响应头 ====================
+
+    @Benchmark
+    public String extractSessionCookie(){
+        return sessionClient.extractSessionCookie(loginRedirect);
+    }
+
+    @Benchmark
+    public String getLocationHeader(){
+        return sessionClient.getLocationHeader(loginRedirect);
+    }
+
+    // ==================== 响应体检查 ====================
+
+    @Benchmark
+    public BodyMatcher.Result scanAuthPage(){
+        return AuthSteps.AUTH_PAGE.scan(homePage);
+    }
+
+    @Benchmark
+    public BodyMatcher.Result scanCartPage(){
+        return CartSteps.CART_PAGE.scan(cartPage);
+    }
+
+    /** 📏 对照组：BodyMatcher之前的做法，每个检查点都对整个响应体字符串扫描一次 */
+    @Benchmark
+    public long scanCartPageWithStringContains(){
+        String body = cartPage.asString();
+        long hits = 0;
+        if(body.contains("cartIcon")) hits++;
+        if(body.contains("CART")) hits++;
+        if(body.contains("Proceed to checkout")) hits++;
+        if(body.contains("$0")) hits++;
+        Matcher matcher = CART_COUNT.matcher(body);
+        return matcher.find() ? hits + Long.parseLong(matcher.group(1)) : hits;
+    }
+
+    private static Response htmlResponse(String body){
+        return new ResponseBuilder()
+                .setStatusCode(200)
+                .setContentType("text/html; charset=utf-8")
+                .setBody(body.getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.benchmarks;
+
+/**
+ * 📄 基准测试用的页面夹具 - 大小和结构接近真实站点的页面
+ * 检查点放在页面中后部，扫描不会因为很早命中而提前结束
+ */
+final class Fixtures {
+
+    /** 🛍️ 页面上渲染的商品卡片数量，决定页面大小（约20KB） */
+    private static final int PRODUCT_CARDS = 120;
+
+    private Fixtures(){}
+
+    /** 🏠 已登录用户的首页 */
+    static String homePage(){
+        return page("<span>Hello, Test</span> <a href=\"/account/profile\">My Account</a> <a href=\"/logout\">Sign Out</a>",
+                "<h1>Welcome, Test!</h1><p><a href=\"/logout\">Logout</a></p>", 1);
+    }
+
+    /** 🛒 有商品的购物车页 */
+    static String cartPage(int items){
+        return page("<span>Hello, Test</span> <a href=\"/logout\">Sign Out</a>",
+                "<h1>Shopping Cart</h1><div class=\"item\">Classic T-Shirt x " + items + "</div>"
+                        + "<p class=\"total\">Total: $59.97</p><a href=\"/checkout\">Proceed to checkout</a>", items);
+    }
+
+    private static String page(String nav, String content, int cartCount){
+        StringBuilder html = new StringBuilder(24 * 1024);
+        html.append("<!DOCTYPE html><html><head><title>Shop</title>")
+                .append("<link rel=\"stylesheet\" href=\"/static/css/main.css\"></head><body>");
+        for(int card = 0; card < PRODUCT_CARDS; card++){
+            html.append("<div class=\"product-card\"><img src=\"/static/img/product-").append(card)
+                    .append(".jpg\" alt=\"product\"><h3>Product ").append(card)
+                    .append("</h3><span class=\"price\">$").append(10 + card).append(".99</span></div>");
+        }
+        html.append("<nav>").append(nav).append(" <a id=\"cartIcon\" href=\"/cart\">CART ").append(cartCount)
+                .append("</a></nav><main>").append(content).append("</main></body></html>");
+        return html.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.models.User;
+import com.ecommerce.stepdefinitions.CartSteps;
+import com.ecommerce.stub.StubServer;
+import com.ecommerce.testdata.TestDataManager;
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.BodyMatcher;
+import com.ecommerce.utils.RedirectChain;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🧪 端到端基准测试 - 通过完整的ApiClient访问随机端口上的内置替身服务器
+ * 替身服务器默认不注入延迟，测得的就是测试框架自身（RestAssured、连接池、记录器）加上本机回环的开销
+ *
+ * 🎯 运行方式：
+ *   mvn -Pbenchmark test -Djmh.args="StubServerBenchmark -prof gc -t 4"
+ *   mvn -Pbenchmark test -Djmh.args="StubServerBenchmark -p latencyMillis=5"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StubServerBenchmark {
+
+    /**
+     * 🖥️ 整个试验共享一个替身服务器
+     */
+    @State(Scope.Benchmark)
+    public static class Server {
+        /** ⏱️ 替身服务器注入的延迟（毫秒） */
+        @Param("0")
+        public int latencyMillis;
+
+        StubServer stub;
+        String baseUrl;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException{
+            stub = new StubServer(0, latencyMillis, 0, 0);
+            stub.start();
+            baseUrl = "http://localhost:" + stub.port() + "/";
+        }
+
+        @TearDown(Level.Trial)
+        public void stop(){
+            stub.stop();
+        }
+    }
+
+    /**
+     * 👤 每个基准线程一个已登录的用户
+     */
+    @State(Scope.Thread)
+    public static class LoggedInUser {
+        ApiClient anonymous;
+        ApiClient client;
+        User user;
+
+        @Setup(Level.Trial)
+        public void login(Server server){
+            anonymous = new ApiClient(server.baseUrl);
+            user = TestDataManager.newUser();
+            anonymous.post("/register", TestDataManager.registrationParams(user));
+            Response login = anonymous.post("/login", TestDataManager.loginParams(user));
+            client = anonymous.withSession(anonymous.extractSessionCookie(login));
+        }
+    }
+
+    @Benchmark
+    public int getHomeAnonymous(LoggedInUser state){
+        return state.anonymous.get("/").getStatusCode();
+    }
+
+    @Benchmark
+    public BodyMatcher.Result viewCart(LoggedInUser state){
+        return CartSteps.CART_PAGE.scan(state.client.get("/cart"));
+    }
+
+    @Benchmark
+    public String login(LoggedInUser state){
+        return state.anonymous.extractSessionCookie(
+                state.anonymous.post("/login", TestDataManager.loginParams(state.user)));
+    }
+
+    /** 🛒 加入再移除，两次都跟随302，购物车保持为空 */
+    @Benchmark
+    public long addAndRemoveFromCart(LoggedInUser state){
+        RedirectChain added = state.client.getFollowingRedirects("/addToCart?productId=1");
+        RedirectChain removed = state.client.getFollowingRedirects("/removeFromCart?productId=1");
+        return added.getTotalNanos() + removed.getTotalNanos();
+    }
+}
@@ -0,0 +1,178 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.models.User;
+import com.ecommerce.stub.StubServer;
+import com.ecommerce.testdata.TestDataManager;
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.HttpConnectionPool;
+import com.ecommerce.utils.HttpTransport;
+import com.ecommerce.utils.JdkHttpTransport;
+import com.ecommerce.utils.RestAssuredTransport;
+import io.restassured.response.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🚚 传输层对比基准 - 同样的请求分别通过RestAssured和java.net.http发送到随机端口上的内置替身服务器
+ * JMH报告的是总吞吐量；每轮迭代结束时另外输出"每CPU秒请求数"，即每个核能驱动的请求数，决定了一台压测机能产生多大的负载
+ * CPU时间按线程统计（ThreadMXBean），只算客户端线程：JMH基准线程和传输层的线程（jdk-http执行线程、
+ * HttpClient选择器线程、连接池回收线程）；同一进程中替身服务器的线程和GC不计入
+ *
+ * 🎯 运行方式：
+ *   mvn -Pbenchmark test -Djmh.args="TransportBenchmark -prof gc -t 4"
+ *   mvn -Pbenchmark test -Djmh.args="TransportBenchmark -p transport=restassured,jdk-http2 -t 8"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransportBenchmark {
+
+    /**
+     * 🖥️ 整个试验共享一个替身服务器和一个传输层
+     */
+    @State(Scope.Benchmark)
+    public static class Target {
+        /** 🚚 restassured、jdk-http1 或 jdk-http2 */
+        @Param({"restassured", "jdk-http1", "jdk-http2"})
+        public String transport;
+
+        StubServer stub;
+        String baseUrl;
+        HttpTransport httpTransport;
+        private HttpConnectionPool pool;
+
+        final LongAdder requests = new LongAdder();
+        private Map<Long, Long> iterationCpuNanos;
+        private long iterationRequests;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException{
+            stub = new StubServer(0, 0, 0, 0);
+            stub.start();
+            baseUrl = "http://localhost:" + stub.port() + "/";
+            switch(transport){
+                case "restassured":
+                    pool = new HttpConnectionPool(200, 200, 30000, 30000);
+                    httpTransport = new RestAssuredTransport(pool, 10000);
+                    break;
+                case "jdk-http1":
+                    httpTransport = new JdkHttpTransport(10000, "HTTP_1_1");
+                    break;
+                case "jdk-http2":
+                    httpTransport = new JdkHttpTransport(10000, "HTTP_2");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown transport " + transport);
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void startIteration(){
+            iterationCpuNanos = clientThreadCpuNanos();
+            iterationRequests = requests.sum();
+        }
+
+        @TearDown(Level.Iteration)
+        public void reportIteration(){
+            Map<Long, Long> now = clientThreadCpuNanos();
+            long cpuNanos = 0;
+            for(Map.Entry<Long, Long> thread : now.entrySet()){
+                cpuNanos += thread.getValue() - iterationCpuNanos.getOrDefault(thread.getKey(), 0L); // 迭代中新建的线程从0算起
+            }
+            long count = requests.sum() - iterationRequests;
+            if(cpuNanos > 0){
+                System.out.println(String.format("%n%s: %.0f requests per client CPU-second (%d requests, %d ms CPU on %d threads)",
+                        transport, count * 1e9 / cpuNanos, count, TimeUnit.NANOSECONDS.toMillis(cpuNanos), now.size()));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop(){
+            System.out.println(httpTransport.summary());
+            if(pool != null){
+                pool.shutdown(); // 连接池的回收线程
+            }
+            if(httpTransport instanceof JdkHttpTransport){
+                ((JdkHttpTransport) httpTransport).close(); // jdk-http执行线程
+            }
+            stub.stop();
+        }
+
+        /**
+         * ⏱️ 客户端线程（线程ID -> 已消耗的CPU时间） - 迭代期间结束的线程不再能读到，
+         * 传输层的线程都是常驻的，基准线程在整个试验中存活
+         */
+        private static Map<Long, Long> clientThreadCpuNanos(){
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            Map<Long, Long> cpu = new HashMap<>();
+            for(ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())){
+                if(thread != null && isClientThread(thread.getThreadName())){
+                    long nanos = threads.getThreadCpuTime(thread.getThreadId());
+                    if(nanos >= 0){
+                        cpu.put(thread.getThreadId(), nanos);
+                    }
+                }
+            }
+            return cpu;
+        }
+
+        private static boolean isClientThread(String name){
+            return name.contains("jmh-worker") || name.startsWith("jdk-http-") || name.startsWith("HttpClient-")
+                    || name.equals("http-pool-evictor");
+        }
+    }
+
+    /**
+     * 👤 每个基准线程一个已登录的用户
+     */
+    @State(Scope.Thread)
+    public static class LoggedInUser {
+        ApiClient anonymous;
+        ApiClient client;
+        User user;
+
+        @Setup(Level.Trial)
+        public void login(Target target){
+            anonymous = new ApiClient(target.baseUrl, target.httpTransport);
+            user = TestDataManager.newUser();
+            anonymous.post("/register", TestDataManager.registrationParams(user));
+            Response login = anonymous.post("/login", TestDataManager.loginParams(user));
+            client = anonymous.withSession(anonymous.extractSessionCookie(login));
+        }
+    }
+
+    @Benchmark
+    public int getHomeAnonymous(Target target, LoggedInUser state){
+        target.requests.increment();
+        return state.anonymous.get("/").getStatusCode();
+    }
+
+    @Benchmark
+    public int viewCart(Target target, LoggedInUser state){
+        target.requests.increment();
+        return state.client.get("/cart").getStatusCode();
+    }
+
+    @Benchmark
+    public String login(Target target, LoggedInUser state){
+        target.requests.increment();
+        return state.anonymous.extractSessionCookie(
+                state.anonymous.post("/login", TestDataManager.loginParams(state.user)));
+    }
+}
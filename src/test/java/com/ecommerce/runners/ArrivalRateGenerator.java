@@ -0,0 +1,296 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.RequestExecutors;
+import io.cucumber.testng.Pickle;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 🚪 开放模型压测引擎 - 按固定或阶梯式的到达率启动场景，不管之前启动的场景是否已经结束
+ * 职责：闭环压测（LoadGenerator）中被测系统变慢时虚拟用户也跟着变慢，发出的负载随之下降，延迟被掩盖；
+ * 开放模型中到达时刻事先确定，被测系统变慢只会让在途场景变多，延迟如实地体现出来
+ *
+ * 🏭 工作方式：
+ *   - 到达时刻按速率计划（例如 50..500 分10个台阶）均匀排开，提前一小段时间放进时间轮（TimerWheel）
+ *   - 到达时在途场景数已达上限则丢弃这次启动（不排队，排队就又变成了闭环），计为"丢弃"
+ *   - 场景实际开始时间比计划晚超过阈值计为"迟到"，迟到时长记入直方图
+ *   - 场景按到达序号轮流选取，经ScenarioCatalog执行与功能测试相同的步骤定义（AuthSteps、CartSteps）
+ *
+ * 🎯 运行方式：
+ *   mvn test -Drun.mode=load -Dload.arrival.rate=50..500 -Dload.arrival.steps=10 -Dload.duration=60
+ */
+public class ArrivalRateGenerator {
+
+    /** ⏲️ 时间轮刻度和桶数 - 1ms精度，一圈约0.5秒 */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int BUCKETS = 512;
+
+    /** ⏩ 提前多久把到达时刻放进时间轮 */
+    private static final long FEED_AHEAD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ScenarioCatalog catalog;
+    private final RateProfile profile;
+    private final int maxInFlight;
+    private final long lateThresholdNanos;
+
+    private final LoadGenerator.Summary summary = new LoadGenerator.Summary();
+    private final Histogram lateness = new ConcurrentHistogram(3);
+    private final StageStats[] stages;
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param catalog 要执行的场景
+     * @param profile 到达率计划
+     * @param maxInFlight 在途场景数上限
+     * @param lateThresholdMillis 实际开始比计划晚多少毫秒算迟到
+     */
+    public ArrivalRateGenerator(ScenarioCatalog catalog, RateProfile profile, int maxInFlight, long lateThresholdMillis){
+        if(maxInFlight < 1){
+            throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+        }
+        this.catalog = catalog;
+        this.profile = profile;
+        this.maxInFlight = maxInFlight;
+        this.lateThresholdNanos = TimeUnit.MILLISECONDS.toNanos(lateThresholdMillis);
+        this.stages = new StageStats[profile.stages.size()];
+        for(int i = 0; i < stages.length; i++){
+            stages[i] = new StageStats();
+        }
+    }
+
+    /**
+     * 🖧 分给第index个工作进程（共count个）的那部分到达 - 速率除以count，各进程的到达时刻错开
+     */
+    public ArrivalRateGenerator slice(int index, int count){
+        if(index < 0 || index >= count){
+            throw new IllegalArgumentException("Worker index " + index + " out of range for " + count + " workers");
+        }
+        return new ArrivalRateGenerator(catalog, profile.slice(index, count), maxInFlight,
+                TimeUnit.NANOSECONDS.toMillis(lateThresholdNanos));
+    }
+
+    /**
+     * 📊 运行中的场景统计
+     */
+    public LoadGenerator.Summary summary(){
+        return summary;
+    }
+
+    /**
+     * ▶️ 运行 - 安排完所有到达并等待在途场景全部结束
+     */
+    public Report run() throws InterruptedException{
+        List<Pickle> scenarios = catalog.scenarios();
+        if(scenarios.isEmpty()){
+            throw new IllegalStateException("No scenarios selected for the load run");
+        }
+
+        ExecutorService executor = RequestExecutors.newExecutor("arrival");
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long arrivals = 0;
+        long start = System.nanoTime() + FEED_AHEAD_NANOS;
+        try(TimerWheel wheel = new TimerWheel("arrival-timer", TICK_NANOS, BUCKETS)){
+            long stageStart = 0;
+            for(int stage = 0; stage < profile.stages.size(); stage++){
+                Stage plan = profile.stages.get(stage);
+                long stageEnd = stageStart + plan.durationNanos;
+                if(plan.ratePerSecond > 0){
+                    double interval = 1e9 / plan.ratePerSecond;
+                    // 📌 按序号计算到达时刻，不累加间隔：浮点误差会在台阶末尾多出或少掉一次到达
+                    for(long k = 0; (k + profile.phase) * interval < plan.durationNanos - 1; k++){
+                        long intended = start + stageStart + (long) ((k + profile.phase) * interval);
+                        for(long wait = intended - FEED_AHEAD_NANOS - System.nanoTime(); wait > 0;
+                            wait = intended - FEED_AHEAD_NANOS - System.nanoTime()){
+                            LockSupport.parkNanos(wait);
+                        }
+                        Pickle scenario = scenarios.get((int) (arrivals++ % scenarios.size()));
+                        StageStats stats = stages[stage];
+                        stats.scheduled.increment();
+                        wheel.schedule(intended, fired -> arrive(intended, scenario, stats, inFlight, executor));
+                    }
+                }
+                stageStart = stageEnd;
+            }
+            while(wheel.pending() > 0){
+                Thread.sleep(1);
+            }
+            inFlight.acquire(maxInFlight); // 等待在途场景全部结束
+        }finally{
+            executor.shutdown();
+        }
+        summary.elapsedNanos(System.nanoTime() - start);
+        return new Report();
+    }
+
+    /**
+     * 🚪 一次到达 - 在时间轮线程上执行，只决定启动还是丢弃
+     */
+    private void arrive(long intended, Pickle scenario, StageStats stats, Semaphore inFlight, ExecutorService executor){
+        if(!inFlight.tryAcquire()){
+            stats.dropped.increment();
+            return;
+        }
+        executor.execute(() -> {
+            long late = System.nanoTime() - intended;
+            lateness.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(late)));
+            if(late > lateThresholdNanos){
+                stats.late.increment();
+            }
+            stats.started.increment();
+            LatencyRecorder.intendedStart(intended); // 启动延误计入第一个请求的延迟
+            try{
+                catalog.run(scenario);
+                summary.counter(scenario.getName()).passed.increment();
+            }catch(Throwable t){
+                summary.counter(scenario.getName()).failed.increment();
+            }finally{
+                LatencyRecorder.clearIntendedStart();
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * 📈 到达率计划 - 若干个台阶，每个台阶一个速率和时长
+     */
+    public static final class RateProfile{
+        private final List<Stage> stages;
+        /** 到达时刻在间隔内的相位（0..1），分布式压测时各工作进程错开 */
+        private final double phase;
+
+        private RateProfile(List<Stage> stages, double phase){
+            this.stages = Collections.unmodifiableList(stages);
+            this.phase = phase;
+        }
+
+        /**
+         * 🔢 解析速率 - "50" 表示整个时长都是每秒50次；"50..500" 表示从50逐级升到500，共steps个台阶，时长平分
+         *
+         * @param spec 速率（每秒到达次数）
+         * @param steps 阶梯式速率的台阶数
+         * @param durationMillis 总时长
+         */
+        public static RateProfile parse(String spec, int steps, long durationMillis){
+            if(durationMillis <= 0){
+                throw new IllegalArgumentException("An arrival-rate run needs a duration (load.duration)");
+            }
+            String[] range = spec.trim().split("\\.\\.");
+            double from = Double.parseDouble(range[0].trim());
+            double to = range.length > 1 ? Double.parseDouble(range[1].trim()) : from;
+            if(from < 0 || to < 0){
+                throw new IllegalArgumentException("Arrival rate must not be negative: " + spec);
+            }
+            int count = from == to ? 1 : Math.max(2, steps);
+            long total = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+            List<Stage> stages = new ArrayList<>(count);
+            for(int i = 0; i < count; i++){
+                double rate = count == 1 ? from : from + (to - from) * i / (count - 1);
+                stages.add(new Stage(rate, total * (i + 1) / count - total * i / count));
+            }
+            return new RateProfile(stages, 0);
+        }
+
+        RateProfile slice(int index, int count){
+            List<Stage> sliced = new ArrayList<>(stages.size());
+            for(Stage stage : stages){
+                sliced.add(new Stage(stage.ratePerSecond / count, stage.durationNanos));
+            }
+            return new RateProfile(sliced, (double) index / count);
+        }
+
+        @Override
+        public String toString(){
+            Stage first = stages.get(0);
+            Stage last = stages.get(stages.size() - 1);
+            return stages.size() == 1 ? String.format("%.1f/s", first.ratePerSecond)
+                    : String.format("%.1f/s..%.1f/s in %d steps", first.ratePerSecond, last.ratePerSecond, stages.size());
+        }
+    }
+
+    static final class Stage{
+        final double ratePerSecond;
+        final long durationNanos;
+
+        Stage(double ratePerSecond, long durationNanos){
+            this.ratePerSecond = ratePerSecond;
+            this.durationNanos = durationNanos;
+        }
+    }
+
+    static final class StageStats{
+        final LongAdder scheduled = new LongAdder();
+        final LongAdder started = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder late = new LongAdder();
+    }
+
+    /** 🔢 计划的到达次数 */
+    long scheduled(){
+        long total = 0;
+        for(StageStats stage : stages){
+            total += stage.scheduled.sum();
+        }
+        return total;
+    }
+
+    /** 🗑️ 因在途上限丢弃的到达次数 */
+    long dropped(){
+        long total = 0;
+        for(StageStats stage : stages){
+            total += stage.dropped.sum();
+        }
+        return total;
+    }
+
+    /** 🐢 迟到的启动次数 */
+    long late(){
+        long total = 0;
+        for(StageStats stage : stages){
+            total += stage.late.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 📊 到达统计 - 每个台阶的目标速率、实际启动速率、丢弃和迟到次数
+     */
+    public class Report{
+        private Report(){
+        }
+
+        /** 🗑️ 丢弃的到达占计划的百分比 */
+        public double droppedPercent(){
+            long scheduled = scheduled();
+            return scheduled == 0 ? 0 : dropped() * 100.0 / scheduled;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder report = new StringBuilder(String.format(
+                    "=== ARRIVALS === %s, in-flight limit %d: scheduled=%d, dropped=%d (%.2f%%), late=%d (>%dms), "
+                            + "start lateness p50=%.1fms p99=%.1fms max=%.1fms%n",
+                    profile, maxInFlight, scheduled(), dropped(), droppedPercent(), late(),
+                    TimeUnit.NANOSECONDS.toMillis(lateThresholdNanos), lateness.getValueAtPercentile(50) / 1000.0,
+                    lateness.getValueAtPercentile(99) / 1000.0, lateness.getMaxValue() / 1000.0));
+            for(int i = 0; i < stages.length; i++){
+                Stage stage = profile.stages.get(i);
+                StageStats stats = stages[i];
+                report.append(String.format("  step %-3d target %7.1f/s for %4.1fs -> started %7.1f/s, dropped=%d, late=%d%n",
+                        i + 1, stage.ratePerSecond, stage.durationNanos / 1e9,
+                        stats.started.sum() * 1e9 / stage.durationNanos, stats.dropped.sum(), stats.late.sum()));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.runners;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 🧩 合并分片报告 - 把各分片写出的Cucumber JSON报告合并成一份，和单个JVM运行时的报告结构相同
+ *
+ * 🎯 合并规则：
+ *   - 同一个Feature文件（uri相同）在多个分片中出现时合并成一个Feature
+ *   - 场景按行号排序，Background跟随它后面的场景一起移动
+ *   - 多环境运行（-Denvironments=dev,staging）时同一个场景在一份报告里出现多次，每个环境一次，全部保留；
+ *     分片按场景划分，同一个场景的所有环境总在同一个分片里
+ *   - 同一个场景出现在多个分片中说明各分片的划分不一致（历史报告不同），输出警告
+ *
+ * 🎯 运行方式：
+ *   mvn -Pmerge-reports test [-Dmerge.input=目录或文件] [-Dmerge.output=合并后的文件]
+ */
+public class CucumberReportMerger {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    /** uri -> Feature（不含elements） */
+    private final Map<String, ObjectNode> features = new TreeMap<>();
+    /** uri -> 场景行号 -> 该场景各次执行（每个环境一次）及其前面的Background */
+    private final Map<String, Map<Integer, List<JsonNode>>> scenarios = new LinkedHashMap<>();
+    /** uri:行号 -> 最先包含该场景的报告序号 */
+    private final Map<String, Integer> owners = new HashMap<>();
+    private final Set<String> duplicates = new HashSet<>();
+    private int reports;
+
+    /**
+     * @param args 第一个参数是输出文件，其余是分片报告文件或包含报告的目录
+     */
+    public static void main(String[] args) throws IOException{
+        if(args.length < 2){
+            throw new IllegalArgumentException("Usage: CucumberReportMerger <output.json> <report.json|directory>...");
+        }
+        CucumberReportMerger merger = new CucumberReportMerger();
+        for(String input : Arrays.copyOfRange(args, 1, args.length)){
+            merger.add(new File(input));
+        }
+        merger.write(new File(args[0]));
+    }
+
+    /**
+     * 📂 加入一份报告 - 目录按文件名顺序加入其中所有的.json文件
+     */
+    public void add(File input) throws IOException{
+        if(input.isDirectory()){
+            File[] files = input.listFiles((dir, name) -> name.endsWith(".json"));
+            if(files == null || files.length == 0){
+                throw new IOException("No cucumber reports found in " + input);
+            }
+            Arrays.sort(files, Comparator.comparing(File::getName));
+            for(File file : files){
+                add(file);
+            }
+            return;
+        }
+
+        for(JsonNode feature : mapper.readTree(input)){
+            String uri = feature.path("uri").asText();
+            features.computeIfAbsent(uri, key -> {
+                ObjectNode copy = ((ObjectNode) feature).deepCopy();
+                copy.remove("elements");
+                return copy;
+            });
+            Map<Integer, List<JsonNode>> byLine = scenarios.computeIfAbsent(uri, key -> new TreeMap<>());
+
+            List<JsonNode> pending = new ArrayList<>(); // 还没遇到所属场景的Background
+            for(JsonNode element : feature.path("elements")){
+                pending.add(element);
+                if("scenario".equals(element.path("type").asText())){
+                    int line = element.path("line").asInt();
+                    int report = reports;
+                    if(owners.computeIfAbsent(uri + ":" + line, key -> report) == report){
+                        byLine.computeIfAbsent(line, key -> new ArrayList<>()).addAll(pending);
+                    }else{
+                        duplicates.add(uri + ":" + line);
+                    }
+                    pending = new ArrayList<>();
+                }
+            }
+        }
+        reports++;
+    }
+
+    /**
+     * 💾 写出合并后的报告
+     */
+    public void write(File output) throws IOException{
+        ArrayNode merged = mapper.createArrayNode();
+        int scenarioCount = 0;
+        for(Map.Entry<String, ObjectNode> feature : features.entrySet()){
+            ArrayNode elements = feature.getValue().putArray("elements");
+            for(List<JsonNode> runs : scenarios.get(feature.getKey()).values()){
+                elements.addAll(runs);
+                scenarioCount += (int) runs.stream().filter(run -> "scenario".equals(run.path("type").asText())).count();
+            }
+            merged.add(feature.getValue());
+        }
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if(!parent.isDirectory() && !parent.mkdirs()){
+            throw new IOException("Cannot create report directory " + parent);
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(output, merged);
+
+        for(String duplicate : duplicates){
+            System.out.println("⚠️ Scenario " + duplicate + " ran in more than one shard, kept the results of the first shard");
+        }
+        System.out.println(String.format("Merged %d reports: %d features, %d scenarios -> %s",
+                reports, features.size(), scenarioCount, output.getPath()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.utils.Environment;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+
+/**
+ * 🌍 带环境的场景 - 同一个场景对每个环境各生成一行数据，TestNG报告中以环境名区分
+ */
+final class EnvironmentPickle implements PickleWrapper {
+
+    private final PickleWrapper delegate;
+    private final Environment environment;
+
+    EnvironmentPickle(PickleWrapper delegate, Environment environment){
+        this.delegate = delegate;
+        this.environment = environment;
+    }
+
+    @Override
+    public Pickle getPickle(){
+        return delegate.getPickle();
+    }
+
+    PickleWrapper delegate(){
+        return delegate;
+    }
+
+    Environment environment(){
+        return environment;
+    }
+
+    @Override
+    public String toString(){
+        return "[" + environment.name() + "] " + delegate;
+    }
+}
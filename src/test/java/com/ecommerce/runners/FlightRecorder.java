@@ -0,0 +1,219 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.utils.Environment;
+import com.ecommerce.utils.TestConfig;
+import io.cucumber.testng.Pickle;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.testng.SkipException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ✈️ 飞行记录器 - 为每个场景提交JFR事件；-Djfr.record=true 时在进程内持续录制，
+ * 场景失败或超过jfr.slow.scenario毫秒时，把最近jfr.max.age秒的录制转储到 REPORT_DIR/jfr/
+ * 职责：长时间浸泡测试中偶发的长尾延迟，等发现时现场早已消失；JFR空闲时几乎没有开销，
+ * 可以一直开着，出事时留下出事前那段时间的GC、线程、Socket和HTTP请求事件
+ *
+ * 🎯 设计要点：
+ *   - 录制只保留在内存和JFR仓库中，按时长滚动，不转储就不会写到报告目录
+ *   - 转储在后台线程执行，不拖慢触发它的场景；转储排队期间再有场景触发，会合并进同一次转储
+ *   - 转储次数上限为jfr.max.dumps，超出后只计数
+ *
+ * 🎯 运行方式：
+ *   mvn test -Djfr.record=true -Djfr.slow.scenario=3000
+ *   mvn test -Drun.mode=load -Dload.duration=3600 -Djfr.record=true -Djfr.settings=profile
+ */
+final class FlightRecorder {
+
+    private static volatile FlightRecorder shared;
+    private static boolean sharedOpened;
+
+    private final Recording recording;
+    private final File directory;
+    private final ExecutorService dumper = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jfr-dump");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Queue<String> reasons = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean dumpPending = new AtomicBoolean();
+    private final AtomicInteger dumps = new AtomicInteger();
+    private final LongAdder skippedDumps = new LongAdder();
+    private boolean closed;
+
+    private FlightRecorder(File directory) throws IOException, ParseException{
+        this.directory = directory;
+        this.recording = new Recording(Configuration.getConfiguration(TestConfig.Jfr.SETTINGS));
+        recording.setName("ecommerce-tests");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofSeconds(TestConfig.Jfr.MAX_AGE));
+        recording.enable(ScenarioEvent.class);
+        recording.enable("com.ecommerce.HttpRequest");
+        recording.start();
+    }
+
+    /**
+     * 🌐 进程级飞行记录器 - 没有设置jfr.record=true时为null，第一次调用时开始录制
+     */
+    static FlightRecorder shared(){
+        FlightRecorder recorder = shared;
+        if(recorder != null || !TestConfig.Jfr.ENABLED){
+            return recorder;
+        }
+        synchronized(FlightRecorder.class){
+            if(!sharedOpened){
+                sharedOpened = true;
+                try{
+                    shared = new FlightRecorder(new File(TestConfig.REPORT_DIR, "jfr"));
+                }catch(IOException e){
+                    throw new UncheckedIOException("Cannot start JFR recording", e);
+                }catch(ParseException e){
+                    throw new IllegalArgumentException("Invalid JFR settings: " + TestConfig.Jfr.SETTINGS, e);
+                }
+                Runtime.getRuntime().addShutdownHook(new Thread(FlightRecorder::closeShared, "jfr-close"));
+                System.out.println("JFR recording started (" + TestConfig.Jfr.SETTINGS + " settings, last "
+                        + TestConfig.Jfr.MAX_AGE + "s kept), dumps on failed scenarios or scenarios slower than "
+                        + TestConfig.Jfr.SLOW_SCENARIO + "ms");
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * 🛑 停止录制并输出转储次数，没有开始录制时什么也不做
+     */
+    static void closeShared(){
+        FlightRecorder recorder = shared;
+        if(recorder != null){
+            recorder.close();
+        }
+    }
+
+    /**
+     * 🎬 执行一个场景并提交场景事件；正在录制时，失败或太慢的场景触发转储
+     *
+     * @param pickle 场景
+     * @param scenario 执行场景，失败时抛出异常
+     */
+    static void runScenario(Pickle pickle, Runnable scenario){
+        FlightRecorder recorder = shared();
+        ScenarioEvent event = new ScenarioEvent();
+        String status = "failed";
+        long start = System.nanoTime();
+        event.begin();
+        try{
+            scenario.run();
+            status = "passed";
+        }catch(SkipException e){
+            status = "skipped";
+            throw e;
+        }finally{
+            event.end();
+            if(event.shouldCommit()){
+                String uri = pickle.getUri().toString();
+                event.scenario = pickle.getName();
+                event.location = uri.substring(uri.lastIndexOf('/') + 1) + ":" + pickle.getLine();
+                event.environment = Environment.current().name();
+                event.status = status;
+                event.commit();
+            }
+            if(recorder != null){
+                recorder.afterScenario(pickle.getName() + ":" + pickle.getLine(), status, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void afterScenario(String scenario, String status, long durationNanos){
+        long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        if("failed".equals(status)){
+            trigger("failed " + scenario);
+        }else if("passed".equals(status) && millis > TestConfig.Jfr.SLOW_SCENARIO){
+            trigger("slow (" + millis + "ms) " + scenario);
+        }
+    }
+
+    /** 🚨 请求一次转储 - 已有转储在排队时合并进去 */
+    private void trigger(String reason){
+        if(dumps.get() >= TestConfig.Jfr.MAX_DUMPS){
+            skippedDumps.increment();
+            return;
+        }
+        reasons.add(reason);
+        if(dumpPending.compareAndSet(false, true)){
+            dumper.execute(this::dump);
+        }
+    }
+
+    private void dump(){
+        dumpPending.set(false); // 之后的触发排进下一次转储
+        List<String> batch = new ArrayList<>();
+        for(String reason = reasons.poll(); reason != null; reason = reasons.poll()){
+            batch.add(reason);
+        }
+        if(batch.isEmpty()){
+            return;
+        }
+        int number = dumps.incrementAndGet();
+        if(number > TestConfig.Jfr.MAX_DUMPS){
+            skippedDumps.add(batch.size());
+            return;
+        }
+        // 🖧 分布式压测的工作进程共用报告目录，文件名带上进程号
+        File file = new File(directory, String.format("dump-%d-%02d-%s.jfr", ProcessHandle.current().pid(), number,
+                fileName(batch.get(0))));
+        try{
+            if(!directory.isDirectory() && !directory.mkdirs()){
+                throw new IOException("Cannot create directory " + directory);
+            }
+            synchronized(this){
+                if(closed){
+                    return;
+                }
+                recording.dump(file.toPath());
+            }
+            System.out.println("JFR recording dumped to " + file.getPath() + " for: " + String.join("; ", batch));
+        }catch(IOException e){
+            System.err.println("Cannot dump JFR recording to " + file + ": " + e);
+        }
+    }
+
+    private void close(){
+        dumper.shutdown();
+        try{
+            dumper.awaitTermination(30, TimeUnit.SECONDS);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        synchronized(this){
+            if(closed){
+                return;
+            }
+            closed = true;
+            recording.close();
+        }
+        int written = Math.min(dumps.get(), TestConfig.Jfr.MAX_DUMPS);
+        System.out.println("JFR recording stopped: " + written + " dumps written to " + directory.getPath()
+                + (skippedDumps.sum() > 0 ? ", " + skippedDumps.sum() + " triggers over the jfr.max.dumps limit" : ""));
+    }
+
+    /** 📁 文件名中只保留字母、数字和连字符 */
+    private static String fileName(String reason){
+        String name = reason.replaceAll("[^A-Za-z0-9]+", "-").replaceAll("^-|-$", "");
+        return name.length() > 60 ? name.substring(0, 60) : name;
+    }
+}
@@ -0,0 +1,319 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.TestConfig;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🖧 分布式压测协调进程 - 把压测计划分给多个工作进程（LoadWorker），汇总它们发回的直方图快照
+ * 职责：一台压测机的端口和CPU先于被测系统耗尽时，把虚拟用户分散到多个JVM（同一台机器或多台机器）
+ *
+ * 🏭 工作方式：
+ *   - 监听一个TCP端口；load.spawn.workers=true（默认）时在本机启动N个工作进程，输出写入 REPORT_DIR/workers/
+ *   - 所有工作进程连上之后同时下发计划，每个进程按全局用户序号运行自己的那一份（见LoadGenerator.slice）
+ *   - 工作进程定期发回累计的场景计数和每个"端点 + 状态码"的HdrHistogram，协调进程输出进度
+ *   - 结束时把各进程的直方图计数相加，得到与单进程运行相同格式的latency.json，分位数是精确的
+ *
+ * 🎯 运行方式：
+ *   mvn test -Drun.mode=load -Dload.workers=4 -Dload.users=200 -Dload.duration=60
+ */
+public class LoadCoordinator {
+
+    /** ⏳ 等待工作进程连接的最长时间 */
+    private static final int ACCEPT_TIMEOUT_MILLIS = 60_000;
+
+    /** 📤 转发给本机工作进程的系统属性前缀 - 被测系统、传输层、日志等配置与协调进程保持一致 */
+    private static final String[] FORWARDED_PROPERTIES = {
+            "base.url", "timeout", "run.mode", "http.", "executor.", "latency.", "log.", "session.pool.",
+            "environments", "environment.", "jfr.", "file.encoding"
+    };
+
+    private final LoadProtocol.Plan plan;
+    private final int workers;
+    private final boolean spawn;
+
+    private final Map<Integer, LoadProtocol.Snapshot> latest = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+    private final AtomicInteger lostWorkers = new AtomicInteger();
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param plan 压测计划（workerIndex被忽略，每个工作进程分别设置）
+     * @param spawn 是否在本机启动工作进程
+     */
+    LoadCoordinator(LoadProtocol.Plan plan, boolean spawn){
+        if(plan.workerCount < 1){
+            throw new IllegalArgumentException("At least one worker is required: " + plan.workerCount);
+        }
+        this.plan = plan;
+        this.workers = plan.workerCount;
+        this.spawn = spawn;
+    }
+
+    /**
+     * 🏗️ 按TestConfig.Load创建 - 场景组合取自cucumber.filter.tags
+     */
+    public static LoadCoordinator fromConfig(){
+        return new LoadCoordinator(new LoadProtocol.Plan(0, TestConfig.Load.WORKERS,
+                TestConfig.Load.USERS,
+                TestConfig.Load.ITERATIONS,
+                TestConfig.Load.DURATION * 1000L,
+                TestConfig.Load.RAMP_UP * 1000L,
+                TestConfig.Load.THINK_TIME,
+                TestConfig.Load.THINK_JITTER,
+                TestConfig.Load.SNAPSHOT_INTERVAL * 1000L,
+                System.getProperty("cucumber.filter.tags", ""),
+                TestConfig.Load.ARRIVAL_RATE,
+                TestConfig.Load.ARRIVAL_STEPS,
+                TestConfig.Load.MAX_IN_FLIGHT,
+                TestConfig.Load.LATE_THRESHOLD), TestConfig.Load.SPAWN_WORKERS);
+    }
+
+    /**
+     * ▶️ 运行分布式压测 - 阻塞直到所有工作进程发回最后一份快照（或断开连接）
+     */
+    public Result run() throws IOException, InterruptedException{
+        List<Process> processes = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+        try(ServerSocket server = new ServerSocket()){
+            server.bind(new InetSocketAddress(InetAddress.getByName(TestConfig.Load.COORDINATOR_HOST),
+                    TestConfig.Load.COORDINATOR_PORT));
+            String address = TestConfig.Load.COORDINATOR_HOST + ":" + server.getLocalPort();
+            System.out.println("Load coordinator listening on " + address + ", waiting for " + workers + " workers");
+            if(spawn){
+                for(int index = 0; index < workers; index++){
+                    processes.add(spawnWorker(index, address));
+                }
+            }
+
+            // 🤝 所有工作进程连上之后再同时下发计划
+            List<DataOutputStream> outputs = new ArrayList<>();
+            List<DataInputStream> inputs = new ArrayList<>();
+            server.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+            for(int index = 0; index < workers; index++){
+                Socket socket;
+                try{
+                    socket = server.accept();
+                }catch(SocketTimeoutException e){
+                    throw new IllegalStateException("Only " + index + " of " + workers + " workers connected within "
+                            + ACCEPT_TIMEOUT_MILLIS / 1000 + "s" + (spawn ? ", see " + workerLogDirectory() : ""), e);
+                }
+                sockets.add(socket);
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                if(in.readInt() != LoadProtocol.MAGIC){
+                    throw new IOException("Unexpected client " + socket.getRemoteSocketAddress());
+                }
+                LoadProtocol.expect(in, LoadProtocol.HELLO);
+                names.put(index, in.readUTF());
+                inputs.add(in);
+                outputs.add(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+            }
+
+            long start = System.nanoTime();
+            CountDownLatch finished = new CountDownLatch(workers);
+            for(int index = 0; index < workers; index++){
+                plan.forWorker(index).write(outputs.get(index));
+                int worker = index;
+                Thread reader = new Thread(() -> receive(worker, inputs.get(worker), finished), "load-coordinator-" + index);
+                reader.setDaemon(true);
+                reader.start();
+            }
+            while(!finished.await(plan.snapshotIntervalMillis, TimeUnit.MILLISECONDS)){
+                System.out.println(progress(System.nanoTime() - start));
+            }
+            return merge(System.nanoTime() - start);
+        }finally{
+            for(Socket socket : sockets){
+                socket.close();
+            }
+            // 🛑 工作进程发完最后一份快照后只剩非守护的线程池线程，正常结束它们（关闭钩子照常执行）
+            for(Process process : processes){
+                if(!process.waitFor(2, TimeUnit.SECONDS)){
+                    process.destroy();
+                    if(!process.waitFor(10, TimeUnit.SECONDS)){
+                        process.destroyForcibly();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 📥 接收一个工作进程的快照，直到最后一份或连接中断
+     */
+    private void receive(int worker, DataInputStream in, CountDownLatch finished){
+        try{
+            LoadProtocol.Snapshot snapshot;
+            do{
+                snapshot = LoadProtocol.Snapshot.read(in);
+                latest.put(worker, snapshot);
+            }while(!snapshot.finished);
+        }catch(IOException e){
+            lostWorkers.incrementAndGet();
+            System.err.println("Lost worker " + worker + " (" + names.get(worker) + "): " + e);
+        }finally{
+            finished.countDown();
+        }
+    }
+
+    /**
+     * 🚀 在本机启动一个工作进程 - 使用相同的JVM和classpath
+     */
+    private Process spawnWorker(int index, String address) throws IOException{
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for(String name : System.getProperties().stringPropertyNames()){
+            for(String prefix : FORWARDED_PROPERTIES){
+                if(name.startsWith(prefix)){
+                    command.add("-D" + name + "=" + System.getProperty(name));
+                    break;
+                }
+            }
+        }
+        command.add("-Dstub.server=false"); // 替身服务器（如果启用）只在协调进程中运行
+        command.add(LoadWorker.class.getName());
+        command.add(address);
+
+        File log = new File(workerLogDirectory(), "worker-" + index + ".log");
+        if(!log.getParentFile().isDirectory() && !log.getParentFile().mkdirs()){
+            throw new IOException("Cannot create " + log.getParentFile());
+        }
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+    }
+
+    private static File workerLogDirectory(){
+        return new File(TestConfig.REPORT_DIR, "workers");
+    }
+
+    /** 📊 进度 - 合并当前所有快照 */
+    private String progress(long elapsedNanos){
+        long passed = 0;
+        long failed = 0;
+        long dropped = 0;
+        Histogram all = new Histogram(3);
+        for(LoadProtocol.Snapshot snapshot : latest.values()){
+            dropped += snapshot.dropped;
+            for(long[] counts : snapshot.scenarios.values()){
+                passed += counts[0];
+                failed += counts[1];
+            }
+            snapshot.histograms.values().forEach(byStatus -> byStatus.values().forEach(all::add));
+        }
+        return String.format("[%ds] %d/%d workers reporting, %d passed, %d failed, %d dropped, %d requests (%.0f/s), "
+                        + "p50=%.1fms p99=%.1fms",
+                TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), latest.size(), workers, passed, failed, dropped,
+                all.getTotalCount(), all.getTotalCount() * 1e9 / Math.max(1, elapsedNanos),
+                all.getValueAtPercentile(50) / 1000.0, all.getValueAtPercentile(99) / 1000.0);
+    }
+
+    /** ➕ 合并所有工作进程的最后一份快照 */
+    private Result merge(long elapsedNanos){
+        LoadGenerator.Summary summary = new LoadGenerator.Summary();
+        LatencyRecorder latency = new LatencyRecorder(TimeUnit.MILLISECONDS.toMicros(TestConfig.LATENCY_EXPECTED_INTERVAL));
+        StringBuilder workerLines = new StringBuilder();
+        long scheduled = 0;
+        long dropped = 0;
+        long late = 0;
+        for(int worker = 0; worker < workers; worker++){
+            LoadProtocol.Snapshot snapshot = latest.get(worker);
+            long passed = 0;
+            long failed = 0;
+            if(snapshot != null){
+                scheduled += snapshot.scheduled;
+                dropped += snapshot.dropped;
+                late += snapshot.late;
+                for(Map.Entry<String, long[]> scenario : snapshot.scenarios.entrySet()){
+                    summary.add(scenario.getKey(), scenario.getValue()[0], scenario.getValue()[1]);
+                    passed += scenario.getValue()[0];
+                    failed += scenario.getValue()[1];
+                }
+                snapshot.histograms.forEach((endpoint, byStatus) ->
+                        byStatus.forEach((status, histogram) -> latency.add(endpoint, status, histogram)));
+            }
+            workerLines.append(String.format("  worker %d (%s): passed=%d failed=%d%s%s%n", worker, names.get(worker),
+                    passed, failed, snapshot == null || plan.arrivalRate.isEmpty() ? ""
+                            : String.format(" scheduled=%d dropped=%d late=%d", snapshot.scheduled, snapshot.dropped,
+                                    snapshot.late),
+                    snapshot == null || !snapshot.finished ? " (did not finish)" : ""));
+        }
+        if(!plan.arrivalRate.isEmpty()){
+            workerLines.append(String.format("=== ARRIVALS === %s/s over %d workers: scheduled=%d, dropped=%d, late=%d (>%dms)%n",
+                    plan.arrivalRate, workers, scheduled, dropped, late, plan.lateThresholdMillis));
+        }
+        summary.elapsedNanos(elapsedNanos);
+        return new Result(summary, latency, lostWorkers.get(), scheduled == 0 ? 0 : dropped * 100.0 / scheduled,
+                workerLines.toString());
+    }
+
+    /**
+     * 📊 合并后的结果
+     */
+    public static class Result{
+        private final LoadGenerator.Summary summary;
+        private final LatencyRecorder latency;
+        private final int lostWorkers;
+        private final double droppedPercent;
+        private final String workers;
+
+        Result(LoadGenerator.Summary summary, LatencyRecorder latency, int lostWorkers, double droppedPercent,
+               String workers){
+            this.summary = summary;
+            this.latency = latency;
+            this.lostWorkers = lostWorkers;
+            this.droppedPercent = droppedPercent;
+            this.workers = workers;
+        }
+
+        /** 📊 所有工作进程的场景计数，耗时为协调进程下发计划到最后一个工作进程结束 */
+        public LoadGenerator.Summary summary(){
+            return summary;
+        }
+
+        /** ⏱️ 所有工作进程合并后的延迟直方图 */
+        public LatencyRecorder latency(){
+            return latency;
+        }
+
+        /** 🔌 中途断开连接的工作进程数 */
+        public int lostWorkers(){
+            return lostWorkers;
+        }
+
+        /** 🗑️ 开放模型中丢弃的到达占计划的百分比，闭环模型为0 */
+        public double droppedPercent(){
+            return droppedPercent;
+        }
+
+        @Override
+        public String toString(){
+            return summary + workers;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.utils.RequestExecutors;
+import io.cucumber.testng.Pickle;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 📈 闭环压测引擎 - N个虚拟用户循环执行Cucumber场景
+ * 职责：按爬坡时间依次启动虚拟用户，每个用户按顺序轮流执行场景，
+ * 每次场景结束后等待思考时间，直到达到迭代次数或持续时间
+ *
+ * 🖧 分布式压测时每个工作进程只运行slice()分到的那部分虚拟用户（第index、index+count、...个），
+ * 启动时间和起始场景仍按全局序号计算，多个进程合起来与单个进程的爬坡完全一致
+ */
+public class LoadGenerator {
+
+    private final ScenarioCatalog catalog;
+    private final int users;
+    private final int iterations;
+    private final long durationMillis;
+    private final long rampUpMillis;
+    private final long thinkTimeMillis;
+    private final long thinkJitterMillis;
+
+    /** 🖧 本进程负责的第一个全局用户序号、序号步长和全局用户总数 */
+    private final int firstUser;
+    private final int userStride;
+    private final int totalUsers;
+
+    private final Summary summary = new Summary();
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param catalog 要执行的场景
+     * @param users 虚拟用户数
+     * @param iterations 每个用户的迭代次数（durationMillis为0时生效）
+     * @param durationMillis 持续时间，大于0时按时长运行
+     * @param rampUpMillis 爬坡时间，用户在这段时间内均匀启动
+     * @param thinkTimeMillis 每次场景之后的思考时间
+     * @param thinkJitterMillis 思考时间的随机抖动
+     */
+    public LoadGenerator(ScenarioCatalog catalog, int users, int iterations, long durationMillis,
+                         long rampUpMillis, long thinkTimeMillis, long thinkJitterMillis){
+        this(catalog, users, iterations, durationMillis, rampUpMillis, thinkTimeMillis, thinkJitterMillis, 0, 1);
+    }
+
+    private LoadGenerator(ScenarioCatalog catalog, int totalUsers, int iterations, long durationMillis,
+                          long rampUpMillis, long thinkTimeMillis, long thinkJitterMillis, int firstUser, int userStride){
+        this.catalog = catalog;
+        this.users = totalUsers > firstUser ? (totalUsers - firstUser + userStride - 1) / userStride : 0;
+        this.firstUser = firstUser;
+        this.userStride = userStride;
+        this.totalUsers = totalUsers;
+        this.iterations = iterations;
+        this.durationMillis = durationMillis;
+        this.rampUpMillis = rampUpMillis;
+        this.thinkTimeMillis = thinkTimeMillis;
+        this.thinkJitterMillis = thinkJitterMillis;
+    }
+
+    /**
+     * 🖧 分给第index个工作进程（共count个）的那部分虚拟用户
+     *
+     * @param index 工作进程序号，从0开始
+     * @param count 工作进程总数
+     */
+    public LoadGenerator slice(int index, int count){
+        if(index < 0 || index >= count){
+            throw new IllegalArgumentException("Worker index " + index + " out of range for " + count + " workers");
+        }
+        return new LoadGenerator(catalog, totalUsers, iterations, durationMillis, rampUpMillis, thinkTimeMillis,
+                thinkJitterMillis, firstUser + index * userStride, userStride * count);
+    }
+
+    /** 👥 本进程运行的虚拟用户数 */
+    public int users(){
+        return users;
+    }
+
+    /**
+     * 📊 运行中的统计 - run()返回之前也可以读取（分布式压测的工作进程定期发送）
+     */
+    public Summary summary(){
+        return summary;
+    }
+
+    /**
+     * ▶️ 运行压测 - 阻塞直到所有虚拟用户结束
+     *
+     * @return Summary 每个场景的通过/失败次数和总体吞吐量
+     */
+    public Summary run() throws InterruptedException{
+        List<Pickle> scenarios = catalog.scenarios();
+        if(scenarios.isEmpty()){
+            throw new IllegalStateException("No scenarios selected for the load run");
+        }
+
+        long start = System.nanoTime();
+        long deadline = durationMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(durationMillis) : Long.MAX_VALUE;
+
+        ExecutorService virtualUsers = RequestExecutors.newExecutor("virtual-user");
+        for(int user = 0; user < users; user++){
+            int userIndex = firstUser + user * userStride;
+            long startDelay = totalUsers > 1 ? rampUpMillis * userIndex / (totalUsers - 1) : 0;
+            virtualUsers.execute(() -> runUser(userIndex, startDelay, deadline, scenarios, summary));
+        }
+        virtualUsers.shutdown();
+        while(!virtualUsers.awaitTermination(1, TimeUnit.SECONDS)){
+            // 等待所有虚拟用户结束
+        }
+
+        summary.elapsedNanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * 👤 单个虚拟用户的循环
+     */
+    private void runUser(int userIndex, long startDelay, long deadline, List<Pickle> scenarios, Summary summary){
+        try{
+            Thread.sleep(startDelay);
+            for(int iteration = 0; keepRunning(iteration, deadline); iteration++){
+                // 🔄 不同用户从不同场景开始，避免所有用户同时执行同一个场景
+                Pickle scenario = scenarios.get((userIndex + iteration) % scenarios.size());
+                try{
+                    catalog.run(scenario);
+                    summary.counter(scenario.getName()).passed.increment();
+                }catch(Throwable t){
+                    summary.counter(scenario.getName()).failed.increment();
+                }
+                think();
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean keepRunning(int iteration, long deadline){
+        if(durationMillis > 0){
+            return System.nanoTime() < deadline;
+        }
+        return iteration < iterations;
+    }
+
+    private void think() throws InterruptedException{
+        long pause = thinkTimeMillis;
+        if(thinkJitterMillis > 0){
+            pause += ThreadLocalRandom.current().nextLong(-thinkJitterMillis, thinkJitterMillis + 1);
+        }
+        if(pause > 0){
+            Thread.sleep(pause);
+        }
+    }
+
+    /**
+     * 📊 压测结果 - 按场景统计通过和失败次数
+     */
+    public static class Summary{
+        private final Map<String,Counter> counters = new ConcurrentHashMap<>();
+        private volatile long elapsedNanos;
+
+        Counter counter(String scenario){
+            return counters.computeIfAbsent(scenario, name -> new Counter());
+        }
+
+        /** 📋 每个场景的 {通过次数, 失败次数} */
+        Map<String,long[]> counts(){
+            Map<String,long[]> counts = new TreeMap<>();
+            counters.forEach((name, counter) -> counts.put(name, new long[]{counter.passed.sum(), counter.failed.sum()}));
+            return counts;
+        }
+
+        /** ➕ 合并另一个进程的统计 */
+        void add(String scenario, long passed, long failed){
+            Counter counter = counter(scenario);
+            counter.passed.add(passed);
+            counter.failed.add(failed);
+        }
+
+        long elapsedNanos(){
+            return elapsedNanos;
+        }
+
+        void elapsedNanos(long elapsedNanos){
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long passed(){
+            return counters.values().stream().mapToLong(counter -> counter.passed.sum()).sum();
+        }
+
+        public long failed(){
+            return counters.values().stream().mapToLong(counter -> counter.failed.sum()).sum();
+        }
+
+        /** ❌ 失败率（百分比） */
+        public double errorPercent(){
+            long total = passed() + failed();
+            return total == 0 ? 0 : failed() * 100.0 / total;
+        }
+
+        /** 🚀 每秒完成的场景数 */
+        public double scenariosPerSecond(){
+            return elapsedNanos == 0 ? 0 : (passed() + failed()) * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("=== LOAD SUMMARY === %d passed, %d failed (%.2f%%), %.1fs, %.2f scenarios/s%n",
+                    passed(), failed(), errorPercent(), elapsedNanos / 1e9, scenariosPerSecond()));
+            counters.forEach((name, counter) -> report.append(String.format("  %-45s passed=%d failed=%d%n",
+                    name, counter.passed.sum(), counter.failed.sum())));
+            return report.toString();
+        }
+    }
+
+    static class Counter{
+        final LongAdder passed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+}
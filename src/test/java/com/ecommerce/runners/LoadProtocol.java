@@ -0,0 +1,228 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.utils.LatencyRecorder;
+import org.HdrHistogram.Histogram;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+
+/**
+ * 📡 分布式压测协议 - 协调进程和工作进程之间的TCP消息（DataOutputStream，大端序）
+ *
+ * 📄 消息：
+ *   工作进程 → 协调进程  HELLO：int 魔数"LOAD" | byte HELLO | UTF 工作进程名称（主机名和pid）
+ *   协调进程 → 工作进程  PLAN：byte PLAN | 压测计划（见Plan）
+ *   工作进程 → 协调进程  SNAPSHOT：byte SNAPSHOT | boolean 是否结束 | long 已运行纳秒
+ *                        | long 计划到达 | long 丢弃 | long 迟到（开放模型，闭环时为0）
+ *                        | int 场景数 | (UTF 场景 | long 通过 | long 失败)...
+ *                        | int 直方图数 | (UTF 端点 | int 状态码 | int 长度 | 压缩的HdrHistogram)...
+ *
+ * 📌 快照是累计值而不是增量：协调进程只保留每个工作进程最新的一份，连接中断时最后一份仍然有效，
+ *    合并时直接把各进程的直方图计数相加，得到的分位数是精确的
+ */
+final class LoadProtocol {
+
+    static final int MAGIC = 0x4C4F4144; // "LOAD"
+    static final byte HELLO = 1;
+    static final byte PLAN = 2;
+    static final byte SNAPSHOT = 3;
+
+    private LoadProtocol(){
+    }
+
+    /**
+     * 📋 压测计划 - 与单进程压测的参数相同，再加上工作进程序号和场景标签（场景组合）
+     */
+    static final class Plan {
+        final int workerIndex;
+        final int workerCount;
+        final int users;
+        final int iterations;
+        final long durationMillis;
+        final long rampUpMillis;
+        final long thinkTimeMillis;
+        final long thinkJitterMillis;
+        final long snapshotIntervalMillis;
+        /** 🏷️ Cucumber标签表达式，为空时运行所有场景 */
+        final String tags;
+        /** 🚪 开放模型的总到达率（为空时是闭环模型），各工作进程平分 */
+        final String arrivalRate;
+        final int arrivalSteps;
+        /** 🚦 每个工作进程的在途场景上限 */
+        final int maxInFlight;
+        final long lateThresholdMillis;
+
+        Plan(int workerIndex, int workerCount, int users, int iterations, long durationMillis, long rampUpMillis,
+             long thinkTimeMillis, long thinkJitterMillis, long snapshotIntervalMillis, String tags,
+             String arrivalRate, int arrivalSteps, int maxInFlight, long lateThresholdMillis){
+            this.workerIndex = workerIndex;
+            this.workerCount = workerCount;
+            this.users = users;
+            this.iterations = iterations;
+            this.durationMillis = durationMillis;
+            this.rampUpMillis = rampUpMillis;
+            this.thinkTimeMillis = thinkTimeMillis;
+            this.thinkJitterMillis = thinkJitterMillis;
+            this.snapshotIntervalMillis = snapshotIntervalMillis;
+            this.tags = tags;
+            this.arrivalRate = arrivalRate;
+            this.arrivalSteps = arrivalSteps;
+            this.maxInFlight = maxInFlight;
+            this.lateThresholdMillis = lateThresholdMillis;
+        }
+
+        /** 🎯 同样的计划分给另一个工作进程 */
+        Plan forWorker(int index){
+            return new Plan(index, workerCount, users, iterations, durationMillis, rampUpMillis, thinkTimeMillis,
+                    thinkJitterMillis, snapshotIntervalMillis, tags, arrivalRate, arrivalSteps, maxInFlight,
+                    lateThresholdMillis);
+        }
+
+        void write(DataOutputStream out) throws IOException{
+            out.writeByte(PLAN);
+            out.writeInt(workerIndex);
+            out.writeInt(workerCount);
+            out.writeInt(users);
+            out.writeInt(iterations);
+            out.writeLong(durationMillis);
+            out.writeLong(rampUpMillis);
+            out.writeLong(thinkTimeMillis);
+            out.writeLong(thinkJitterMillis);
+            out.writeLong(snapshotIntervalMillis);
+            out.writeUTF(tags);
+            out.writeUTF(arrivalRate);
+            out.writeInt(arrivalSteps);
+            out.writeInt(maxInFlight);
+            out.writeLong(lateThresholdMillis);
+            out.flush();
+        }
+
+        static Plan read(DataInputStream in) throws IOException{
+            expect(in, PLAN);
+            return new Plan(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readLong(),
+                    in.readLong(), in.readLong(), in.readLong(), in.readUTF(), in.readUTF(), in.readInt(), in.readInt(),
+                    in.readLong());
+        }
+
+        @Override
+        public String toString(){
+            String model = arrivalRate.isEmpty()
+                    ? String.format("users=%d, iterations=%d, ramp-up=%ds, think=%dms", users, iterations,
+                            rampUpMillis / 1000, thinkTimeMillis)
+                    : String.format("arrival rate=%s/s, steps=%d, in-flight limit=%d", arrivalRate, arrivalSteps,
+                            maxInFlight);
+            return String.format("%s, duration=%ds, tags=%s", model, durationMillis / 1000, tags.isEmpty() ? "(all)" : tags);
+        }
+    }
+
+    /**
+     * 📸 工作进程的累计统计
+     */
+    static final class Snapshot {
+        final boolean finished;
+        final long elapsedNanos;
+        /** 🚪 开放模型的计划到达、丢弃和迟到次数 */
+        final long scheduled;
+        final long dropped;
+        final long late;
+        /** 场景 -> {通过次数, 失败次数} */
+        final Map<String, long[]> scenarios;
+        /** 端点 -> 状态码 -> 直方图 */
+        final Map<String, Map<Integer, Histogram>> histograms;
+
+        Snapshot(boolean finished, long elapsedNanos, long scheduled, long dropped, long late,
+                 Map<String, long[]> scenarios, Map<String, Map<Integer, Histogram>> histograms){
+            this.finished = finished;
+            this.elapsedNanos = elapsedNanos;
+            this.scheduled = scheduled;
+            this.dropped = dropped;
+            this.late = late;
+            this.scenarios = scenarios;
+            this.histograms = histograms;
+        }
+
+        /** 📸 当前进程的统计（闭环模型） */
+        static Snapshot of(boolean finished, long elapsedNanos, LoadGenerator.Summary summary, LatencyRecorder latency){
+            return new Snapshot(finished, elapsedNanos, 0, 0, 0, summary.counts(), latency.snapshot());
+        }
+
+        /** 📸 当前进程的统计（开放模型） */
+        static Snapshot of(boolean finished, long elapsedNanos, ArrivalRateGenerator arrivals, LatencyRecorder latency){
+            return new Snapshot(finished, elapsedNanos, arrivals.scheduled(), arrivals.dropped(), arrivals.late(),
+                    arrivals.summary().counts(), latency.snapshot());
+        }
+
+        void write(DataOutputStream out) throws IOException{
+            out.writeByte(SNAPSHOT);
+            out.writeBoolean(finished);
+            out.writeLong(elapsedNanos);
+            out.writeLong(scheduled);
+            out.writeLong(dropped);
+            out.writeLong(late);
+            out.writeInt(scenarios.size());
+            for(Map.Entry<String, long[]> scenario : scenarios.entrySet()){
+                out.writeUTF(scenario.getKey());
+                out.writeLong(scenario.getValue()[0]);
+                out.writeLong(scenario.getValue()[1]);
+            }
+            int count = histograms.values().stream().mapToInt(Map::size).sum();
+            out.writeInt(count);
+            ByteBuffer buffer = null;
+            for(Map.Entry<String, Map<Integer, Histogram>> endpoint : histograms.entrySet()){
+                for(Map.Entry<Integer, Histogram> status : endpoint.getValue().entrySet()){
+                    Histogram histogram = status.getValue();
+                    int capacity = histogram.getNeededByteBufferCapacity();
+                    if(buffer == null || buffer.capacity() < capacity){
+                        buffer = ByteBuffer.allocate(capacity);
+                    }
+                    buffer.clear();
+                    int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+                    out.writeUTF(endpoint.getKey());
+                    out.writeInt(status.getKey());
+                    out.writeInt(length);
+                    out.write(buffer.array(), 0, length);
+                }
+            }
+            out.flush();
+        }
+
+        static Snapshot read(DataInputStream in) throws IOException{
+            expect(in, SNAPSHOT);
+            boolean finished = in.readBoolean();
+            long elapsedNanos = in.readLong();
+            long scheduled = in.readLong();
+            long dropped = in.readLong();
+            long late = in.readLong();
+            Map<String, long[]> scenarios = new TreeMap<>();
+            for(int i = in.readInt(); i > 0; i--){
+                scenarios.put(in.readUTF(), new long[]{in.readLong(), in.readLong()});
+            }
+            Map<String, Map<Integer, Histogram>> histograms = new TreeMap<>();
+            for(int i = in.readInt(); i > 0; i--){
+                String endpoint = in.readUTF();
+                int status = in.readInt();
+                byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                try{
+                    histograms.computeIfAbsent(endpoint, key -> new TreeMap<>())
+                            .put(status, Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0));
+                }catch(DataFormatException e){
+                    throw new IOException("Corrupt histogram for " + endpoint + " " + status, e);
+                }
+            }
+            return new Snapshot(finished, elapsedNanos, scheduled, dropped, late, scenarios, histograms);
+        }
+    }
+
+    static void expect(DataInputStream in, byte type) throws IOException{
+        byte actual = in.readByte();
+        if(actual != type){
+            throw new IOException("Expected message " + type + " but got " + actual);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.runners;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 📡 LoadProtocol单元测试 - 计划和快照写出再读回内容不变，连续的消息按边界读取
+ */
+public class LoadProtocolTest {
+
+    @Test
+    public void roundTripsPlan() throws IOException{
+        LoadProtocol.Plan plan = new LoadProtocol.Plan(1, 3, 50, 10, 60_000, 5_000, 200, 50, 1_000,
+                "@cart and not @slow", "100", 4, 64, 250);
+
+        LoadProtocol.Plan read = LoadProtocol.Plan.read(input(write(plan::write)));
+
+        assertEquals(read.workerIndex, 1);
+        assertEquals(read.workerCount, 3);
+        assertEquals(read.users, 50);
+        assertEquals(read.iterations, 10);
+        assertEquals(read.durationMillis, 60_000);
+        assertEquals(read.rampUpMillis, 5_000);
+        assertEquals(read.thinkTimeMillis, 200);
+        assertEquals(read.thinkJitterMillis, 50);
+        assertEquals(read.snapshotIntervalMillis, 1_000);
+        assertEquals(read.tags, "@cart and not @slow");
+        assertEquals(read.arrivalRate, "100");
+        assertEquals(read.arrivalSteps, 4);
+        assertEquals(read.maxInFlight, 64);
+        assertEquals(read.lateThresholdMillis, 250);
+    }
+
+    /**
+     * 📸 快照中的直方图压缩后读回，计数和分位数不变
+     */
+    @Test
+    public void roundTripsSnapshotWithHistograms() throws IOException{
+        Map<String, long[]> scenarios = new TreeMap<>();
+        scenarios.put("Add product to cart", new long[]{12, 1});
+        scenarios.put("Login", new long[]{30, 0});
+        Histogram ok = histogram(1_000, 2_000, 3_000, 250_000);
+        Histogram notFound = histogram(500);
+        Map<String, Map<Integer, Histogram>> histograms = new TreeMap<>();
+        histograms.computeIfAbsent("GET /view_cart", key -> new TreeMap<>()).put(200, ok);
+        histograms.computeIfAbsent("GET /view_cart", key -> new TreeMap<>()).put(404, notFound);
+        histograms.computeIfAbsent("POST /login", key -> new TreeMap<>()).put(302, histogram(4_000));
+        LoadProtocol.Snapshot snapshot = new LoadProtocol.Snapshot(true, 123_456_789L, 1_000, 7, 3, scenarios, histograms);
+
+        LoadProtocol.Snapshot read = LoadProtocol.Snapshot.read(input(write(snapshot::write)));
+
+        assertTrue(read.finished);
+        assertEquals(read.elapsedNanos, 123_456_789L);
+        assertEquals(read.scheduled, 1_000);
+        assertEquals(read.dropped, 7);
+        assertEquals(read.late, 3);
+        assertEquals(read.scenarios.keySet(), scenarios.keySet());
+        assertEquals(read.scenarios.get("Add product to cart"), new long[]{12, 1});
+        assertEquals(read.histograms.keySet(), histograms.keySet());
+        Histogram readOk = read.histograms.get("GET /view_cart").get(200);
+        assertEquals(readOk.getTotalCount(), ok.getTotalCount());
+        assertEquals(readOk.getValueAtPercentile(50), ok.getValueAtPercentile(50));
+        assertEquals(readOk.getMaxValue(), ok.getMaxValue());
+        assertEquals(read.histograms.get("GET /view_cart").get(404).getTotalCount(), 1);
+        assertEquals(read.histograms.get("POST /login").get(302).getTotalCount(), 1);
+    }
+
+    /**
+     * 🧱 同一个连接上连续发送的消息逐个读出，直方图的长度字段保证下一条消息从正确的位置开始
+     */
+    @Test
+    public void readsConsecutiveMessagesOnOneStream() throws IOException{
+        Map<String, Map<Integer, Histogram>> histograms = new TreeMap<>();
+        histograms.computeIfAbsent("GET /", key -> new TreeMap<>()).put(200, histogram(1_000, 9_000));
+        LoadProtocol.Snapshot first = new LoadProtocol.Snapshot(false, 1, 0, 0, 0, new TreeMap<>(), histograms);
+        LoadProtocol.Snapshot last = new LoadProtocol.Snapshot(true, 2, 0, 0, 0, new TreeMap<>(), new TreeMap<>());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        first.write(out);
+        first.write(out);
+        last.write(out);
+        DataInputStream in = input(bytes.toByteArray());
+
+        assertFalse(LoadProtocol.Snapshot.read(in).finished);
+        assertEquals(LoadProtocol.Snapshot.read(in).histograms.get("GET /").get(200).getTotalCount(), 2);
+        assertTrue(LoadProtocol.Snapshot.read(in).finished);
+        assertEquals(in.read(), -1);
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = "Expected message 3 but got 2")
+    public void rejectsUnexpectedMessageType() throws IOException{
+        LoadProtocol.Plan plan = new LoadProtocol.Plan(0, 1, 1, 1, 0, 0, 0, 0, 1_000, "", "", 1, 1, 0);
+        LoadProtocol.Snapshot.read(input(write(plan::write)));
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void failsOnTruncatedMessage() throws IOException{
+        LoadProtocol.Plan plan = new LoadProtocol.Plan(0, 1, 1, 1, 0, 0, 0, 0, 1_000, "", "", 1, 1, 0);
+        byte[] bytes = write(plan::write);
+        LoadProtocol.Plan.read(input(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    private interface Message {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] write(Message message) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        message.write(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes){
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static Histogram histogram(long... values){
+        Histogram histogram = new Histogram(3);
+        for(long value : values){
+            histogram.recordValue(value);
+        }
+        return histogram;
+    }
+}
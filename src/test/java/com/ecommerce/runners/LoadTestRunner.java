@@ -0,0 +1,149 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.stub.StubServer;
+import com.ecommerce.testdata.SessionPool;
+import com.ecommerce.utils.Environment;
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.RequestExecutors;
+import com.ecommerce.utils.StepLog;
+import com.ecommerce.utils.TestConfig;
+import io.cucumber.testng.CucumberOptions;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 📈 压测运行器 - 用功能测试的Step Definitions做压测
+ * 只在 -Drun.mode=load 时执行，其他情况下跳过
+ *
+ * 🎯 示例：
+ *   mvn test -Drun.mode=load -Dload.users=20 -Dload.duration=60 -Dload.ramp.up=10 -Dload.think.time=500
+ *   可以配合 -Dcucumber.filter.tags=... 只压测部分场景（默认排除 @performance 场景）
+ *   开放模型：mvn test -Drun.mode=load -Dload.arrival.rate=50..500 -Dload.duration=60（按到达率启动场景）
+ *   加上 -Dload.workers=4 时把虚拟用户分给4个工作进程（LoadCoordinator），报告由各进程的直方图精确合并
+ */
+@CucumberOptions(
+        features = "src/test/resources/features",
+        glue = "com.ecommerce.stepdefinitions",
+        tags = "not @performance", // ⏱️ SLO场景自己测量延迟和吞吐量，不放进压测的场景组合
+        monochrome = true
+)
+public class LoadTestRunner {
+
+    @Test
+    public void runLoad() throws InterruptedException, IOException{
+        if(!"load".equalsIgnoreCase(TestConfig.RUN_MODE)){
+            throw new SkipException("Load run is disabled, use -Drun.mode=load");
+        }
+
+        System.out.println(String.format("=== LOAD RUN === users=%d, iterations=%d, duration=%ds, ramp-up=%ds, think=%dms, virtual threads=%s",
+                TestConfig.Load.USERS, TestConfig.Load.ITERATIONS, TestConfig.Load.DURATION,
+                TestConfig.Load.RAMP_UP, TestConfig.Load.THINK_TIME, RequestExecutors.isVirtual()));
+        if(!TestConfig.Load.ARRIVAL_RATE.isEmpty()){
+            System.out.println(String.format("Open model: arrival rate=%s/s, steps=%d, in-flight limit=%d (load.users is ignored)",
+                    TestConfig.Load.ARRIVAL_RATE, TestConfig.Load.ARRIVAL_STEPS, TestConfig.Load.MAX_IN_FLIGHT));
+        }
+
+        StubServer.startIfEnabled(); // 单独运行本类时TestRunner的@BeforeSuite不会执行
+        if(TestConfig.Load.WORKERS > 0){
+            runDistributed();
+            return;
+        }
+        if(SessionPool.enabled()){
+            SessionPool.shared();
+        }
+
+        ScenarioCatalog catalog = new ScenarioCatalog(LoadTestRunner.class);
+        LoadGenerator.Summary summary;
+        ArrivalRateGenerator.Report arrivals = null;
+        try{
+            if(TestConfig.Load.ARRIVAL_RATE.isEmpty()){
+                summary = new LoadGenerator(catalog,
+                        TestConfig.Load.USERS,
+                        TestConfig.Load.ITERATIONS,
+                        TestConfig.Load.DURATION * 1000L,
+                        TestConfig.Load.RAMP_UP * 1000L,
+                        TestConfig.Load.THINK_TIME,
+                        TestConfig.Load.THINK_JITTER).run();
+            }else{
+                // 🚪 开放模型：按到达率启动场景，不等待之前的场景结束
+                ArrivalRateGenerator generator = new ArrivalRateGenerator(catalog,
+                        ArrivalRateGenerator.RateProfile.parse(TestConfig.Load.ARRIVAL_RATE,
+                                TestConfig.Load.ARRIVAL_STEPS, TestConfig.Load.DURATION * 1000L),
+                        TestConfig.Load.MAX_IN_FLIGHT,
+                        TestConfig.Load.LATE_THRESHOLD);
+                arrivals = generator.run();
+                summary = generator.summary();
+            }
+        }finally{
+            catalog.finish();
+        }
+
+        StepLog.flush(); // 先写完失败场景的日志，汇总信息不会和场景日志交错
+        System.out.print(summary);
+        if(arrivals != null){
+            System.out.print(arrivals);
+        }
+        System.out.println(Environment.defaultEnvironment().transport().summary());
+        if(Environment.defaultEnvironment().cache() != null){
+            System.out.println(Environment.defaultEnvironment().cache().summary()); // 被测系统自身缓存头的效果
+        }
+
+        File report = new File(TestConfig.REPORT_DIR, "latency.json");
+        correctClosedModel(LatencyRecorder.shared(), summary.elapsedNanos());
+        LatencyRecorder.shared().writeReport(report);
+        System.out.println("Latency report written to " + report.getPath());
+
+        Assert.assertTrue(summary.errorPercent() <= TestConfig.Load.MAX_ERROR_PERCENT,
+                String.format("Error rate %.2f%% exceeds %d%%", summary.errorPercent(), TestConfig.Load.MAX_ERROR_PERCENT));
+        if(arrivals != null){
+            // 🗑️ 丢弃的到达同样是没有得到服务的用户，按同一个失败率上限检查
+            Assert.assertTrue(arrivals.droppedPercent() <= TestConfig.Load.MAX_ERROR_PERCENT,
+                    String.format("Dropped arrivals %.2f%% exceed %d%%", arrivals.droppedPercent(),
+                            TestConfig.Load.MAX_ERROR_PERCENT));
+        }
+    }
+
+    /**
+     * 🖧 分布式压测 - 虚拟用户分给load.workers个工作进程，本进程只负责协调和合并报告（-Dload.workers=N）
+     */
+    private void runDistributed() throws InterruptedException, IOException{
+        LoadCoordinator.Result result = LoadCoordinator.fromConfig().run();
+        LoadGenerator.Summary summary = result.summary();
+        System.out.print(result);
+
+        File report = new File(TestConfig.REPORT_DIR, "latency.json");
+        correctClosedModel(result.latency(), summary.elapsedNanos());
+        result.latency().writeReport(report);
+        System.out.println("Latency report (merged from " + TestConfig.Load.WORKERS + " workers) written to "
+                + report.getPath());
+
+        Assert.assertEquals(result.lostWorkers(), 0, "Workers lost during the load run");
+        Assert.assertTrue(summary.errorPercent() <= TestConfig.Load.MAX_ERROR_PERCENT,
+                String.format("Error rate %.2f%% exceeds %d%%", summary.errorPercent(), TestConfig.Load.MAX_ERROR_PERCENT));
+        Assert.assertTrue(result.droppedPercent() <= TestConfig.Load.MAX_ERROR_PERCENT,
+                String.format("Dropped arrivals %.2f%% exceed %d%%", result.droppedPercent(),
+                        TestConfig.Load.MAX_ERROR_PERCENT));
+    }
+
+    /**
+     * ⏱️ 闭环压测的协调遗漏修正 - 没有显式配置latency.expected.interval时，预期间隔取每个虚拟用户
+     * 两次请求之间的平均间隔：用户数 × 有效运行时长（减去平均爬坡延迟）÷ 请求总数；
+     * 开放模型已经从计划到达时刻计时，不再补录
+     */
+    private static void correctClosedModel(LatencyRecorder latency, long elapsedNanos){
+        long requests = latency.totalCount();
+        if(TestConfig.LATENCY_EXPECTED_INTERVAL > 0 || !TestConfig.Load.ARRIVAL_RATE.isEmpty() || requests == 0){
+            return;
+        }
+        long activeNanos = Math.max(0, elapsedNanos - TimeUnit.SECONDS.toNanos(TestConfig.Load.RAMP_UP) / 2);
+        long intervalMicros = TimeUnit.NANOSECONDS.toMicros(activeNanos) * TestConfig.Load.USERS / requests;
+        latency.correctForCoordinatedOmission(intervalMicros);
+        System.out.println(String.format("Coordinated omission corrected with the measured per-user request interval of %.1fms",
+                intervalMicros / 1000.0));
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.testdata.SessionPool;
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.StepLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 👷 分布式压测工作进程 - 连接协调进程，领取压测计划，运行分到的虚拟用户（或分到的那部分到达率），定期发回统计快照
+ * 职责：和单进程压测完全一样地执行Cucumber场景（同一套步骤定义和ApiClient），只是不自己出报告
+ *
+ * 🎯 一般由协调进程（-Dload.workers=N）在本机自动启动；在其它机器上手动启动：
+ *   mvn -Pload-worker test -Dload.coordinator=协调进程地址:端口 -Dbase.url=...
+ */
+public class LoadWorker {
+
+    /**
+     * ▶️ 运行工作进程 - 压测结束并发出最后一份快照后返回
+     * 请求线程池的线程不是守护线程，本机启动的工作进程由协调进程在收到最后一份快照后结束
+     *
+     * @param args 可选：协调进程地址:端口，默认取load.coordinator
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        String coordinator = args.length > 0 ? args[0] : System.getProperty("load.coordinator", "");
+        int colon = coordinator.lastIndexOf(':');
+        if(colon <= 0){
+            throw new IllegalArgumentException("Expected the coordinator as host:port, got '" + coordinator + "'");
+        }
+        boolean succeeded;
+        try(Socket socket = new Socket(InetAddress.getByName(coordinator.substring(0, colon)),
+                Integer.parseInt(coordinator.substring(colon + 1)))){
+            socket.setTcpNoDelay(true);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out.writeInt(LoadProtocol.MAGIC);
+            out.writeByte(LoadProtocol.HELLO);
+            out.writeUTF(ManagementFactory.getRuntimeMXBean().getName());
+            out.flush();
+
+            LoadProtocol.Plan plan = LoadProtocol.Plan.read(in);
+            System.out.println("Worker " + plan.workerIndex + "/" + plan.workerCount + " received plan: " + plan);
+            succeeded = run(plan, out);
+        }
+        StepLog.flush();
+        if(!succeeded){
+            throw new IllegalStateException("Load worker failed, see the output above");
+        }
+    }
+
+    /**
+     * 🚀 执行计划 - 运行期间每隔snapshotIntervalMillis发送一次快照，结束时发送最后一份
+     *
+     * @return false 压测本身出错（例如没有选中任何场景）
+     */
+    private static boolean run(LoadProtocol.Plan plan, DataOutputStream out) throws IOException, InterruptedException{
+        if(!plan.tags.isEmpty()){
+            System.setProperty("cucumber.filter.tags", plan.tags); // 必须在加载场景之前设置
+        }
+        if(SessionPool.enabled()){
+            SessionPool.shared();
+        }
+
+        ScenarioCatalog catalog = new ScenarioCatalog(LoadTestRunner.class);
+        LoadGenerator closed = null;
+        ArrivalRateGenerator open = null;
+        if(plan.arrivalRate.isEmpty()){
+            closed = new LoadGenerator(catalog, plan.users, plan.iterations, plan.durationMillis,
+                    plan.rampUpMillis, plan.thinkTimeMillis, plan.thinkJitterMillis)
+                    .slice(plan.workerIndex, plan.workerCount);
+            System.out.println("Worker " + plan.workerIndex + " runs " + closed.users() + " of " + plan.users + " users");
+        }else{
+            open = new ArrivalRateGenerator(catalog,
+                    ArrivalRateGenerator.RateProfile.parse(plan.arrivalRate, plan.arrivalSteps, plan.durationMillis),
+                    plan.maxInFlight, plan.lateThresholdMillis)
+                    .slice(plan.workerIndex, plan.workerCount);
+        }
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicReference<ArrivalRateGenerator.Report> arrivals = new AtomicReference<>();
+        LoadGenerator closedModel = closed;
+        ArrivalRateGenerator openModel = open;
+        Thread runner = new Thread(() -> {
+            try{
+                if(openModel != null){
+                    arrivals.set(openModel.run());
+                }else{
+                    closedModel.run();
+                }
+            }catch(Throwable t){
+                error.set(t);
+            }
+        }, "load-worker");
+        long start = System.nanoTime();
+        runner.start();
+        while(runner.isAlive()){
+            runner.join(plan.snapshotIntervalMillis);
+            if(runner.isAlive()){
+                snapshot(false, System.nanoTime() - start, closedModel, openModel).write(out);
+            }
+        }
+        catalog.finish();
+
+        snapshot(true, System.nanoTime() - start, closedModel, openModel).write(out);
+        System.out.print(openModel != null ? openModel.summary() : closedModel.summary());
+        if(arrivals.get() != null){
+            System.out.print(arrivals.get());
+        }
+        if(error.get() != null){
+            error.get().printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    private static LoadProtocol.Snapshot snapshot(boolean finished, long elapsedNanos, LoadGenerator closed,
+                                                  ArrivalRateGenerator open){
+        return open != null
+                ? LoadProtocol.Snapshot.of(finished, elapsedNanos, open, LatencyRecorder.shared())
+                : LoadProtocol.Snapshot.of(finished, elapsedNanos, closed.summary(), LatencyRecorder.shared());
+    }
+}
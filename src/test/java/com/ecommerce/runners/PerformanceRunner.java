@@ -0,0 +1,70 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.stub.StubServer;
+import com.ecommerce.utils.StepLog;
+import io.cucumber.testng.AbstractTestNGCucumberTests;
+import io.cucumber.testng.CucumberOptions;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.DataProvider;
+
+import java.io.IOException;
+
+/**
+ * ⏱️ 性能SLO运行器 - 只执行 @performance 场景，而且逐个串行执行
+ * 职责：SLO场景测量的是被测系统在没有其他负载时的延迟和吞吐量，和功能场景并行执行时，
+ * 测到的是整个套件争抢CPU和连接的结果；因此TestRunner和LoadTestRunner默认排除 @performance，
+ * 由本运行器在单独的surefire执行中运行
+ *
+ * 🎯 运行方式（名字不以TestRunner结尾，默认的 mvn test 不会执行它）：
+ *   mvn test -Pperformance -Dstub.server=true
+ *   mvn test -Pperformance -Dbase.url=http://staging.example.com/
+ *   mvn test -Pperformance -Dcucumber.filter.tags="@performance and not @contention"
+ */
+@CucumberOptions(
+        features = "src/test/resources/features",
+        glue = "com.ecommerce.stepdefinitions",
+        tags = "@performance",
+        plugin = {
+                "pretty",
+                "com.ecommerce.utils.ShardedReport:performance.html",
+                "com.ecommerce.utils.ShardedReport:performance.json"
+        },
+        monochrome = true
+)
+public class PerformanceRunner extends AbstractTestNGCucumberTests {
+
+    /**
+     * 🐢 串行执行 - 一次只测一个场景，场景之间不互相干扰
+     */
+    @Override
+    @DataProvider(parallel = false)
+    public Object[][] scenarios(){
+        return super.scenarios();
+    }
+
+    /**
+     * 🧪 启动内置替身服务器 - 仅在 -Dstub.server=true 时启动
+     */
+    @BeforeSuite(alwaysRun = true)
+    public void startStubServer() throws IOException{
+        StubServer.startIfEnabled();
+    }
+
+    /**
+     * 🛑 停止内置替身服务器并输出服务端统计
+     */
+    @AfterSuite(alwaysRun = true)
+    public void stopStubServer(){
+        StubServer.stopShared();
+    }
+
+    /**
+     * 📝 写完场景日志 - 汇总信息不会和场景日志交错
+     */
+    @AfterClass(alwaysRun = true)
+    public void flushStepLog(){
+        StepLog.flush();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.runners;
+
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import io.cucumber.testng.TestNGCucumberRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 📚 场景目录 - 在TestNG之外直接执行Cucumber场景
+ * 职责：加载Feature文件中的所有场景，并允许任意线程反复执行其中任意一个
+ *
+ * 🎯 每次执行都会创建新的步骤定义实例（AuthSteps、CartSteps），
+ * 因此每次迭代都有自己的ApiClient和会话，与功能测试使用完全相同的胶水代码
+ */
+public class ScenarioCatalog {
+
+    private final TestNGCucumberRunner cucumberRunner;
+    private final List<Pickle> scenarios;
+
+    /**
+     * 🏗️ 构造函数 - 按照optionsClass上的@CucumberOptions加载场景
+     * 不加载任何插件，避免每次迭代都输出pretty和报告
+     *
+     * @param optionsClass 带@CucumberOptions注解的类
+     */
+    public ScenarioCatalog(Class<?> optionsClass){
+        this.cucumberRunner = newRunnerWithoutPlugins(optionsClass);
+
+        List<Pickle> pickles = new ArrayList<>();
+        for(Object[] row : cucumberRunner.provideScenarios()){
+            pickles.add(((PickleWrapper) row[0]).getPickle());
+        }
+        this.scenarios = Collections.unmodifiableList(pickles);
+    }
+
+    /**
+     * 🔇 创建不带插件的Cucumber运行器
+     * Cucumber总是会叠加系统属性中的cucumber.plugin（例如命令行上的 -Dcucumber.plugin=...），
+     * 所以在创建期间临时移除该属性
+     */
+    private static TestNGCucumberRunner newRunnerWithoutPlugins(Class<?> optionsClass){
+        synchronized(ScenarioCatalog.class){
+            String plugins = System.clearProperty("cucumber.plugin");
+            try{
+                return new TestNGCucumberRunner(optionsClass,
+                        key -> "cucumber.publish.quiet".equals(key) ? "true" : null);
+            }finally{
+                if(plugins != null){
+                    System.setProperty("cucumber.plugin", plugins);
+                }
+            }
+        }
+    }
+
+    /**
+     * 📋 所有可执行的场景（已按cucumber.filter.tags等过滤）
+     */
+    public List<Pickle> scenarios(){
+        return scenarios;
+    }
+
+    /**
+     * ▶️ 执行一个场景 - 场景失败时抛出异常；与TestRunner一样提交JFR场景事件
+     */
+    public void run(Pickle scenario){
+        FlightRecorder.runScenario(scenario, () -> cucumberRunner.runScenario(scenario));
+    }
+
+    /**
+     * 🏁 结束执行 - 通知Cucumber运行结束
+     */
+    public void finish(){
+        cucumberRunner.finish();
+    }
+}
@@ -0,0 +1,145 @@
+package com.ecommerce.runners;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cucumber.testng.Pickle;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ⏱️ 场景历史耗时 - 从之前的Cucumber JSON报告中读取每个场景的耗时
+ * 职责：为调度和分片估算每个场景要跑多久
+ *
+ * 🎯 估算规则：
+ *   - 报告中有该场景（按 Feature文件 + 行号 匹配）：取各份报告中耗时的平均值
+ *   - 新场景：取同一个Feature文件中已知场景耗时的中位数
+ *   - 新的Feature文件：取所有已知场景耗时的中位数；完全没有历史时为0
+ */
+public class ScenarioDurations {
+
+    /** Feature文件:行号 -> 耗时（纳秒） */
+    private final Map<String, Long> durations;
+    /** Feature文件 -> 该文件场景耗时的中位数 */
+    private final Map<String, Long> featureMedians = new HashMap<>();
+    private final long globalMedian;
+
+    private ScenarioDurations(Map<String, Long> durations){
+        this.durations = durations;
+
+        Map<String, List<Long>> byFeature = new HashMap<>();
+        durations.forEach((key, nanos) ->
+                byFeature.computeIfAbsent(key.substring(0, key.lastIndexOf(':')), feature -> new ArrayList<>()).add(nanos));
+        byFeature.forEach((feature, values) -> featureMedians.put(feature, median(values)));
+        this.globalMedian = median(new ArrayList<>(durations.values()));
+    }
+
+    /**
+     * 📂 读取历史报告 - 文件不存在或无法解析时跳过该文件
+     *
+     * @param reports Cucumber JSON报告文件
+     */
+    public static ScenarioDurations load(List<File> reports){
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, long[]> totals = new HashMap<>(); // key -> {耗时之和, 次数}
+        for(File report : reports){
+            if(!report.isFile()){
+                continue;
+            }
+            try{
+                for(JsonNode feature : mapper.readTree(report)){
+                    String uri = normalize(feature.path("uri").asText());
+                    for(JsonNode element : feature.path("elements")){
+                        if(!"scenario".equals(element.path("type").asText())){
+                            continue;
+                        }
+                        long[] total = totals.computeIfAbsent(uri + ":" + element.path("line").asInt(), key -> new long[2]);
+                        total[0] += sum(element.path("before")) + sum(element.path("steps")) + sum(element.path("after"));
+                        total[1]++;
+                    }
+                }
+            }catch(IOException e){
+                System.out.println("Ignoring unreadable scenario history " + report + ": " + e.getMessage());
+            }
+        }
+
+        Map<String, Long> durations = new HashMap<>();
+        totals.forEach((key, total) -> durations.put(key, total[0] / total[1]));
+        return new ScenarioDurations(durations);
+    }
+
+    /** 📊 是否读到了任何历史数据 */
+    public boolean isEmpty(){
+        return durations.isEmpty();
+    }
+
+    /** ✅ 历史报告中是否有该场景 */
+    public boolean isKnown(Pickle pickle){
+        return durations.containsKey(key(pickle));
+    }
+
+    /**
+     * ⏳ 估算场景耗时（纳秒）
+     */
+    public long estimateNanos(Pickle pickle){
+        Long known = durations.get(key(pickle));
+        if(known != null){
+            return known;
+        }
+        return featureMedians.getOrDefault(normalize(pickle.getUri().toString()), globalMedian);
+    }
+
+    private static String key(Pickle pickle){
+        return normalize(pickle.getUri().toString()) + ":" + pickle.getLine();
+    }
+
+    /** 🔁 before钩子、步骤和after钩子的耗时之和 */
+    private static long sum(JsonNode results){
+        long nanos = 0;
+        for(JsonNode result : results){
+            nanos += result.path("result").path("duration").asLong(0);
+        }
+        return nanos;
+    }
+
+    /**
+     * 🔧 统一Feature文件的写法 - file:src/... 、./src/... 和绝对路径都转成相对于工作目录的路径
+     */
+    static String normalize(String uri){
+        if(uri.startsWith("classpath:")){
+            return uri;
+        }
+        String path = uri;
+        if(path.startsWith("file:")){
+            try{
+                path = URI.create(path).getSchemeSpecificPart(); // file:src/a.feature 和 file:/abs/a.feature 都适用
+            }catch(IllegalArgumentException e){
+                path = path.substring("file:".length());
+            }
+        }
+        Path file = Paths.get(path);
+        if(file.isAbsolute()){
+            Path workingDirectory = Paths.get("").toAbsolutePath();
+            if(file.startsWith(workingDirectory)){
+                file = workingDirectory.relativize(file);
+            }
+        }
+        return file.normalize().toString().replace('\\', '/');
+    }
+
+    private static long median(List<Long> values){
+        if(values.isEmpty()){
+            return 0;
+        }
+        Collections.sort(values);
+        return values.get(values.size() / 2);
+    }
+}
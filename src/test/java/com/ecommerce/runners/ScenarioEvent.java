@@ -0,0 +1,33 @@
+package com.ecommerce.runners;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ✈️ 场景的JFR事件 - 每个场景执行一次提交一个，持续时间即场景耗时（包括钩子）
+ * 场景内的HTTP请求事件落在同一个线程、同一段时间内，在JDK Mission Control中按线程展开即可对应
+ */
+@Name("com.ecommerce.Scenario")
+@Label("Cucumber Scenario")
+@Category({"E-commerce Tests", "Scenarios"})
+@Description("A Cucumber scenario run by TestRunner or a load generator")
+@StackTrace(false)
+class ScenarioEvent extends jdk.jfr.Event {
+
+    @Label("Scenario")
+    String scenario;
+
+    @Label("Feature")
+    @Description("Feature file and line of the scenario")
+    String location;
+
+    @Label("Environment")
+    String environment;
+
+    @Label("Status")
+    @Description("passed, failed or skipped")
+    String status;
+}
@@ -1,8 +1,31 @@
 package com.ecommerce.runners;
 
+import com.ecommerce.stub.StubServer;
+import com.ecommerce.testdata.SessionPool;
+import com.ecommerce.utils.Environment;
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.StepLog;
+import com.ecommerce.utils.TestConfig;
+import com.ecommerce.utils.TrafficRecorder;
 import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 
 /**
@@ -14,11 +37,16 @@ import org.testng.annotations.DataProvider;
         features = "src/test/resources/features",
         // 🎭 指定Step Definitions的包路径 - 测试步骤的"演员休息室"
         glue = "com.ecommerce.stepdefinitions",
+        // ⏱️ 性能SLO场景由PerformanceRunner串行执行（mvn test -Pperformance），并行的功能测试中测不准
+        tags = "not @performance",
         // 📊 配置测试报告插件 - 测试结果的"记录设备"
+        // HTML和JSON报告写到报告目录（target/cucumber-reports），JSON报告同时是下一次运行的场景历史；
+        // 分片运行时文件名带分片号（shards/cucumber-shard-N.json），各分片不会同时写同一个报告文件
         plugin = {
                 "pretty", // 控制台美化输出
-                "html:target/cucumber-reports/cucumber.html", // 生成HTML格式测试报告
-                "json:targer/cucumber-reports/cucumber.json" // 生成JSON格式测试报告（用于CI/CD集成）
+                "com.ecommerce.utils.ShardedReport:cucumber.html", // 🌐 HTML报告
+                "com.ecommerce.utils.ShardedReport:cucumber.json", // 📄 JSON报告
+                "com.ecommerce.utils.StepProfiler" // 🔬 步骤剖析：耗时、CPU、分配字节和火焰图折叠栈（分片时文件名带分片号）
         },
 
         // 🎨 控制台输出模式 - 确保在不同终端显示一致
@@ -27,6 +55,12 @@ import org.testng.annotations.DataProvider;
 
 
 public class TestRunner extends AbstractTestNGCucumberTests {
+    /**
+     * 📜 场景历史耗时 - 必须在类加载时读取：@BeforeClass创建Cucumber运行器时，
+     * json插件会清空同一个报告文件
+     */
+    private static final ScenarioDurations HISTORY = loadHistory();
+
     /**
      * 🎯 重写scenarios方法 - TestNG数据提供者
      * 这个方法告诉TestNG有哪些Cucumber测试场景需要执行
@@ -40,9 +74,267 @@ public class TestRunner extends AbstractTestNGCucumberTests {
     @Override
     @DataProvider(parallel = true)
     public Object[][] scenarios(){
+        // 📈 压测模式下场景由LoadTestRunner执行，这里不再重复执行
+        if("load".equalsIgnoreCase(TestConfig.RUN_MODE)){
+            return new Object[0][];
+        }
+
         // 🔄 调用父类实现 - 自动扫描并返回所有Feature文件中的测试场景
         // 父类已经实现了复杂的场景发现和数据处理逻辑
-        return super.scenarios();
+        Object[][] scenarios = super.scenarios();
+
+        // 🧩 分片模式下只保留分给当前JVM的场景
+        if(TestConfig.Shard.COUNT > 1){
+            scenarios = shard(scenarios, HISTORY, TestConfig.Shard.INDEX, TestConfig.Shard.COUNT);
+        }
+
+        // ⏱️ 耗时长的场景先执行，避免最慢的场景最后才开始、拖长整体运行时间
+        if("duration".equalsIgnoreCase(TestConfig.SCENARIO_ORDER)){
+            scenarios = longestFirst(scenarios, HISTORY);
+        }
+
+        // 🌍 配置了多个环境时，每个场景对每个环境各执行一次
+        if(Environment.isConfigured()){
+            return perEnvironment(scenarios, Environment.configured());
+        }
+        return scenarios;
+    }
+
+    /**
+     * 🎬 执行一个场景 - 带环境的场景在该环境中执行，场景中创建的ApiClient都访问该环境
+     * 每个场景提交一个JFR场景事件（FlightRecorder），录制中的失败或慢场景触发转储
+     */
+    @Override
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios", dataProvider = "scenarios")
+    public void runScenario(PickleWrapper pickleWrapper, FeatureWrapper featureWrapper){
+        if(pickleWrapper instanceof EnvironmentPickle){
+            EnvironmentPickle pickle = (EnvironmentPickle) pickleWrapper;
+            Environment.runIn(pickle.environment(), () -> FlightRecorder.runScenario(pickle.getPickle(),
+                    () -> super.runScenario(pickle.delegate(), featureWrapper)));
+        }else{
+            FlightRecorder.runScenario(pickleWrapper.getPickle(), () -> super.runScenario(pickleWrapper, featureWrapper));
+        }
+    }
+
+    /**
+     * 🌍 为每个环境复制一份场景 - 同一场景在各环境的执行相邻，各环境几乎同时访问相同的端点
+     */
+    private static Object[][] perEnvironment(Object[][] scenarios, List<Environment> environments){
+        Object[][] rows = new Object[scenarios.length * environments.size()][];
+        int row = 0;
+        for(Object[] scenario : scenarios){
+            for(Environment environment : environments){
+                rows[row++] = new Object[]{new EnvironmentPickle((PickleWrapper) scenario[0], environment), scenario[1]};
+            }
+        }
+        System.out.println("Running " + scenarios.length + " scenarios against " + environments.size()
+                + " environments: " + environments);
+        return rows;
+    }
+
+    /**
+     * 📜 读取历史耗时 - scenario.history中逗号分隔的Cucumber JSON报告
+     */
+    static ScenarioDurations loadHistory(){
+        List<File> reports = new ArrayList<>();
+        for(String path : TestConfig.SCENARIO_HISTORY.split(",")){
+            if(!path.trim().isEmpty()){
+                reports.add(new File(path.trim()));
+            }
+        }
+        return ScenarioDurations.load(reports);
+    }
+
+    /**
+     * 🔀 按估算耗时从长到短排序（稳定排序，耗时相同的场景保持原来的顺序）
+     * TestNG按数据顺序把场景交给空闲的线程，长场景先开始就等于"最长处理时间优先"调度
+     */
+    private static Object[][] longestFirst(Object[][] scenarios, ScenarioDurations history){
+        if(history.isEmpty()){
+            return scenarios;
+        }
+        Object[][] ordered = scenarios.clone();
+        Arrays.sort(ordered, Comparator.comparingLong(
+                (Object[] row) -> history.estimateNanos(((PickleWrapper) row[0]).getPickle())).reversed());
+
+        long known = Arrays.stream(ordered).filter(row -> history.isKnown(((PickleWrapper) row[0]).getPickle())).count();
+        long longest = ordered.length == 0 ? 0 : history.estimateNanos(((PickleWrapper) ordered[0][0]).getPickle());
+        System.out.println(String.format("Scheduled %d scenarios longest first (%d from history, %d estimated), longest %.1fs",
+                ordered.length, known, ordered.length - known, longest / 1e9));
+        return ordered;
+    }
+
+    /**
+     * 🧩 按估算耗时均衡分片 - 最长处理时间优先（LPT）：从最长的场景开始，每个场景分给当前总耗时最少的分片
+     * 划分只依赖场景列表和历史报告，各分片独立计算得到相同的结果；没有历史数据时按场景个数轮流分配
+     *
+     * @return 分给index号分片的场景，保持原来的顺序
+     */
+    private static Object[][] shard(Object[][] scenarios, ScenarioDurations history, int index, int count){
+        if(index < 0 || index >= count){
+            throw new IllegalArgumentException("shard.index must be between 0 and " + (count - 1) + ", got " + index);
+        }
+
+        long[] weights = new long[scenarios.length];
+        String[] keys = new String[scenarios.length];
+        for(int i = 0; i < scenarios.length; i++){
+            Pickle pickle = ((PickleWrapper) scenarios[i][0]).getPickle();
+            weights[i] = Math.max(1, history.estimateNanos(pickle));
+            keys[i] = ScenarioDurations.normalize(pickle.getUri().toString()) + ":" + pickle.getLine();
+        }
+        int[] assigned = assignShards(weights, keys, count);
+
+        long[] loads = new long[count];
+        List<Object[]> mine = new ArrayList<>();
+        for(int i = 0; i < scenarios.length; i++){
+            loads[assigned[i]] += weights[i];
+            if(assigned[i] == index){
+                mine.add(scenarios[i]);
+            }
+        }
+        StringBuilder estimates = new StringBuilder();
+        for(long load : loads){
+            estimates.append(estimates.length() == 0 ? "" : " / ")
+                    .append(history.isEmpty() ? load + " scenarios" : String.format("%.1fs", load / 1e9));
+        }
+        System.out.println(String.format("Shard %d/%d: running %d of %d scenarios (shards: %s)",
+                index + 1, count, mine.size(), scenarios.length, estimates));
+        return mine.toArray(new Object[0][]);
+    }
+
+    /**
+     * ⚖️ LPT分配 - 按耗时从长到短，每个场景分给当前总耗时最少的分片（总耗时相同时取序号小的）
+     *
+     * @param weights 每个场景的估算耗时
+     * @param keys 每个场景的 Feature文件:行号，耗时相同时按它排序，保证每个分片算出的顺序完全一致
+     * @return 每个场景所在的分片序号
+     */
+    static int[] assignShards(long[] weights, String[] keys, int count){
+        Integer[] byWeight = new Integer[weights.length];
+        for(int i = 0; i < weights.length; i++){
+            byWeight[i] = i;
+        }
+        Arrays.sort(byWeight, Comparator.comparingLong((Integer i) -> weights[i]).reversed()
+                .thenComparing(i -> keys[i]));
+
+        long[] loads = new long[count];
+        int[] assigned = new int[weights.length];
+        for(int i : byWeight){
+            int lightest = 0;
+            for(int shard = 1; shard < count; shard++){
+                if(loads[shard] < loads[lightest]){
+                    lightest = shard;
+                }
+            }
+            loads[lightest] += weights[i];
+            assigned[i] = lightest;
+        }
+        return assigned;
+    }
+
+    /**
+     * 🧪 启动内置替身服务器 - 仅在 -Dstub.server=true 时启动，场景和会话池都访问它
+     */
+    @BeforeSuite(alwaysRun = true)
+    public void startStubServer() throws IOException{
+        StubServer.startIfEnabled();
+    }
+
+    /**
+     * 🛑 停止内置替身服务器并输出服务端统计
+     */
+    @AfterSuite(alwaysRun = true)
+    public void stopStubServer(){
+        StubServer.stopShared();
+    }
+
+    /**
+     * ✈️ 开始JFR录制 - 仅在 -Djfr.record=true 时；在第一个场景之前启动，不把启动开销算进场景耗时
+     */
+    @BeforeSuite(alwaysRun = true)
+    public void startFlightRecorder(){
+        FlightRecorder.shared();
+    }
+
+    /**
+     * ✈️ 停止JFR录制 - 等待排队的转储写完
+     */
+    @AfterSuite(alwaysRun = true)
+    public void stopFlightRecorder(){
+        FlightRecorder.closeShared();
+    }
+
+    /**
+     * 📼 关闭流量日志 - 设置了traffic.record.file时写完缓冲区并输出录制的请求数
+     */
+    @AfterSuite(alwaysRun = true)
+    public void closeTrafficLog(){
+        TrafficRecorder.closeShared();
+    }
+
+    /**
+     * 🧵 配置并行度 - 数据提供者的线程数设置为TestConfig.SCENARIO_THREADS（默认CPU核数）
+     * 可通过 -Dscenario.threads=N 覆盖
+     */
+    @BeforeClass(alwaysRun = true)
+    public void configureParallelism(ITestContext context){
+        context.getSuite().getXmlSuite().setDataProviderThreadCount(TestConfig.SCENARIO_THREADS);
+    }
+
+    /**
+     * 🎟️ 预热会话池 - 启用会话池时（-Dsession.pool.size=N），在场景开始前批量注册并登录用户
+     */
+    @BeforeClass(alwaysRun = true)
+    public void seedSessionPool(){
+        if(SessionPool.enabled() && !"load".equalsIgnoreCase(TestConfig.RUN_MODE)){
+            SessionPool.shared();
+        }
+    }
+
+    /**
+     * 📊 输出传输层统计 - 所有场景执行完后报告连接复用率（jdk传输层报告HTTP版本分布）
+     * 复用率越高，花在TCP建连上的时间越少；启用HTTP缓存时同时输出缓存命中率
+     */
+    @AfterClass(alwaysRun = true)
+    public void reportConnectionPool(){
+        StepLog.flush(); // 先写完场景日志，汇总信息不会和场景日志交错
+        if(Environment.isConfigured()){
+            for(Environment environment : Environment.configured()){
+                System.out.println("[" + environment.name() + "] " + environment.transport().summary());
+                if(environment.cache() != null){
+                    System.out.println("[" + environment.name() + "] " + environment.cache().summary());
+                }
+            }
+            return;
+        }
+        System.out.println(Environment.defaultEnvironment().transport().summary());
+        if(Environment.defaultEnvironment().cache() != null){
+            System.out.println(Environment.defaultEnvironment().cache().summary());
+        }
+    }
+
+    /**
+     * ⏱️ 输出接口延迟报告 - 各端点的p50/p90/p99/p99.9/max写到latency.json
+     * 配置了多个环境时按环境分别输出，并打印各环境的对比表
+     */
+    @AfterClass(alwaysRun = true)
+    public void reportLatency() throws IOException{
+        // 🌍 每个环境一个目录（latency.json + scenarios.json），再加一份各环境的延迟对比
+        if(Environment.isConfigured()){
+            File directory = new File(TestConfig.REPORT_DIR, "environments");
+            for(Environment environment : Environment.configured()){
+                environment.writeReports(new File(directory, environment.name()));
+            }
+            System.out.println(Environment.compare(Environment.configured(), new File(directory, "comparison.json")));
+            System.out.println("Environment reports written to " + directory.getPath());
+            return;
+        }
+
+        // 🧩 分片共用报告目录时各自写一份，互不覆盖
+        String name = TestConfig.Shard.COUNT > 1 ? "latency-shard-" + TestConfig.Shard.INDEX + ".json" : "latency.json";
+        File report = new File(TestConfig.REPORT_DIR, name);
+        LatencyRecorder.shared().writeReport(report);
+        System.out.println("Latency report written to " + report.getPath());
     }
 
 
@@ -0,0 +1,105 @@
+package com.ecommerce.runners;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🧩 分片分配单元测试 - LPT分配的均衡程度，以及各分片独立计算得到相同的结果
+ */
+public class TestRunnerShardTest {
+
+    /**
+     * ⚖️ 一个长场景单独占一个分片，短场景都分到另一个分片
+     */
+    @Test
+    public void isolatesLongScenario(){
+        long[] weights = {1, 1, 1, 1, 1, 10, 1, 1, 1, 1, 1};
+
+        int[] assigned = TestRunner.assignShards(weights, keys(weights.length), 2);
+
+        assertEquals(loads(weights, assigned, 2), new long[]{10, 10});
+        for(int i = 0; i < weights.length; i++){
+            assertEquals(assigned[i], i == 5 ? 0 : 1, "scenario " + i);
+        }
+    }
+
+    /**
+     * 📐 LPT的最大分片耗时不超过最优值的 4/3 - 1/(3m) 倍；这组数据的最优划分是 {8,7} {6,5,4}
+     */
+    @Test
+    public void staysWithinLptBound(){
+        long[] weights = {4, 5, 6, 7, 8};
+
+        long[] loads = loads(weights, TestRunner.assignShards(weights, keys(weights.length), 2), 2);
+
+        long makespan = Arrays.stream(loads).max().getAsLong();
+        assertEquals(Arrays.stream(loads).sum(), 30);
+        assertTrue(makespan <= 15 * (4.0 / 3 - 1.0 / 6), "makespan " + makespan);
+    }
+
+    /**
+     * 🔢 没有历史数据时每个场景权重相同，按个数平均分配
+     */
+    @Test
+    public void spreadsEqualWeightsEvenly(){
+        long[] weights = new long[10];
+        Arrays.fill(weights, 1);
+
+        long[] loads = loads(weights, TestRunner.assignShards(weights, keys(weights.length), 3), 3);
+
+        assertEquals(loads, new long[]{4, 3, 3});
+    }
+
+    /**
+     * 🔀 耗时相同时按 Feature文件:行号 决定顺序，场景列表顺序不同也得到同样的分配
+     */
+    @Test
+    public void assignsIndependentlyOfInputOrder(){
+        long[] weights = {3, 3, 3, 2, 2, 1};
+        String[] keys = {"a.feature:10", "a.feature:20", "b.feature:5", "b.feature:9", "c.feature:3", "c.feature:7"};
+        int[] reverseOrder = {5, 4, 3, 2, 1, 0};
+        long[] reversedWeights = new long[weights.length];
+        String[] reversedKeys = new String[keys.length];
+        for(int i = 0; i < reverseOrder.length; i++){
+            reversedWeights[i] = weights[reverseOrder[i]];
+            reversedKeys[i] = keys[reverseOrder[i]];
+        }
+
+        int[] assigned = TestRunner.assignShards(weights, keys, 3);
+        int[] reversed = TestRunner.assignShards(reversedWeights, reversedKeys, 3);
+
+        for(int i = 0; i < reverseOrder.length; i++){
+            assertEquals(reversed[i], assigned[reverseOrder[i]], keys[reverseOrder[i]]);
+        }
+    }
+
+    /**
+     * 🪣 分片比场景多时，多出来的分片为空
+     */
+    @Test
+    public void leavesExtraShardsEmpty(){
+        long[] weights = {5, 2};
+
+        assertEquals(loads(weights, TestRunner.assignShards(weights, keys(weights.length), 4), 4), new long[]{5, 2, 0, 0});
+    }
+
+    private static String[] keys(int count){
+        String[] keys = new String[count];
+        for(int i = 0; i < count; i++){
+            keys[i] = String.format("src/test/resources/features/cart.feature:%03d", i);
+        }
+        return keys;
+    }
+
+    private static long[] loads(long[] weights, int[] assigned, int count){
+        long[] loads = new long[count];
+        for(int i = 0; i < weights.length; i++){
+            loads[assigned[i]] += weights[i];
+        }
+        return loads;
+    }
+}
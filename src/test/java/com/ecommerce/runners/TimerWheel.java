@@ -0,0 +1,138 @@
+package com.ecommerce.runners;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * ⏲️ 时间轮 - 开放模型压测用来在预定时刻启动场景的定时器
+ * 职责：每秒成百上千次的定时触发，不为每个到达时刻创建一个ScheduledFuture，也不用优先队列排序
+ *
+ * 🎯 设计要点（哈希时间轮）：
+ *   - 一个线程按固定刻度前进，每个刻度处理一个桶；定时任务按到期刻度放进对应的桶，超过一圈的记下剩余圈数
+ *   - 任意线程调用schedule()只是放进无锁队列，由时间轮线程在下一个刻度转入桶中，桶本身不需要加锁
+ *   - 触发精度是一个刻度；时间轮线程被拖慢时会连续处理积压的刻度，任务晚触发但不会丢失
+ *   - 任务在时间轮线程上执行，必须很快返回（例如只是把场景交给执行器）
+ */
+final class TimerWheel implements AutoCloseable {
+
+    private final long tickNanos;
+    private final int mask;
+    private final ArrayDeque<Timeout>[] buckets;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+
+    /** 已经处理完的刻度数，只在时间轮线程中访问 */
+    private long tick;
+
+    /**
+     * 🏗️ 创建并启动时间轮
+     *
+     * @param name 线程名称
+     * @param tickNanos 刻度（触发精度）
+     * @param bucketCount 桶数，向上取整为2的幂；刻度 × 桶数 为一圈的时长
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(String name, long tickNanos, int bucketCount){
+        if(tickNanos <= 0 || bucketCount <= 0){
+            throw new IllegalArgumentException("tick and bucket count must be positive: " + tickNanos + ", " + bucketCount);
+        }
+        int size = Integer.highestOneBit(bucketCount - 1) << 1;
+        this.tickNanos = tickNanos;
+        this.mask = Math.max(1, size) - 1;
+        this.buckets = new ArrayDeque[mask + 1];
+        for(int i = 0; i < buckets.length; i++){
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * ⏰ 在指定时刻执行任务 - 已经过去的时刻在下一个刻度执行
+     *
+     * @param deadlineNanos System.nanoTime()时刻
+     * @param task 参数为实际触发时的System.nanoTime()
+     */
+    void schedule(long deadlineNanos, LongConsumer task){
+        if(!running){
+            throw new IllegalStateException("Timer wheel is closed");
+        }
+        pending.incrementAndGet();
+        incoming.add(new Timeout(deadlineNanos, task));
+    }
+
+    /** ⏳ 已安排但还没有触发的任务数 */
+    long pending(){
+        return pending.get();
+    }
+
+    /** 🛑 停止时间轮，尚未触发的任务被丢弃 */
+    @Override
+    public void close() throws InterruptedException{
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run(){
+        while(running){
+            long tickEnd = startNanos + (tick + 1) * tickNanos;
+            for(long wait = tickEnd - System.nanoTime(); wait > 0 && running; wait = tickEnd - System.nanoTime()){
+                LockSupport.parkNanos(wait);
+            }
+            transferIncoming();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /** 📥 新任务按到期刻度放进桶中 */
+    private void transferIncoming(){
+        for(Timeout timeout = incoming.poll(); timeout != null; timeout = incoming.poll()){
+            long due = Math.max(tick, (timeout.deadlineNanos - startNanos) / tickNanos);
+            timeout.rounds = (due - tick) / buckets.length;
+            buckets[(int) (due & mask)].add(timeout);
+        }
+    }
+
+    /** 🔔 触发当前桶中这一圈到期的任务 */
+    private void expire(ArrayDeque<Timeout> bucket){
+        long now = System.nanoTime();
+        for(Iterator<Timeout> it = bucket.iterator(); it.hasNext(); ){
+            Timeout timeout = it.next();
+            if(timeout.rounds > 0){
+                timeout.rounds--;
+                continue;
+            }
+            it.remove();
+            pending.decrementAndGet();
+            try{
+                timeout.task.accept(now);
+            }catch(RuntimeException e){
+                System.err.println("Timer task failed: " + e);
+            }
+        }
+    }
+
+    private static final class Timeout {
+        final long deadlineNanos;
+        final LongConsumer task;
+        long rounds;
+
+        Timeout(long deadlineNanos, LongConsumer task){
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+    }
+}
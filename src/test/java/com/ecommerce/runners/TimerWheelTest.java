@@ -0,0 +1,91 @@
+package com.ecommerce.runners;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * ⏲️ TimerWheel单元测试 - 超过一圈的任务按剩余圈数等待，不会在前几圈经过同一个桶时提前触发
+ */
+public class TimerWheelTest {
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final int BUCKETS = 4; // 一圈8毫秒
+
+    /**
+     * 🔄 相隔正好一圈的三个任务落在同一个桶，按圈数依次触发，而且都不早于预定时刻
+     */
+    @Test
+    public void waitsRemainingRoundsForDeadlinesBeyondOneRevolution() throws InterruptedException{
+        long revolution = TICK * BUCKETS;
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        List<Long> deadlines = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+
+        try(TimerWheel wheel = new TimerWheel("timer-wheel-test", TICK, BUCKETS)){
+            long start = System.nanoTime();
+            for(int round = 3; round >= 1; round--){
+                long deadline = start + TICK + round * revolution;
+                deadlines.add(0, deadline);
+                wheel.schedule(deadline, now -> {
+                    fired.add(now);
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(wheel.pending(), 0);
+        }
+
+        for(int i = 0; i < 3; i++){
+            assertTrue(fired.get(i) >= deadlines.get(i), "timer " + i + " fired before its deadline");
+        }
+        assertTrue(fired.get(0) < fired.get(1) && fired.get(1) < fired.get(2), "timers fired out of order: " + fired);
+    }
+
+    /**
+     * ⏪ 已经过去的时刻在下一个刻度触发
+     */
+    @Test
+    public void firesPastDeadlinesOnNextTick() throws InterruptedException{
+        CountDownLatch done = new CountDownLatch(1);
+        try(TimerWheel wheel = new TimerWheel("timer-wheel-test", TICK, BUCKETS)){
+            wheel.schedule(System.nanoTime() - TimeUnit.SECONDS.toNanos(1), now -> done.countDown());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * 🧯 一个任务抛出异常不影响同一个桶里的其他任务
+     */
+    @Test
+    public void keepsRunningAfterFailingTask() throws InterruptedException{
+        CountDownLatch done = new CountDownLatch(1);
+        try(TimerWheel wheel = new TimerWheel("timer-wheel-test", TICK, BUCKETS)){
+            long deadline = System.nanoTime() + TICK;
+            wheel.schedule(deadline, now -> {
+                throw new IllegalStateException("expected by test");
+            });
+            wheel.schedule(deadline, now -> done.countDown());
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void rejectsScheduleAfterClose() throws InterruptedException{
+        TimerWheel wheel = new TimerWheel("timer-wheel-test", TICK, BUCKETS);
+        wheel.close();
+        wheel.schedule(System.nanoTime(), now -> { });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsNonPositiveTick(){
+        new TimerWheel("timer-wheel-test", 0, BUCKETS);
+    }
+}
@@ -0,0 +1,264 @@
+package com.ecommerce.runners;
+
+import com.ecommerce.stub.StubServer;
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.TestConfig;
+import com.ecommerce.utils.TrafficLog;
+import com.ecommerce.utils.TrafficRecorder;
+import io.restassured.response.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * ⏩ 流量回放引擎 - 把TrafficRecorder录下的功能测试流量重新发送，当作压测负载
+ * 职责：不用手写压测脚本，auth.feature、cart.feature中的用户旅程直接变成真实的负载
+ *
+ * 🏭 工作方式：
+ *   - 日志以内存映射方式读取（TrafficLog），按开始时间排序后依次发送
+ *   - 速度为倍数时按录制的时间间隔除以倍数等待；max时不等待，只受最大在途请求数限制
+ *   - 会话：录制时的会话编号映射到回放时登录得到的新会话，同一会话的请求按原来的顺序依次发送
+ *   - 邮箱：每一遍回放给表单中的邮箱加上唯一前缀，注册和登录的是新用户，可以重复回放
+ *   - 同一会话或同一邮箱的请求串行，其余请求并发
+ *
+ * 📊 结果：状态码与录制时不同的请求数、响应体与录制时相同的请求数（页面中包含邮箱等动态内容时不同是正常的）、
+ * 网络错误数和吞吐量；延迟报告写入 REPORT_DIR/replay-latency.json
+ *
+ * 🎯 单独运行：
+ *   mvn test -Dstub.server=true -Dtraffic.record.file=target/traffic.bin
+ *   mvn -Preplay-traffic test -Dstub.server=true -Dtraffic.replay.speed=max -Dtraffic.replay.passes=20
+ */
+public class TrafficReplay {
+
+    private final TrafficLog log;
+    private final ApiClient client;
+    private final double speed;
+    private final int concurrency;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder statusMismatches = new LongAdder();
+    private final LongAdder identicalBodies = new LongAdder();
+    private final Map<String, LongAdder> mismatchesByRequest = new ConcurrentHashMap<>();
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param log 录制的流量
+     * @param client 发送请求的客户端（决定被测系统地址和传输层）
+     * @param speed 相对录制节奏的倍数，0表示尽快发送
+     * @param concurrency 同时在途的最大请求数
+     */
+    public TrafficReplay(TrafficLog log, ApiClient client, double speed, int concurrency){
+        if(speed < 0 || concurrency < 1){
+            throw new IllegalArgumentException("speed must be >= 0 and concurrency >= 1: " + speed + ", " + concurrency);
+        }
+        this.log = log;
+        this.client = client.withoutCache(); // 回放测量的是被测系统本身
+        this.speed = speed;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * ⏩ 单独运行回放
+     *
+     * @param args 可选：日志文件路径，默认取traffic.replay.file
+     */
+    public static void main(String[] args) throws IOException, InterruptedException{
+        File file = new File(args.length > 0 ? args[0] : TestConfig.Traffic.REPLAY_FILE);
+        TrafficLog log = TrafficLog.open(file);
+        System.out.println(String.format("=== TRAFFIC REPLAY === %s -> %s, speed=%s, passes=%d, concurrency=%d",
+                log, TestConfig.BASE_URL, TestConfig.Traffic.REPLAY_SPEED, TestConfig.Traffic.REPLAY_PASSES,
+                TestConfig.Traffic.REPLAY_CONCURRENCY));
+
+        StubServer.startIfEnabled();
+        try{
+            TrafficReplay replay = new TrafficReplay(log, new ApiClient(),
+                    parseSpeed(TestConfig.Traffic.REPLAY_SPEED), TestConfig.Traffic.REPLAY_CONCURRENCY);
+            for(int pass = 1; pass <= TestConfig.Traffic.REPLAY_PASSES; pass++){
+                System.out.println(replay.replay(pass));
+            }
+            System.out.println(replay.summary());
+
+            File report = new File(TestConfig.REPORT_DIR, "replay-latency.json");
+            LatencyRecorder.shared().writeReport(report);
+            System.out.println("Latency report written to " + report.getPath());
+        }finally{
+            StubServer.stopShared();
+        }
+    }
+
+    /**
+     * 🔢 解析速度 - max表示尽快发送（返回0），否则是大于0的倍数
+     */
+    static double parseSpeed(String speed){
+        if("max".equalsIgnoreCase(speed.trim())){
+            return 0;
+        }
+        double multiplier = Double.parseDouble(speed.trim().replaceFirst("[xX]$", ""));
+        if(multiplier <= 0){
+            throw new IllegalArgumentException("traffic.replay.speed must be positive or max: " + speed);
+        }
+        return multiplier;
+    }
+
+    /**
+     * ⏩ 回放一遍 - 返回时这一遍的所有请求都已完成
+     *
+     * @param pass 第几遍，用于生成唯一的邮箱前缀
+     * @return 这一遍的统计
+     */
+    public String replay(int pass) throws InterruptedException{
+        int[] index = log.index();
+        if(index.length == 0){
+            return "Pass " + pass + ": nothing to replay";
+        }
+        String emailPrefix = "r" + Long.toString(System.currentTimeMillis(), 36) + "p" + pass + ".";
+        Map<Integer, String> sessions = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<Void>> tails = new HashMap<>(); // 只在当前线程中访问
+        Semaphore permits = new Semaphore(concurrency);
+        long sentBefore = sent.sum();
+        long mismatchesBefore = statusMismatches.sum();
+        long errorsBefore = errors.sum();
+
+        long firstStart = log.startNanos(index[0]);
+        long begin = System.nanoTime();
+        for(int i : index){
+            if(speed > 0){
+                long due = begin + (long) ((log.startNanos(i) - firstStart) / speed);
+                for(long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()){
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            permits.acquire();
+
+            TrafficLog.Entry entry = log.entry(i);
+            List<String> keys = orderingKeys(entry, emailPrefix);
+            CompletableFuture<Void> previous = after(keys, tails);
+            CompletableFuture<Void> done = previous
+                    .thenCompose(ignored -> send(entry, sessions, emailPrefix))
+                    .handle((response, error) -> {
+                        try{
+                            check(entry, response, error, sessions);
+                        }finally{
+                            permits.release();
+                        }
+                        return null;
+                    });
+            for(String key : keys){
+                tails.put(key, done);
+            }
+        }
+        permits.acquire(concurrency); // 等待在途请求全部完成
+        long elapsed = System.nanoTime() - begin;
+
+        long count = sent.sum() - sentBefore;
+        return String.format("Pass %d: %d requests in %d ms (%.0f req/s), %d status mismatches, %d errors",
+                pass, count, TimeUnit.NANOSECONDS.toMillis(elapsed), count * 1e9 / Math.max(1, elapsed),
+                statusMismatches.sum() - mismatchesBefore, errors.sum() - errorsBefore);
+    }
+
+    /**
+     * 📊 所有回放遍的汇总，包括状态码不一致最多的请求
+     */
+    public String summary(){
+        StringBuilder summary = new StringBuilder(String.format(
+                "Replayed %d requests: %d status mismatches, %d errors, %d bodies identical to the recording",
+                sent.sum(), statusMismatches.sum(), errors.sum(), identicalBodies.sum()));
+        mismatchesByRequest.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(5)
+                .forEach(mismatch -> summary.append(System.lineSeparator()).append("  ")
+                        .append(mismatch.getKey()).append(": ").append(mismatch.getValue().sum()));
+        return summary.toString();
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 🔗 排序键 - 使用或建立同一会话、使用同一邮箱的请求必须按录制顺序依次发送
+     */
+    private static List<String> orderingKeys(TrafficLog.Entry entry, String emailPrefix){
+        List<String> keys = new ArrayList<>(3);
+        if(entry.sessionRef > 0){
+            keys.add("session:" + entry.sessionRef);
+        }
+        if(entry.setsSessionRef > 0 && entry.setsSessionRef != entry.sessionRef){
+            keys.add("session:" + entry.setsSessionRef);
+        }
+        String email = entry.formParams.get("email");
+        if(email != null){
+            keys.add("email:" + emailPrefix + email);
+        }
+        return keys;
+    }
+
+    /** ⛓️ 这些键上一个请求完成（无论成功与否）后才能发送 */
+    private static CompletableFuture<Void> after(List<String> keys, Map<String, CompletableFuture<Void>> tails){
+        List<CompletableFuture<Void>> previous = new ArrayList<>(keys.size());
+        for(String key : keys){
+            CompletableFuture<Void> tail = tails.get(key);
+            if(tail != null && !tail.isDone()){
+                previous.add(tail);
+            }
+        }
+        if(previous.isEmpty()){
+            return CompletableFuture.completedFuture(null);
+        }
+        return previous.size() == 1 ? previous.get(0)
+                : CompletableFuture.allOf(previous.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Response> send(TrafficLog.Entry entry, Map<Integer, String> sessions, String emailPrefix){
+        ApiClient session = client.withSession(entry.sessionRef > 0 ? sessions.get(entry.sessionRef) : null);
+        if(entry.method == TrafficRecorder.POST){
+            Map<String, String> form = new LinkedHashMap<>(entry.formParams);
+            form.computeIfPresent("email", (name, email) -> emailPrefix + email);
+            return session.postAsync(entry.endpoint, form);
+        }
+        return session.getAsync(entry.endpoint);
+    }
+
+    /**
+     * ✅ 记录新会话，和录制时的响应比较
+     */
+    private void check(TrafficLog.Entry entry, Response response, Throwable error, Map<Integer, String> sessions){
+        sent.increment();
+        if(error != null){
+            errors.increment();
+            return;
+        }
+        if(entry.setsSessionRef > 0){
+            String session = client.extractSessionCookie(response);
+            if(session != null && !session.isEmpty()){
+                sessions.put(entry.setsSessionRef, session);
+            }
+        }
+        if(response.getStatusCode() != entry.status){
+            statusMismatches.increment();
+            mismatchesByRequest.computeIfAbsent(entry + " (got " + response.getStatusCode() + ")",
+                    request -> new LongAdder()).increment();
+        }
+        byte[] body = response.asByteArray();
+        if(body.length == entry.bodyLength){
+            CRC32C crc = new CRC32C();
+            crc.update(body, 0, body.length);
+            if((int) crc.getValue() == entry.bodyCrc){
+                identicalBodies.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.ecommerce.stepdefinitions;
+
+import com.ecommerce.testdata.SeedingPipeline;
+import com.ecommerce.testdata.SessionLease;
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.RequestExecutors;
+import com.ecommerce.utils.StepLog;
+import com.ecommerce.utils.TestConfig;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import io.restassured.response.Response;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.testng.Assert;
+import org.testng.SkipException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 🏁 购物车并发步骤定义类 - 多个线程同时修改同一个或不同会话的购物车
+ * 职责：检查并发加购和移除后CART n是否等于预期（丢失更新、整车覆盖等问题会导致数量不符），
+ * 并报告随着每个会话上的线程数增加，吞吐量和尾延迟如何变化
+ *
+ * 🧵 线程t使用第 t % 会话数 个会话，所有线程在同一时刻开始，尽量制造真实的竞争
+ * ⏱️ 延迟按操作（add、remove）分别统计每个请求，另外输出每轮（一个线程的一组请求）的总耗时
+ *
+ * 🧪 只在内置替身服务器上运行（-Dstub.server=true），对真实站点需要显式加上 -Dcontention.remote=true
+ */
+public class CartContentionSteps {
+
+    private final ApiClient apiClient = new ApiClient();
+    private List<SessionLease> sessions = new ArrayList<>();
+    private int[] expectedCounts; // 每个会话预期的CART n
+
+    /**
+     * 🧪 没有启动替身服务器时跳过 - 不对共享环境注册用户、发起几十个线程的并发写入
+     */
+    @Before(value = "@contention", order = 2)
+    public void require_stub_server(){
+        if(!TestConfig.Stub.ENABLED && !TestConfig.Stub.CONTENTION_REMOTE){
+            throw new SkipException("@contention scenarios run only against the stub server (-Dstub.server=true),"
+                    + " use -Dcontention.remote=true to run them against " + TestConfig.BASE_URL);
+        }
+    }
+
+    /**
+     * 👥 准备各自登录的用户 - 用造数流水线并发注册和登录
+     * 对应Gherkin: Given 8 users with their own logged-in sessions
+     */
+    @Given("{int} users with their own logged-in sessions")
+    public void users_with_their_own_logged_in_sessions(int count){
+        sessions = new SeedingPipeline(apiClient, Math.min(count, TestConfig.Seed.CONCURRENCY)).run(count);
+        Assert.assertEquals(sessions.size(), count, "Every user should be registered and logged in");
+        expectedCounts = new int[count];
+    }
+
+    /**
+     * ➕ 并发加购 - 每个线程每轮把商品A加入购物车一次，同时加入再移除商品B（和其它线程的加购互相竞争）
+     * 并发阶段结束后每个会话再移除一次商品B，CART n只统计商品A
+     * 对应Gherkin: When 8 threads each add product "1" 20 times while removing product "2", spread over the sessions
+     */
+    @When("{int} threads each add product {string} {int} times while removing product {string}, spread over the sessions")
+    public void threads_each_add_product_while_removing(int threads, String added, int times, String removed){
+        run("mutate", threads, times, (client, thread, timer) -> {
+            expectRedirect(timer.time("add", () -> client.get("/addToCart?productId=" + added)), "add " + added);
+            expectRedirect(timer.time("add", () -> client.get("/addToCart?productId=" + removed)), "add " + removed);
+            expectRedirect(timer.time("remove", () -> client.get("/removeFromCart?productId=" + removed)),
+                    "remove " + removed);
+        });
+        for(int thread = 0; thread < threads; thread++){
+            expectedCounts[thread % sessions.size()] += times;
+        }
+        for(SessionLease session : sessions){
+            expectRedirect(apiClient.withSession(session.getSessionId()).get("/removeFromCart?productId=" + removed),
+                    "remove " + removed);
+        }
+    }
+
+    /**
+     * ➖ 并发移除 - 每个线程都对所有会话移除该商品，同一行被多个线程同时移除
+     * 对应Gherkin: When 8 threads remove product "1" from every cart at once
+     */
+    @When("{int} threads remove product {string} from every cart at once")
+    public void threads_remove_product_from_every_cart(int threads, String productId){
+        int sessionCount = sessions.size();
+        run("remove", threads, 1, (client, thread, timer) -> {
+            for(int offset = 0; offset < sessionCount; offset++){
+                // 从各自的会话开始轮流，所有线程不会按同一顺序访问
+                ApiClient session = client.withSession(sessions.get((thread + offset) % sessionCount).getSessionId());
+                expectRedirect(timer.time("remove", () -> session.get("/removeFromCart?productId=" + productId)),
+                        "remove " + productId);
+            }
+        });
+        expectedCounts = new int[sessionCount];
+    }
+
+    /**
+     * ✅ 每个购物车的CART n等于加入的件数
+     * 对应Gherkin: Then each cart should contain every product that was added
+     */
+    @Then("each cart should contain every product that was added")
+    public void each_cart_should_contain_every_product_that_was_added(){
+        verifyCounts();
+    }
+
+    /**
+     * ✅ 所有购物车都是空的
+     * 对应Gherkin: Then every cart should be empty
+     */
+    @Then("every cart should be empty")
+    public void every_cart_should_be_empty(){
+        verifyCounts();
+    }
+
+    // ==================== 辅助方法区域 ====================
+
+    /** 🧵 一个线程的一轮操作 - 每个请求通过timer发送，按操作记录耗时 */
+    private interface Round {
+        void run(ApiClient client, int thread, OperationTimer timer);
+    }
+
+    /**
+     * ⏱️ 按操作统计单个请求的耗时
+     */
+    private static final class OperationTimer {
+        private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+        Response time(String operation, Supplier<Response> request){
+            long start = System.nanoTime();
+            try{
+                return request.get();
+            }finally{
+                histograms.computeIfAbsent(operation, name -> new ConcurrentHistogram(3))
+                        .recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+            }
+        }
+    }
+
+    /**
+     * 🚀 所有线程同时开始，各执行rounds轮；输出每种操作的请求延迟分位数，以及每轮的吞吐量和总耗时
+     */
+    private void run(String phase, int threads, int rounds, Round round){
+        Histogram histogram = new ConcurrentHistogram(3); // 每轮的总耗时
+        OperationTimer timer = new OperationTimer();
+        CountDownLatch startGate = new CountDownLatch(1);
+        AtomicInteger completedRounds = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService workers = RequestExecutors.newExecutor("cart-" + phase);
+        long elapsedNanos;
+        try{
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for(int thread = 0; thread < threads; thread++){
+                int index = thread;
+                ApiClient client = apiClient.withSession(sessions.get(index % sessions.size()).getSessionId());
+                futures.add(CompletableFuture.supplyAsync(LatencyRecorder.propagate(() -> {
+                    try{
+                        startGate.await();
+                        for(int i = 0; i < rounds && failure.get() == null; i++){
+                            long start = System.nanoTime();
+                            round.run(client, index, timer);
+                            histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+                            completedRounds.incrementAndGet();
+                        }
+                    }catch(InterruptedException e){
+                        Thread.currentThread().interrupt();
+                    }catch(RuntimeException | AssertionError e){
+                        failure.compareAndSet(null, e);
+                    }
+                    return null;
+                }), workers));
+            }
+            long start = System.nanoTime();
+            startGate.countDown();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            elapsedNanos = System.nanoTime() - start;
+        }finally{
+            workers.shutdownNow();
+        }
+        if(failure.get() != null){
+            throw new AssertionError("Concurrent " + phase + " failed: " + failure.get().getMessage(), failure.get());
+        }
+
+        StepLog.info("Cart contention [{}]: {} threads on {} sessions ({} per session), {} rounds in {} ms, "
+                        + "{} rounds/s, round p50 {} ms, p99 {} ms, max {} ms",
+                phase, threads, sessions.size(), String.format("%.1f", threads / (double) sessions.size()),
+                completedRounds.get(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.0f", completedRounds.get() * 1e9 / Math.max(1, elapsedNanos)),
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+        timer.histograms.forEach((operation, requestHistogram) ->
+                StepLog.info("Cart contention [{}] {}: {} requests, p50 {} ms, p99 {} ms, max {} ms",
+                        phase, operation, requestHistogram.getTotalCount(),
+                        requestHistogram.getValueAtPercentile(50) / 1000.0,
+                        requestHistogram.getValueAtPercentile(99) / 1000.0, requestHistogram.getMaxValue() / 1000.0));
+    }
+
+    private void verifyCounts(){
+        for(int i = 0; i < sessions.size(); i++){
+            Response cart = apiClient.withSession(sessions.get(i).getSessionId()).get("/cart");
+            Assert.assertEquals(cart.getStatusCode(), 200, "Cart of session " + i + " should be accessible");
+            long count = CartSteps.CART_PAGE.scan(cart).number("CART ");
+            Assert.assertEquals(count, expectedCounts[i], "CART n of session " + i + " after concurrent updates");
+        }
+        StepLog.info("✓ CART n matches the expected count in all {} carts", sessions.size());
+    }
+
+    private static void expectRedirect(Response response, String action){
+        if(response.getStatusCode() != TestConfig.StatusCode.REDIRECT){
+            throw new AssertionError("Cannot " + action + ": status " + response.getStatusCode());
+        }
+    }
+}
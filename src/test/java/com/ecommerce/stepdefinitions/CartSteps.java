@@ -1,136 +1,152 @@
 package com.ecommerce.stepdefinitions;
 
 import com.ecommerce.models.User;
+import com.ecommerce.testdata.SessionLease;
+import com.ecommerce.testdata.SessionPool;
 import com.ecommerce.testdata.TestDataManager;
 import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.BodyMatcher;
+import com.ecommerce.utils.RedirectChain;
+import com.ecommerce.utils.StepLog;
+import io.cucumber.java.After;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import io.restassured.response.Response;
 import org.testng.Assert;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 public class CartSteps {
+    // 购物车相关页面的所有检查点，每个响应只扫描一次（基准测试也使用同一个匹配器）
+    public static final BodyMatcher CART_PAGE = BodyMatcher.builder()
+            .contains("cartIcon").contains("CART").numberAfter("CART ").contains("CART 0")
+            .contains("Proceed to checkout").contains("$0").contains("Register here")
+            .build();
+
     private ApiClient apiClient;
     private String sessionId;
     private Response response;
     private User testUser;
     private String productId;
+    private SessionLease lease;
 
     public CartSteps(){
         this.apiClient = new ApiClient();
-        this.testUser = TestDataManager.getDefaultUser();
+        this.testUser = TestDataManager.newUser();
     }
 
     @Given("a logged-in user")
     public void a_logged_in_user() {
+        // 启用会话池时直接租用已登录的用户，跳过注册和登录
+        if(SessionPool.enabled()){
+            lease = SessionPool.shared().lease();
+            testUser = lease.getUser();
+            sessionId = lease.getSessionId();
+            StepLog.info("✓ Leased logged-in user from session pool");
+            return;
+        }
+
         // 注册用户
         registerUser();
 
         // 登录用户
-        Map<String, String> loginParams = new HashMap<>();
-        loginParams.put("email", testUser.getEmail());
-        loginParams.put("password", testUser.getPassword());
-
-        Response loginResponse = apiClient.post("/login", loginParams);
+        Response loginResponse = apiClient.post("/login", TestDataManager.loginParams(testUser));
         sessionId = apiClient.extractSessionCookie(loginResponse);
         Assert.assertNotNull(sessionId, "Session should be created after login");
-        System.out.println("✓ User logged in successfully");
+        StepLog.info("✓ User logged in successfully");
     }
 
     @Given("a product is available")
     public void a_product_is_available(){
         // 使用固定商品ID，简化测试
         this.productId = "1";
-        System.out.println("✓ Using product ID: " + productId);
+        StepLog.info("✓ Using product ID: {}", productId);
     }
 
     @When("the user adds a product to the cart")
     public void the_user_adds_a_product_to_the_cart() {
-        response = apiClient.withSession(sessionId).get("/addToCart?productId=" + productId);
-        System.out.println("Add to cart response status: " + response.getStatusCode());
-
-        if(response.getStatusCode() == 302){
-            String location = getLocationHeader(response);
-            System.out.println("Redirecting to " + location);
-
-            Response finalResponse = apiClient.withSession(sessionId).get(location);
-            this.response = finalResponse;
-
-            System.out.println("Final page status: " + finalResponse.getStatusCode());
+        if(lease != null){
+            lease.markCartChanged(productId);
         }
+        // 跟随重定向，测得的耗时包含重定向的真实开销
+        RedirectChain chain = inSession(client -> client.getFollowingRedirects("/addToCart?productId=" + productId),
+                RedirectChain::getFirstResponse);
+        StepLog.debug("Add to cart response status: {}", chain.getFirstResponse().getStatusCode());
+        printHops(chain);
+        this.response = chain.getFinalResponse();
     }
 
     @Then("the product should be added successfully")
     public void the_product_should_be_added_successfully(){
-        System.out.println("Validation of Items Added");
+        StepLog.debug("Validation of Items Added");
 
         // 验证响应状态码
         int statusCode = response.getStatusCode();
         Assert.assertEquals(statusCode, 200, "Add to cart should succeed");
 
-        String responseBody = response.getBody().asString();
+        BodyMatcher.Result page = CART_PAGE.scan(response);
 
         // 简单验证：检查购物车存在且有商品（数量>=1）
-        boolean cartValid = responseBody.contains("cartIcon") &&
-                responseBody.contains("CART") &&
-                extractCartCount(responseBody) >= 1;
+        boolean cartValid = page.contains("cartIcon") &&
+                page.contains("CART") &&
+                page.number("CART ") >= 1;
 
         Assert.assertTrue(cartValid, "Cart should show at least 1 item after adding product");
-        System.out.println("✓ Product added to cart successfully");
+        StepLog.info("✓ Product added to cart successfully");
     }
 
     @When("the user views the cart")
     public void the_user_views_the_cart(){
-        response = apiClient.withSession(sessionId).get("/cart");
+        response = inSession(client -> client.get("/cart"), Function.identity());
+    }
+
+    @When("the user views the cart {int} times")
+    public void the_user_views_the_cart_times(int times){
+        // 重复请求为延迟SLO步骤积累样本，最后一次响应用于后续验证
+        for(int i = 0; i < times; i++){
+            response = inSession(client -> client.get("/cart"), Function.identity());
+        }
     }
 
     @Then("the cart should be accessible")
     public void the_cart_should_be_accessible(){
         Assert.assertEquals(response.getStatusCode(),200);
-        String responseBody = response.getBody().asString();
-        Assert.assertTrue(responseBody.contains("Proceed to checkout"));
-        System.out.println("ResponseBody includes Proceed to checkout: " + responseBody.contains("Proceed to checkout"));
-        System.out.println("✓ Cart page accessible");
+        boolean hasCheckout = CART_PAGE.scan(response).contains("Proceed to checkout");
+        Assert.assertTrue(hasCheckout);
+        StepLog.debug("ResponseBody includes Proceed to checkout: {}", hasCheckout);
+        StepLog.info("✓ Cart page accessible");
     }
 
     @When("the user removes a product from the cart")
     public void the_user_removes_a_product_from_the_cart(){
-        response = apiClient.withSession(sessionId).get("/removeFromCart?productId=" + productId);
-        System.out.println("Remove from cart response: " + response.getStatusCode());
-
-        if(response.getStatusCode() == 302){
-            String location = getLocationHeader(response);
-            System.out.println("Redirecting to " + location);
-
-            Response finalResponse = apiClient.withSession(sessionId).get(location);
-            this.response = finalResponse;
-
-            System.out.println("Final page status: " + finalResponse.getStatusCode());
-        }
+        RedirectChain chain = inSession(client -> client.getFollowingRedirects("/removeFromCart?productId=" + productId),
+                RedirectChain::getFirstResponse);
+        StepLog.debug("Remove from cart response: {}", chain.getFirstResponse().getStatusCode());
+        printHops(chain);
+        this.response = chain.getFinalResponse();
     }
 
     @Then("the product should be removed successfully")
     public void the_product_should_be_removed_successfully(){
         Assert.assertEquals(response.getStatusCode(),200);
-        String responseBody = response.getBody().asString();
+        boolean cartEmpty = CART_PAGE.scan(response).contains("CART 0");
 
-        System.out.println("ResponseBody includes CART 0: " + responseBody.contains("CART 0"));
-        Assert.assertTrue(responseBody.contains("CART 0"));
+        StepLog.debug("ResponseBody includes CART 0: {}", cartEmpty);
+        Assert.assertTrue(cartEmpty);
 
-        System.out.println("✓ Product removed successfully");
+        StepLog.info("✓ Product removed successfully");
     }
 
     @Then("the cart should be empty")
     public void the_cart_should_be_empty(){
         Assert.assertEquals(response.getStatusCode(), 200);
-        String ResponseBody = response.getBody().asString();
+        boolean zeroTotal = CART_PAGE.scan(response).contains("$0");
 
-        System.out.println(ResponseBody.contains("$0"));
-        Assert.assertTrue(ResponseBody.contains("$0"));
-        System.out.println("✓ Empty cart verified");
+        StepLog.debug("ResponseBody includes $0: {}", zeroTotal);
+        Assert.assertTrue(zeroTotal);
+        StepLog.info("✓ Empty cart verified");
     }
 
     @When("an unauthorized user views the cart")
@@ -142,62 +158,51 @@ public class CartSteps {
     public void the_user_should_be_redirected_to_login(){
         Assert.assertTrue(response.getStatusCode()==302);
 
-        String location = getLocationHeader(response);
-        System.out.println("Redirecting to: " + location);
-
-        Response redirectResponse = apiClient.withSession(sessionId).get(location);
-        this.response = redirectResponse;
+        RedirectChain chain = apiClient.followRedirects(response);
+        printHops(chain);
+        this.response = chain.getFinalResponse();
 
         Assert.assertTrue(response.getStatusCode()==200);
-        String responseBody = response.getBody().asString();
-        Assert.assertTrue(responseBody.contains("Register here"));
-        System.out.println("✓ Unauthorized access handled correctly");
+        Assert.assertTrue(CART_PAGE.scan(response).contains("Register here"));
+        StepLog.info("✓ Unauthorized access handled correctly");
+    }
+
+    @After
+    public void release_leased_session(){
+        // 归还租用的会话，会话池会清理本场景加入购物车的商品
+        if(lease != null){
+            SessionPool.shared().release(lease);
+            lease = null;
+        }
     }
 
 // ==================== 辅助方法区域 ====================
 
     private void registerUser() {
-        Map<String, String> registerParams = new HashMap<>();
-        registerParams.put("email", testUser.getEmail());
-        registerParams.put("password", testUser.getPassword());
-        registerParams.put("firstName", testUser.getFirstName());
-        registerParams.put("lastName", testUser.getLastName());
-        registerParams.put("address1", testUser.getAddress1());
-        registerParams.put("address2", testUser.getAddress2());
-        registerParams.put("zipcode", testUser.getZipcode());
-        registerParams.put("city", testUser.getCity());
-        registerParams.put("state", testUser.getState());
-        registerParams.put("country", testUser.getCountry());
-        registerParams.put("phone", testUser.getPhone());
+        // 每个场景使用自己的账号（构造时生成的唯一用户），购物车状态不会因为场景的执行顺序互相影响
+        Map<String, String> registerParams = TestDataManager.registrationParams(testUser);
 
         Response registerResponse = apiClient.post("/register", registerParams);
         Assert.assertTrue(registerResponse.getStatusCode() == 200 ||
                 registerResponse.getStatusCode() == 302);
     }
 
-    private String getLocationHeader(Response response) {
-        // 处理header名称大小写不敏感的问题
-        io.restassured.http.Headers headers = response.getHeaders();
-        for (io.restassured.http.Header header : headers) {
-            if ("location".equalsIgnoreCase(header.getName())) {
-                return header.getValue();
-            }
+    /**
+     * 🎟️ 用当前会话发送请求 - 租用的会话被服务端注销时，由会话池重新登录一次后重试
+     */
+    private <T> T inSession(Function<ApiClient, T> request, Function<T, Response> firstResponse){
+        if(lease == null){
+            return request.apply(apiClient.withSession(sessionId));
         }
-        return null;
+        T result = SessionPool.shared().send(lease, session -> request.apply(apiClient.withSession(session)), firstResponse);
+        sessionId = lease.getSessionId();
+        return result;
     }
 
-    private int extractCartCount(String responseBody) {
-        try {
-            String cartPattern = "CART (\\d+)";
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(cartPattern);
-            java.util.regex.Matcher matcher = pattern.matcher(responseBody);
-
-            if (matcher.find()) {
-                return Integer.parseInt(matcher.group(1));
-            }
-        } catch (Exception e) {
-            System.out.println("Error extracting cart count: " + e.getMessage());
+    private void printHops(RedirectChain chain) {
+        for (RedirectChain.Hop hop : chain.getHops()) {
+            StepLog.debug("Redirected: {}", hop);
         }
-        return 0;
+        StepLog.debug("Final page status: {}", chain.getFinalResponse().getStatusCode());
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.ecommerce.stepdefinitions;
+
+import com.ecommerce.utils.Environment;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.Scenario;
+
+/**
+ * 🌍 环境结果钩子 - 把每个场景的结果和耗时记到它所运行的环境中，运行结束后按环境输出
+ */
+public class EnvironmentHooks {
+
+    private long startNanos;
+
+    @Before(order = 1)
+    public void start_scenario_clock(){
+        startNanos = System.nanoTime();
+    }
+
+    @After(order = 1)
+    public void record_scenario_result(Scenario scenario){
+        Environment.current().recordScenario(scenario.getName() + ":" + scenario.getLine(),
+                scenario.getStatus().name(), System.nanoTime() - startNanos);
+    }
+}
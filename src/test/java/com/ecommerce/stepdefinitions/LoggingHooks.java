@@ -0,0 +1,26 @@
+package com.ecommerce.stepdefinitions;
+
+import com.ecommerce.utils.Environment;
+import com.ecommerce.utils.StepLog;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.Scenario;
+
+/**
+ * 📝 日志钩子 - 为每个场景打开和关闭StepLog的场景上下文
+ * Before钩子最先执行，After钩子最后执行，其他钩子里的日志也归属到该场景
+ */
+public class LoggingHooks {
+
+    @Before(order = 0)
+    public void begin_scenario_log(Scenario scenario){
+        String name = scenario.getName() + ":" + scenario.getLine();
+        // 🌍 同时运行多个环境时，日志中的场景名带上环境
+        StepLog.beginScenario(Environment.isConfigured() ? "[" + Environment.current().name() + "] " + name : name);
+    }
+
+    @After(order = 0)
+    public void end_scenario_log(Scenario scenario){
+        StepLog.endScenario(scenario.isFailed());
+    }
+}
@@ -0,0 +1,143 @@
+package com.ecommerce.stepdefinitions;
+
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.LatencyRecorder;
+import com.ecommerce.utils.RequestExecutors;
+import com.ecommerce.utils.StepLog;
+import com.ecommerce.utils.TestConfig;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import io.restassured.response.Response;
+import org.HdrHistogram.Histogram;
+import org.testng.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 🎯 性能SLO步骤定义类 - 把延迟和吞吐量要求写进功能场景，性能退化时场景直接失败
+ * 延迟步骤检查本场景中ApiClient记录的请求（LatencyRecorder的场景记录器），
+ * 带这些步骤的场景标记为 @performance，由PerformanceRunner串行执行（mvn test -Pperformance）
+ *
+ * 🎯 示例：
+ *   When "/login" is requested 50 times
+ *   Then the p95 latency of "/login" should be below 200 ms
+ *   And "/login" should sustain 100 requests per second within 5%
+ */
+public class PerformanceSteps {
+
+    private final ApiClient apiClient = new ApiClient().withoutCache(); // 测量被测系统本身，不经过客户端缓存
+
+    /**
+     * 🎬 只为 @performance 场景打开场景记录器，其他场景的请求不需要按场景统计
+     */
+    @Before(value = "@performance", order = 1)
+    public void begin_scenario_latency(){
+        LatencyRecorder.beginScenario();
+    }
+
+    @After(value = "@performance", order = 1)
+    public void end_scenario_latency(){
+        LatencyRecorder.endScenario();
+    }
+
+    /**
+     * 🔁 匿名GET请求若干次，为延迟检查积累样本
+     * 对应Gherkin: When "/login" is requested 50 times
+     */
+    @When("^\"([^\"]*)\" is requested (\\d+) times$")
+    public void endpoint_is_requested_times(String endpoint, int times){
+        for(int i = 0; i < times; i++){
+            Response response = apiClient.get(endpoint);
+            Assert.assertTrue(response.getStatusCode() < 400,
+                    "GET " + endpoint + " failed with status " + response.getStatusCode());
+        }
+        StepLog.info("✓ Requested {} {} times", endpoint, times);
+    }
+
+    /**
+     * ⏱️ 延迟SLO - 本场景中该端点所有请求（所有状态码）的分位数必须低于上限
+     * 对应Gherkin: Then the p95 latency of "/cart" should be below 200 ms
+     */
+    @Then("^the p(\\d+(?:\\.\\d+)?) latency of \"([^\"]*)\" should be below (\\d+) ms$")
+    public void the_latency_should_be_below(String percentile, String endpoint, int limitMillis){
+        LatencyRecorder scenario = LatencyRecorder.scenario();
+        Assert.assertNotNull(scenario, "No scenario latency recorder is active");
+        Histogram histogram = scenario.histogram(endpoint);
+        Assert.assertTrue(histogram.getTotalCount() > 0, "No requests to " + endpoint + " were recorded in this scenario");
+
+        double actualMillis = histogram.getValueAtPercentile(Double.parseDouble(percentile)) / 1000.0;
+        StepLog.info("p{} latency of {}: {} ms over {} requests (limit {} ms)",
+                percentile, endpoint, actualMillis, histogram.getTotalCount(), limitMillis);
+        Assert.assertTrue(actualMillis < limitMillis, String.format("p%s latency of %s is %.1f ms over %d requests, limit is %d ms",
+                percentile, endpoint, actualMillis, histogram.getTotalCount(), limitMillis));
+    }
+
+    /**
+     * 🚀 吞吐量SLO - 按目标速率发送slo.duration秒的匿名GET请求，检查实际完成的速率
+     * 请求按固定时间表发出（第i个请求在 开始 + i/速率 时发出），被测系统跟不上时时间表整体后移，
+     * 实际速率随之下降；失败的请求不计入吞吐量
+     * 允许实际速率低于目标的百分比写在步骤中，省略时取slo.throughput.tolerance
+     * 对应Gherkin: Then "/login" should sustain 100 requests per second within 5%
+     */
+    @Then("^\"([^\"]*)\" should sustain (\\d+) requests per second(?: within (\\d+)%)?$")
+    public void endpoint_should_sustain(String endpoint, int targetPerSecond, Integer tolerancePercent){
+        Assert.assertTrue(targetPerSecond > 0, "Target rate must be positive");
+        int tolerance = tolerancePercent != null ? tolerancePercent : TestConfig.Slo.THROUGHPUT_TOLERANCE;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / targetPerSecond;
+        long total = (long) targetPerSecond * TestConfig.Slo.DURATION;
+        AtomicLong next = new AtomicLong();
+        LongAdder succeeded = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLong maxLagNanos = new AtomicLong();
+
+        ExecutorService workers = RequestExecutors.newExecutor("slo");
+        long start = System.nanoTime();
+        try{
+            List<CompletableFuture<Void>> lanes = new ArrayList<>();
+            for(int lane = 0; lane < TestConfig.Slo.CONCURRENCY; lane++){
+                lanes.add(CompletableFuture.supplyAsync(LatencyRecorder.propagate(() -> {
+                    for(long ticket = next.getAndIncrement(); ticket < total; ticket = next.getAndIncrement()){
+                        long scheduled = start + ticket * intervalNanos;
+                        for(long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()){
+                            LockSupport.parkNanos(wait);
+                        }
+                        maxLagNanos.accumulateAndGet(System.nanoTime() - scheduled, Math::max);
+                        try{
+                            if(apiClient.get(endpoint).getStatusCode() < 400){
+                                succeeded.increment();
+                            }else{
+                                failed.increment();
+                            }
+                        }catch(Exception e){ // 连接被拒绝、超时等
+                            failed.increment();
+                        }
+                    }
+                    return null;
+                }), workers));
+            }
+            CompletableFuture.allOf(lanes.toArray(new CompletableFuture<?>[0])).join();
+        }finally{
+            workers.shutdownNow();
+        }
+
+        // ⏳ 以计划时长和实际时长中较长的为准，请求提前结束也不会高估速率
+        long elapsedNanos = Math.max(System.nanoTime() - start, TimeUnit.SECONDS.toNanos(TestConfig.Slo.DURATION));
+        double achieved = succeeded.sum() * 1e9 / elapsedNanos;
+        double required = targetPerSecond * (100 - tolerance) / 100.0;
+        StepLog.info("{} sustained {} req/s (target {} -{}%, {} ok, {} failed, max schedule lag {} ms)",
+                endpoint, String.format("%.1f", achieved), targetPerSecond, tolerance, succeeded.sum(), failed.sum(),
+                TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()));
+        Assert.assertEquals(failed.sum(), 0, failed.sum() + " of " + total + " requests to " + endpoint + " failed");
+        Assert.assertTrue(achieved >= required, String.format("%s sustained %.1f requests per second, target is %d (-%d%%)",
+                endpoint, achieved, targetPerSecond, tolerance));
+    }
+}
@@ -0,0 +1,448 @@
+package com.ecommerce.stub;
+
+import com.ecommerce.utils.TestConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🧪 内置替身服务器 - 在测试进程内模拟被测电商站点
+ * 职责：实现步骤定义用到的所有页面，复现真实站点的重定向、会话Cookie和页面标记，
+ * 让整个套件、压测和基准测试不依赖外部服务即可运行
+ *
+ * 🎯 支持的端点：
+ *   GET  /                     首页，登录后显示 Welcome / Sign Out
+ *   GET  /login, POST /login   登录页；登录成功302到首页并设置session，失败返回200和Invalid提示
+ *   GET  /register, POST /register   注册页；注册成功302到登录页
+ *   GET  /logout               清除session并302到首页
+ *   GET  /account/profile      个人资料页，未登录时302到登录页
+ *   GET  /cart                 购物车页，未登录时302到登录页
+ *   GET  /addToCart?productId= 加入购物车后302到购物车页
+ *   GET  /removeFromCart?productId= 移除该商品后302到购物车页
+ *
+ * 🗄️ 未登录时的首页、登录页和注册页带ETag和Cache-Control（stub.cache.max.age，默认no-cache），
+ *   If-None-Match匹配时返回304，用于验证客户端的HTTP缓存
+ *
+ * 🎯 使用方式：
+ *   mvn test -Dstub.server=true
+ *   mvn test -Dstub.server=true -Dstub.latency=20 -Dstub.latency.jitter=10 -Dstub.threads=4
+ *
+ * 📊 服务端只统计自身的处理耗时（不含注入的延迟），和客户端的延迟报告对比，
+ *   就能区分测试框架自身的开销和被测系统的开销
+ */
+public final class StubServer {
+
+    private static final String SESSION_COOKIE = "session";
+
+    private static StubServer shared;
+
+    static{
+        // 🚀 JDK HttpServer分两次写出响应头和响应体，默认开启Nagle算法时会和客户端的延迟ACK叠加出约40ms的等待
+        if(System.getProperty("sun.net.httpserver.nodelay") == null){
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        // 💤 服务器关闭空闲连接的时间要比客户端连接池晚：池的回收线程每半个回收时间运行一次，
+        //    连接在池中最多空闲1.5倍回收时间，服务器先关掉的话，复用它的POST会收到Connection reset
+        if(System.getProperty("sun.net.httpserver.idleInterval") == null){
+            long seconds = TimeUnit.MILLISECONDS.toSeconds(TestConfig.Pool.IDLE_TIMEOUT) * 2 + 1;
+            System.setProperty("sun.net.httpserver.idleInterval", String.valueOf(seconds));
+        }
+        // 🔢 空闲连接数超过上限时服务器会直接关闭连接，上限不能低于客户端连接池的容量
+        if(System.getProperty("sun.net.httpserver.maxIdleConnections") == null){
+            System.setProperty("sun.net.httpserver.maxIdleConnections",
+                    String.valueOf(Math.max(200, TestConfig.Pool.MAX_TOTAL)));
+        }
+    }
+
+    private final StubShop shop = new StubShop();
+    private final int port;
+    private final int latencyMillis;
+    private final int latencyJitterMillis;
+    private final int threads;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder handlingNanos = new LongAdder();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param port 监听端口（本机回环地址），0表示由系统分配
+     * @param latencyMillis 每个请求固定增加的延迟（毫秒）
+     * @param latencyJitterMillis 延迟的随机抖动（毫秒）
+     * @param threads 处理线程数，0表示不限制
+     */
+    public StubServer(int port, int latencyMillis, int latencyJitterMillis, int threads){
+        this.port = port;
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = latencyJitterMillis;
+        this.threads = threads;
+    }
+
+    /**
+     * 🚀 启用替身服务器时（-Dstub.server=true）按配置启动共享实例，已启动时什么也不做
+     */
+    public static synchronized void startIfEnabled() throws IOException{
+        if(!TestConfig.Stub.ENABLED || shared != null){
+            return;
+        }
+        StubServer server = new StubServer(portOf(TestConfig.BASE_URL),
+                TestConfig.Stub.LATENCY, TestConfig.Stub.LATENCY_JITTER, TestConfig.Stub.THREADS);
+        server.start();
+        shared = server;
+        System.out.println(String.format("Stub server listening on port %d (latency=%dms, jitter=%dms, threads=%s)",
+                server.port(), server.latencyMillis, server.latencyJitterMillis,
+                server.threads > 0 ? String.valueOf(server.threads) : "unbounded"));
+    }
+
+    /**
+     * 🛑 停止共享实例并输出统计，没有启动时什么也不做
+     */
+    public static synchronized void stopShared(){
+        if(shared != null){
+            System.out.println(shared.summary());
+            shared.stop();
+            shared = null;
+        }
+    }
+
+    /**
+     * ▶️ 启动服务器
+     */
+    public void start() throws IOException{
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        executor = threads > 0
+                ? Executors.newFixedThreadPool(threads, daemonThreads())
+                : Executors.newCachedThreadPool(daemonThreads());
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * ⏹️ 停止服务器
+     */
+    public void stop(){
+        if(server != null){
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 🔌 实际监听的端口 - 以端口0启动时由系统分配
+     */
+    public int port(){
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * 📊 服务端统计 - 请求数和平均处理耗时（不含注入的延迟）
+     */
+    public String summary(){
+        long count = requests.sum();
+        double averageMicros = count == 0 ? 0 : handlingNanos.sum() / 1000.0 / count;
+        return String.format("Stub server: %d requests, avg handling %.1f us (injected latency %dms + jitter %dms)",
+                count, averageMicros, latencyMillis, latencyJitterMillis);
+    }
+
+    // ==================== 请求分发 ====================
+
+    private void handle(HttpExchange exchange) throws IOException{
+        try{
+            injectLatency();
+            long start = System.nanoTime();
+            try{
+                route(exchange);
+            }finally{
+                handlingNanos.add(System.nanoTime() - start);
+                requests.increment();
+            }
+        }finally{
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException{
+        String path = exchange.getRequestURI().getPath();
+        boolean post = "POST".equalsIgnoreCase(exchange.getRequestMethod());
+        String sessionId = sessionCookie(exchange);
+        StubShop.Account account = shop.account(sessionId);
+
+        switch(path){
+            case "/":
+                if(account == null){
+                    cacheableHtml(exchange, homePage(null));
+                }else{
+                    html(exchange, 200, homePage(account));
+                }
+                break;
+            case "/login":
+                if(post){
+                    Map<String, String> form = form(exchange);
+                    String newSession = shop.login(form.get("email"), form.get("password"));
+                    if(newSession == null){
+                        html(exchange, 200, loginPage("Invalid email or password"));
+                    }else{
+                        exchange.getResponseHeaders().add("Set-Cookie",
+                                SESSION_COOKIE + "=" + newSession + "; Path=/; HttpOnly");
+                        redirect(exchange, "/");
+                    }
+                }else{
+                    cacheableHtml(exchange, loginPage(null));
+                }
+                break;
+            case "/register":
+                if(post){
+                    Map<String, String> form = form(exchange);
+                    if(shop.register(form.get("email"), form.get("password"), form.get("firstName"))){
+                        redirect(exchange, "/login");
+                    }else{
+                        html(exchange, 200, registerPage("Error: email and password are required"));
+                    }
+                }else{
+                    cacheableHtml(exchange, registerPage(null));
+                }
+                break;
+            case "/logout":
+                shop.logout(sessionId);
+                exchange.getResponseHeaders().add("Set-Cookie",
+                        SESSION_COOKIE + "=; Expires=Thu, 01 Jan 1970 00:00:00 GMT; Max-Age=0; Path=/");
+                redirect(exchange, "/");
+                break;
+            case "/account/profile":
+                if(account == null){
+                    redirect(exchange, "/login");
+                }else{
+                    html(exchange, 200, profilePage(account));
+                }
+                break;
+            case "/cart":
+                if(account == null){
+                    redirect(exchange, "/login");
+                }else{
+                    html(exchange, 200, cartPage(account));
+                }
+                break;
+            case "/addToCart":
+            case "/removeFromCart":
+                if(account == null){
+                    redirect(exchange, "/login");
+                    break;
+                }
+                String productId = query(exchange).get("productId");
+                if("/addToCart".equals(path)){
+                    if(!shop.addToCart(account, productId)){
+                        html(exchange, 404, page(account, "<h1>Product not found</h1>"));
+                        break;
+                    }
+                }else{
+                    shop.removeFromCart(account, productId);
+                }
+                redirect(exchange, "/cart");
+                break;
+            default:
+                html(exchange, 404, page(account, "<h1>Not Found</h1>"));
+        }
+    }
+
+    // ==================== 页面 ====================
+
+    private String homePage(StubShop.Account account){
+        String content = account == null
+                ? "<h1>Welcome to the shop</h1><p><a href=\"/login\">Sign In</a> to start shopping.</p>"
+                : "<h1>Welcome, " + account.firstName + "!</h1><p><a href=\"/logout\">Logout</a></p>";
+        return page(account, content);
+    }
+
+    private String loginPage(String error){
+        return page(null, "<h1>Login</h1>"
+                + (error == null ? "" : "<div class=\"alert\">" + error + "</div>")
+                + "<form method=\"post\" action=\"/login\"><input name=\"email\"><input name=\"password\" type=\"password\">"
+                + "<button type=\"submit\">Login</button></form>"
+                + "<p>New customer? <a href=\"/register\">Register here</a></p>");
+    }
+
+    private String registerPage(String error){
+        return page(null, "<h1>Create an account</h1>"
+                + (error == null ? "" : "<div class=\"alert\">" + error + "</div>")
+                + "<form method=\"post\" action=\"/register\"><input name=\"email\"><input name=\"password\" type=\"password\">"
+                + "<button type=\"submit\">Register</button></form>");
+    }
+
+    private String profilePage(StubShop.Account account){
+        return page(account, "<h1>Profile</h1><section><h2>View Profile</h2><p>" + account.firstName
+                + "</p><p>" + account.email + "</p></section>"
+                + "<a href=\"/account/profile/edit\">Edit Profile</a>");
+    }
+
+    private String cartPage(StubShop.Account account){
+        StringBuilder rows = new StringBuilder("<h1>Shopping Cart</h1>");
+        Map<String, Integer> items = shop.cartItems(account);
+        long totalCents = 0;
+        if(items.isEmpty()){
+            rows.append("<p>Your cart is empty.</p>");
+        }
+        for(Map.Entry<String, Integer> item : items.entrySet()){
+            StubShop.Product product = StubShop.PRODUCTS.get(item.getKey());
+            long lineCents = (long) product.priceCents * item.getValue();
+            totalCents += lineCents;
+            rows.append("<div class=\"item\">").append(product.name).append(" x ").append(item.getValue())
+                    .append(" <a href=\"/removeFromCart?productId=").append(product.id).append("\">Remove</a> ")
+                    .append(money(lineCents)).append("</div>");
+        }
+        rows.append("<p class=\"total\">Total: ").append(money(totalCents)).append("</p>")
+                .append("<a href=\"/checkout\">Proceed to checkout</a>");
+        return page(account, rows.toString());
+    }
+
+    /**
+     * 🧱 页面框架 - 导航栏包含登录状态和购物车图标（CART n）
+     */
+    private String page(StubShop.Account account, String content){
+        int cartCount = shop.cartItems(account).values().stream().mapToInt(Integer::intValue).sum();
+        String nav = account == null
+                ? "<a href=\"/login\">Sign In</a> <a href=\"/register\">Register</a>"
+                : "<span>Hello, " + account.firstName + "</span> <a href=\"/account/profile\">My Account</a>"
+                        + " <a href=\"/logout\">Sign Out</a>";
+        return "<!DOCTYPE html><html><head><title>Shop</title></head><body><nav>" + nav
+                + " <a id=\"cartIcon\" href=\"/cart\">CART " + cartCount + "</a></nav><main>"
+                + content + "</main></body></html>";
+    }
+
+    private static String money(long cents){
+        return String.format("$%d.%02d", cents / 100, cents % 100);
+    }
+
+    // ==================== HTTP辅助方法 ====================
+
+    private void injectLatency(){
+        long delay = latencyMillis + (latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextInt(latencyJitterMillis + 1) : 0);
+        if(delay > 0){
+            try{
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void html(HttpExchange exchange, int status, String body) throws IOException{
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(OutputStream out = exchange.getResponseBody()){
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 🗄️ 与会话无关的页面 - 带ETag和Cache-Control，请求的If-None-Match匹配时只返回304
+     */
+    private static void cacheableHtml(HttpExchange exchange, String body) throws IOException{
+        String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", TestConfig.Stub.CACHE_MAX_AGE > 0
+                ? "max-age=" + TestConfig.Stub.CACHE_MAX_AGE : "no-cache");
+        if(etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+            noContent(exchange, 304);
+            return;
+        }
+        html(exchange, 200, body);
+    }
+
+    private static void redirect(HttpExchange exchange, String location) throws IOException{
+        exchange.getResponseHeaders().set("Location", location);
+        noContent(exchange, 302);
+    }
+
+    /**
+     * 📭 发送没有响应体的响应 - 先把请求体读到结尾：JDK HttpServer发送完无响应体的响应时，
+     * 请求体还没读到结尾就认为连接不能复用而关闭它，客户端连接池复用这个连接的下一个请求就会收到Connection reset
+     */
+    private static void noContent(HttpExchange exchange, int status) throws IOException{
+        exchange.getRequestBody().readAllBytes();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static String sessionCookie(HttpExchange exchange){
+        for(String header : exchange.getRequestHeaders().getOrDefault("Cookie", Collections.emptyList())){
+            for(String cookie : header.split(";")){
+                int equals = cookie.indexOf('=');
+                if(equals > 0 && cookie.substring(0, equals).trim().equals(SESSION_COOKIE)){
+                    String value = cookie.substring(equals + 1).trim();
+                    return value.isEmpty() ? null : value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> form(HttpExchange exchange) throws IOException{
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        return parse(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> query(HttpExchange exchange){
+        return parse(exchange.getRequestURI().getRawQuery());
+    }
+
+    private static Map<String, String> parse(String encoded){
+        Map<String, String> params = new HashMap<>();
+        if(encoded == null || encoded.isEmpty()){
+            return params;
+        }
+        for(String pair : encoded.split("&")){
+            int equals = pair.indexOf('=');
+            String key = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            params.put(decode(key), decode(value));
+        }
+        return params;
+    }
+
+    private static String decode(String value){
+        try{
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        }catch(UnsupportedEncodingException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int portOf(String baseUrl){
+        URI uri = URI.create(baseUrl);
+        if(uri.getPort() > 0){
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private static ThreadFactory daemonThreads(){
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "stub-server-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.stub;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🏪 替身站点的业务状态 - 账号、会话和购物车
+ * 所有数据都在内存中，所有方法都可以被服务端线程并发调用
+ */
+class StubShop {
+
+    /** 🛍️ 商品目录：商品ID -> 商品 */
+    static final Map<String, Product> PRODUCTS;
+
+    static{
+        Map<String, Product> products = new LinkedHashMap<>();
+        products.put("1", new Product("1", "Classic T-Shirt", 1999));
+        products.put("2", new Product("2", "Denim Jacket", 5950));
+        products.put("3", new Product("3", "Canvas Sneakers", 4500));
+        PRODUCTS = Collections.unmodifiableMap(products);
+    }
+
+    /** 邮箱 -> 账号 */
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    /** 会话ID -> 邮箱 */
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+    /** 邮箱 -> 商品ID -> 数量 */
+    private final Map<String, Map<String, Integer>> carts = new ConcurrentHashMap<>();
+
+    /**
+     * 📝 注册 - 同一邮箱重复注册时覆盖旧账号（测试用户邮箱在一次运行内是固定的）
+     *
+     * @return false 邮箱或密码为空
+     */
+    boolean register(String email, String password, String firstName){
+        if(isBlank(email) || isBlank(password)){
+            return false;
+        }
+        accounts.put(email, new Account(email, password, isBlank(firstName) ? email : firstName));
+        return true;
+    }
+
+    /**
+     * 🔑 登录
+     *
+     * @return 新会话ID；邮箱或密码错误时返回null
+     */
+    String login(String email, String password){
+        Account account = email == null ? null : accounts.get(email);
+        if(account == null || !account.password.equals(password)){
+            return null;
+        }
+        String sessionId = UUID.randomUUID().toString().replace("-", "");
+        sessions.put(sessionId, email);
+        return sessionId;
+    }
+
+    /** 🚪 登出 - 让会话失效 */
+    void logout(String sessionId){
+        if(sessionId != null){
+            sessions.remove(sessionId);
+        }
+    }
+
+    /**
+     * 👤 会话对应的账号，会话无效时返回null
+     */
+    Account account(String sessionId){
+        String email = sessionId == null ? null : sessions.get(sessionId);
+        return email == null ? null : accounts.get(email);
+    }
+
+    /**
+     * ➕ 加入购物车
+     *
+     * @return false 商品不存在
+     */
+    boolean addToCart(Account account, String productId){
+        if(!PRODUCTS.containsKey(productId)){
+            return false;
+        }
+        cart(account).merge(productId, 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * ➖ 从购物车移除商品 - 与真实站点一致，整行移除，不论数量
+     */
+    void removeFromCart(Account account, String productId){
+        if(productId != null){
+            cart(account).remove(productId);
+        }
+    }
+
+    /** 📋 购物车内容的快照：商品ID -> 数量 */
+    Map<String, Integer> cartItems(Account account){
+        return account == null ? Collections.emptyMap() : new LinkedHashMap<>(cart(account));
+    }
+
+    private Map<String, Integer> cart(Account account){
+        return carts.computeIfAbsent(account.email, email -> new ConcurrentHashMap<>());
+    }
+
+    private static boolean isBlank(String value){
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * 👤 账号
+     */
+    static final class Account {
+        final String email;
+        final String password;
+        final String firstName;
+
+        Account(String email, String password, String firstName){
+            this.email = email;
+            this.password = password;
+            this.firstName = firstName;
+        }
+    }
+
+    /**
+     * 🛍️ 商品 - 价格以分为单位
+     */
+    static final class Product {
+        final String id;
+        final String name;
+        final int priceCents;
+
+        Product(String id, String name, int priceCents){
+            this.id = id;
+            this.name = name;
+            this.priceCents = priceCents;
+        }
+    }
+}
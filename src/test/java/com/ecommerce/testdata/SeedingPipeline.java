@@ -0,0 +1,350 @@
+package com.ecommerce.testdata;
+
+import com.ecommerce.models.User;
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.RequestExecutors;
+import com.ecommerce.utils.StepLog;
+import com.ecommerce.utils.TestConfig;
+import io.restassured.response.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 🌱 批量造数流水线 - 生成用户 → 注册 → 登录 → 填充购物车
+ * 职责：在压测或浸泡测试之前快速准备成千上万个已登录的会话
+ *
+ * 🏭 工作方式：
+ *   - 每个阶段有自己的工作线程（并发上限），阶段之间用有界队列连接，各阶段同时运行
+ *   - 下游处理不过来时队列写满，上游阻塞等待（背压），在途的数据量有上限
+ *   - 网络异常、5xx和429视为暂时性失败，按指数退避重试；其它失败直接放弃该用户
+ *   - 工作线程遇到Error等无法只放弃一个用户的失败时，把失败标记传到最后，流水线停止并抛出该失败
+ *   - 定期输出各阶段的完成数和吞吐量
+ *
+ * 🎯 单独运行（结果写入会话文件，之后的运行用 -Dsession.pool.file 直接加载）：
+ *   mvn -Pseed-sessions test -Dbase.url=... -Dseed.users=5000 -Dseed.cart.items=2 -Dsession.pool.file=target/sessions.bin
+ */
+public class SeedingPipeline {
+
+    /** 🏁 结束标记 - 每个阶段的最后一个工作线程结束时把它传给下游 */
+    private static final Object END = new Object();
+
+    /** ⏳ 重试退避的上限（毫秒） */
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final ApiClient apiClient;
+    private final int concurrency;
+    private final String[] cartProducts = TestConfig.Seed.CART_PRODUCTS.split(",");
+
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger retried = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicReference<String> firstFailure = new AtomicReference<>();
+
+    /**
+     * 🏗️ 构造函数 - 队列容量、重试次数和购物车件数取自TestConfig.Seed
+     *
+     * @param apiClient 用于注册、登录和加购的客户端
+     * @param concurrency 每个阶段的最大并发数
+     */
+    public SeedingPipeline(ApiClient apiClient, int concurrency){
+        if(concurrency < 1){
+            throw new IllegalArgumentException("concurrency must be at least 1: " + concurrency);
+        }
+        this.apiClient = apiClient;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * 🌱 单独运行造数 - 创建seed.users个会话并写入会话文件
+     *
+     * @param args 可选：会话文件路径，默认取session.pool.file，未设置时为target/sessions.bin
+     */
+    public static void main(String[] args) throws IOException{
+        String path = args.length > 0 ? args[0]
+                : TestConfig.SessionPool.FILE.isEmpty() ? "target/sessions.bin" : TestConfig.SessionPool.FILE;
+        List<SessionLease> sessions = new SeedingPipeline(new ApiClient(), TestConfig.Seed.CONCURRENCY)
+                .run(TestConfig.Seed.USERS);
+        SessionStore.write(new File(path), sessions);
+        StepLog.info("Wrote {} sessions to {}", sessions.size(), path);
+    }
+
+    /**
+     * 🚀 运行流水线
+     *
+     * @param count 要创建的用户数
+     * @return 成功登录（并填充购物车）的会话；放弃的用户不在其中
+     */
+    public List<SessionLease> run(int count){
+        long start = System.nanoTime();
+        ExecutorService workers = RequestExecutors.newExecutor("seed");
+        try{
+            BlockingQueue<Object> users = new ArrayBlockingQueue<>(TestConfig.Seed.QUEUE_CAPACITY);
+            BlockingQueue<Object> registered = new ArrayBlockingQueue<>(TestConfig.Seed.QUEUE_CAPACITY);
+            BlockingQueue<Object> results = new LinkedBlockingQueue<>(); // 由当前线程及时取走
+
+            List<Stage> stages = new ArrayList<>();
+            stages.add(new Stage("registered", users, registered, item -> register((User) item)));
+            if(TestConfig.Seed.CART_ITEMS > 0){
+                BlockingQueue<Object> loggedIn = new ArrayBlockingQueue<>(TestConfig.Seed.QUEUE_CAPACITY);
+                stages.add(new Stage("logged in", registered, loggedIn, item -> login((User) item)));
+                stages.add(new Stage("carts filled", loggedIn, results, item -> fillCart((SessionLease) item)));
+            }else{
+                stages.add(new Stage("logged in", registered, results, item -> login((User) item)));
+            }
+
+            workers.execute(() -> generate(count, users));
+            for(Stage stage : stages){
+                for(int worker = 0; worker < concurrency; worker++){
+                    workers.execute(stage::drain);
+                }
+            }
+            List<SessionLease> sessions = collect(results, count, stages, start);
+
+            long elapsedNanos = System.nanoTime() - start;
+            String summary = String.format("Seeded %d of %d sessions in %d ms (%.0f/s), %d retries, %d failed%s",
+                    sessions.size(), count, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    sessions.size() * 1e9 / Math.max(1, elapsedNanos), retried.get(), failed.get(),
+                    firstFailure.get() == null ? "" : ", first failure: " + firstFailure.get());
+            if(failed.get() > 0){
+                StepLog.warn(summary);
+            }else{
+                StepLog.info(summary);
+            }
+            if(sessions.isEmpty() && count > 0){
+                throw new IllegalStateException("No session could be seeded: " + firstFailure.get());
+            }
+            return sessions;
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Seeding interrupted", e);
+        }finally{
+            workers.shutdownNow();
+        }
+    }
+
+    /** 👤 第一个阶段：生成用户 - 队列满时阻塞，生成速度跟随注册速度 */
+    private void generate(int count, BlockingQueue<Object> users){
+        try{
+            for(int i = 0; i < count; i++){
+                users.put(TestDataManager.newUser());
+                generated.incrementAndGet();
+            }
+            users.put(END);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }catch(Throwable error){
+            forward(users, new Failure("generate", error));
+        }
+    }
+
+    /** 📥 取走最终结果，并按间隔输出各阶段的进度 */
+    private List<SessionLease> collect(BlockingQueue<Object> results, int count, List<Stage> stages, long start)
+            throws InterruptedException{
+        List<SessionLease> sessions = new ArrayList<>(count);
+        long interval = TimeUnit.SECONDS.toNanos(TestConfig.Seed.PROGRESS_INTERVAL);
+        long lastReport = start;
+        while(true){
+            Object item = interval > 0
+                    ? results.poll(Math.max(0, lastReport + interval - System.nanoTime()), TimeUnit.NANOSECONDS)
+                    : results.take();
+            if(item == END){
+                return sessions;
+            }
+            if(item instanceof Failure){
+                throw ((Failure) item).rethrow();
+            }
+            if(item != null){
+                sessions.add((SessionLease) item);
+            }
+
+            long now = System.nanoTime();
+            if(interval > 0 && now - lastReport >= interval){
+                StringBuilder progress = new StringBuilder("Seeding: ")
+                        .append(generated.get()).append('/').append(count).append(" generated");
+                for(Stage stage : stages){
+                    progress.append(", ").append(stage.progress(now - lastReport));
+                }
+                StepLog.info(progress.append(", ").append(retried.get()).append(" retries, ")
+                        .append(failed.get()).append(" failed").toString());
+                lastReport = now;
+            }
+        }
+    }
+
+    // ==================== 各阶段的处理 ====================
+
+    private User register(User user){
+        expectSuccess(apiClient.post("/register", TestDataManager.registrationParams(user)), "register", user);
+        return user;
+    }
+
+    private SessionLease login(User user){
+        Response response = apiClient.post("/login", TestDataManager.loginParams(user));
+        expectSuccess(response, "log in", user);
+        String sessionId = apiClient.extractSessionCookie(response);
+        if(sessionId == null || sessionId.isEmpty()){
+            throw new IllegalStateException("No session cookie for " + user.getEmail());
+        }
+        SessionLease lease = new SessionLease(user);
+        lease.loggedIn(sessionId);
+        return lease;
+    }
+
+    /**
+     * 🛒 按顺序轮流加入seed.cart.products中的商品，归还会话池时这些商品会被清理
+     * 中途失败重试时从头加起，购物车里可能比seed.cart.items多几件
+     */
+    private SessionLease fillCart(SessionLease lease){
+        ApiClient client = apiClient.withSession(lease.getSessionId());
+        for(int item = 0; item < TestConfig.Seed.CART_ITEMS; item++){
+            String productId = cartProducts[item % cartProducts.length].trim();
+            expectSuccess(client.get("/addToCart?productId=" + productId), "fill the cart of", lease.getUser());
+            lease.markCartChanged(productId);
+        }
+        return lease;
+    }
+
+    /** ✅ 200和302算成功；5xx和429是暂时性失败，可以重试 */
+    private static void expectSuccess(Response response, String action, User user){
+        int status = response.getStatusCode();
+        if(status == TestConfig.StatusCode.OK || status == TestConfig.StatusCode.REDIRECT){
+            return;
+        }
+        String message = "Cannot " + action + " " + user.getEmail() + ": " + status;
+        if(status >= 500 || status == 429){
+            throw new TransientFailure(message);
+        }
+        throw new IllegalStateException(message);
+    }
+
+    /** 📤 把失败标记交给下游 - 下游已停止（被中断）时放弃 */
+    private static void forward(BlockingQueue<Object> output, Failure failure){
+        try{
+            output.put(failure);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isTransient(Throwable error){
+        for(Throwable cause = error; cause != null; cause = cause.getCause()){
+            if(cause instanceof IOException || cause instanceof TransientFailure){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** 🌩️ 暂时性失败 - 服务端过载或出错，稍后重试可能成功 */
+    private static class TransientFailure extends RuntimeException {
+        TransientFailure(String message){
+            super(message);
+        }
+    }
+
+    /**
+     * 💥 失败标记 - 某个阶段的工作线程意外终止时替代结束标记传给下游，
+     * 否则该阶段永远等不到所有工作线程结束，collect会一直等待
+     */
+    private static final class Failure {
+        private final String stage;
+        private final Throwable error;
+
+        Failure(String stage, Throwable error){
+            this.stage = stage;
+            this.error = error;
+        }
+
+        /** 🔁 Error原样抛出，其它失败包装后抛出 */
+        RuntimeException rethrow(){
+            if(error instanceof Error){
+                throw (Error) error;
+            }
+            return new IllegalStateException("Seeding stage '" + stage + "' failed: " + error, error);
+        }
+    }
+
+    /**
+     * 🏭 流水线的一个阶段 - 多个工作线程从输入队列取数据，处理后放入输出队列
+     * 最后一个结束的工作线程把结束标记传给下游；上游的失败标记原样向下游传递
+     */
+    private final class Stage {
+        private final String name;
+        private final BlockingQueue<Object> input;
+        private final BlockingQueue<Object> output;
+        private final Function<Object, Object> work;
+        private final AtomicInteger running = new AtomicInteger(concurrency);
+        private final AtomicInteger completed = new AtomicInteger();
+        private int lastCompleted; // 只由输出进度的线程访问
+
+        Stage(String name, BlockingQueue<Object> input, BlockingQueue<Object> output, Function<Object, Object> work){
+            this.name = name;
+            this.input = input;
+            this.output = output;
+            this.work = work;
+        }
+
+        void drain(){
+            try{
+                for(Object item = input.take(); item != END; item = input.take()){
+                    if(item instanceof Failure){
+                        output.put(item);
+                        continue;
+                    }
+                    Object result = process(item);
+                    if(result != null){
+                        output.put(result);
+                        completed.incrementAndGet();
+                    }
+                }
+                input.put(END); // 让同一阶段的其它工作线程也能看到结束标记
+                if(running.decrementAndGet() == 0){
+                    output.put(END);
+                }
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }catch(Throwable error){
+                forward(output, new Failure(name, error));
+            }
+        }
+
+        /** 🔁 处理一条数据，暂时性失败按指数退避重试；放弃时返回null */
+        private Object process(Object item) throws InterruptedException{
+            for(int attempt = 0; ; attempt++){
+                try{
+                    return work.apply(item);
+                }catch(Exception e){ // RestAssured会直接抛出未声明的IOException
+                    if(attempt < TestConfig.Seed.RETRIES && isTransient(e)){
+                        retried.incrementAndGet();
+                        long backoff = Math.min(MAX_BACKOFF_MILLIS, 100L << attempt);
+                        Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                        continue;
+                    }
+                    failed.incrementAndGet();
+                    firstFailure.compareAndSet(null, name + ": " + e);
+                    return null;
+                }
+            }
+        }
+
+        /** 📊 已完成数和上次输出以来的吞吐量 */
+        String progress(long elapsedNanos){
+            int done = completed.get();
+            String progress = String.format("%s %d (%.0f/s)", name, done, (done - lastCompleted) * 1e9 / elapsedNanos);
+            lastCompleted = done;
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.testdata;
+
+import com.ecommerce.models.User;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🎟️ 会话租约 - 从SessionPool租用的一个已登录用户
+ * 场景结束后通过SessionPool.release归还，期间记录场景对购物车的修改以便归还时清理
+ */
+public class SessionLease {
+    private final User user;
+    private volatile String sessionId;
+    private volatile long loggedInAt;
+    private final Set<String> cartProducts = ConcurrentHashMap.newKeySet();
+
+    SessionLease(User user){
+        this.user = user;
+    }
+
+    /** 👤 租用的用户 */
+    public User getUser(){ return user; }
+
+    /** 🔑 当前有效的会话ID */
+    public String getSessionId(){ return sessionId; }
+
+    /**
+     * 🛒 记录购物车修改 - 归还时会把这些商品从购物车移除，保证下一个场景拿到空购物车
+     *
+     * @param productId 加入购物车的商品ID
+     */
+    public void markCartChanged(String productId){
+        cartProducts.add(productId);
+    }
+
+    Set<String> cartProducts(){
+        return Collections.unmodifiableSet(cartProducts);
+    }
+
+    void clearCartProducts(){
+        cartProducts.clear();
+    }
+
+    long loggedInAt(){
+        return loggedInAt;
+    }
+
+    void loggedIn(String sessionId){
+        loggedIn(sessionId, System.nanoTime());
+    }
+
+    /** 💾 从会话文件加载时恢复原来的登录时间，过期判断仍然有效 */
+    void loggedIn(String sessionId, long loggedInAt){
+        this.sessionId = sessionId;
+        this.loggedInAt = loggedInAt;
+    }
+}
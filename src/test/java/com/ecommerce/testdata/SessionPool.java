@@ -0,0 +1,263 @@
+package com.ecommerce.testdata;
+
+import com.ecommerce.models.User;
+import com.ecommerce.utils.ApiClient;
+import com.ecommerce.utils.BodyMatcher;
+import com.ecommerce.utils.Environment;
+import com.ecommerce.utils.RedirectChain;
+import com.ecommerce.utils.StepLog;
+import com.ecommerce.utils.TestConfig;
+import io.restassured.response.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 🎟️ 会话池 - 预先注册并登录的用户，按"租用/归还"方式分配给场景
+ * 职责：在套件开始时以有限并发批量注册用户，场景租用已登录的会话，
+ * 跳过与被测功能无关的注册和登录请求
+ *
+ * 🎯 使用方式：
+ *   SessionLease lease = SessionPool.shared().lease();
+ *   apiClient.withSession(lease.getSessionId()).get("/cart");
+ *   SessionPool.shared().release(lease);
+ *
+ * ⏳ 会话超过有效期后，下次租用时自动重新登录，场景无需感知；有效期内被服务端提前注销的会话
+ *   （401，或302重定向到登录页）由send()重新登录一次后重试
+ */
+public class SessionPool {
+
+    private static volatile SessionPool shared;
+
+    /** 🔁 归还时清理购物车的最大轮数 */
+    private static final int MAX_CART_RESET_ATTEMPTS = 20;
+
+    private static final BodyMatcher CART_PAGE = BodyMatcher.builder().contains("CART 0").build();
+
+    private final ApiClient apiClient;
+    private final long ttlNanos;
+    private final BlockingQueue<SessionLease> idle = new LinkedBlockingQueue<>();
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param apiClient 用于注册和登录的客户端
+     * @param ttlSeconds 会话有效期（秒）
+     */
+    public SessionPool(ApiClient apiClient, long ttlSeconds){
+        this.apiClient = apiClient;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * ✅ 是否启用会话池 - session.pool.size大于0时启用
+     * 池中的会话属于默认环境，同时运行多个环境（-Denvironments=...）时不使用会话池
+     */
+    public static boolean enabled(){
+        return TestConfig.SessionPool.SIZE > 0 && !Environment.isConfigured();
+    }
+
+    /**
+     * 🌐 获取共享会话池 - 第一次调用时按配置批量注册用户
+     */
+    public static SessionPool shared(){
+        SessionPool pool = shared;
+        if(pool == null){
+            synchronized(SessionPool.class){
+                pool = shared;
+                if(pool == null){
+                    pool = new SessionPool(new ApiClient(), TestConfig.SessionPool.TTL);
+                    pool.populate();
+                    shared = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 💾 按配置填充 - 配置了session.pool.file且文件可用时直接加载，否则预注册并写入该文件
+     */
+    private void populate(){
+        if(TestConfig.SessionPool.FILE.isEmpty()){
+            seed(TestConfig.SessionPool.SIZE, TestConfig.SessionPool.SEED_CONCURRENCY);
+            return;
+        }
+        File file = new File(TestConfig.SessionPool.FILE);
+        if(file.isFile()){
+            try{
+                int loaded = load(file);
+                SessionLease sample = idle.peek();
+                if(sample == null || stillLoggedIn(sample)){
+                    StepLog.info("Session pool loaded {} users from {}", loaded, file);
+                    return;
+                }
+                // 被测系统重置过数据（例如重启了替身服务器），文件中的账号和会话都已失效
+                StepLog.warn("Ignoring session file {}: its sessions are no longer logged in", file);
+                idle.clear();
+            }catch(IOException e){
+                StepLog.warn("Ignoring session file: {}", e.getMessage());
+            }
+        }
+        seed(TestConfig.SessionPool.SIZE, TestConfig.SessionPool.SEED_CONCURRENCY);
+        try{
+            save(file);
+        }catch(IOException e){
+            StepLog.warn("Cannot write session file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 🌱 批量预注册 - 通过造数流水线注册并登录count个用户，注册和登录两个阶段同时进行
+     *
+     * @param count 用户数
+     * @param concurrency 每个阶段的最大并发数
+     */
+    public void seed(int count, int concurrency){
+        long start = System.nanoTime();
+        List<SessionLease> sessions = new SeedingPipeline(apiClient, concurrency).run(count);
+        idle.addAll(sessions);
+        StepLog.info("Session pool seeded with {} users in {} ms",
+                sessions.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 📂 加载会话文件中的会话（由SeedingPipeline或save写出）
+     *
+     * @return 加载的会话数
+     */
+    public int load(File file) throws IOException{
+        List<SessionLease> sessions = SessionStore.read(file);
+        idle.addAll(sessions);
+        return sessions.size();
+    }
+
+    /**
+     * 💾 把当前空闲的会话写入会话文件，之后的运行可以直接加载
+     */
+    public void save(File file) throws IOException{
+        SessionStore.write(file, new ArrayList<>(idle));
+    }
+
+    /**
+     * 🎟️ 租用一个已登录的会话 - 池为空时当场创建新用户，会话过期时自动重新登录
+     */
+    public SessionLease lease(){
+        SessionLease lease = idle.poll();
+        if(lease == null){
+            return createSession();
+        }
+        if(System.nanoTime() - lease.loggedInAt() > ttlNanos){
+            login(lease);
+        }
+        return lease;
+    }
+
+    /**
+     * 🔁 用租用的会话发送请求 - 响应表明会话已失效（401，或302重定向到登录页）时重新登录一次，
+     * 再用新会话重试；重试的结果原样返回
+     *
+     * @param lease 租用的会话
+     * @param request 用会话ID发送请求
+     * @param firstResponse 从结果中取出第一个响应（跟随重定向时是重定向之前的响应）
+     */
+    public <T> T send(SessionLease lease, Function<String, T> request, Function<T, Response> firstResponse){
+        T result = request.apply(lease.getSessionId());
+        if(!loggedOut(firstResponse.apply(result))){
+            return result;
+        }
+        login(lease);
+        return request.apply(lease.getSessionId());
+    }
+
+    /**
+     * 🔁 用租用的会话发送请求（不跟随重定向）
+     */
+    public Response send(SessionLease lease, Function<String, Response> request){
+        return send(lease, request, Function.identity());
+    }
+
+    /**
+     * 🔙 归还会话 - 先清理场景加入购物车的商品；清理失败的会话直接丢弃
+     */
+    public void release(SessionLease lease){
+        if(resetCart(lease)){
+            idle.offer(lease);
+        }
+    }
+
+    /** 📊 当前空闲的会话数 */
+    public int idleCount(){
+        return idle.size();
+    }
+
+    /** 🔍 会话是否仍然有效 - 未登录访问购物车会被重定向到登录页 */
+    private boolean stillLoggedIn(SessionLease lease){
+        return apiClient.withSession(lease.getSessionId()).get("/cart").getStatusCode() == TestConfig.StatusCode.OK;
+    }
+
+    /** 🚪 会话已失效 - 401，或者被重定向到登录页 */
+    private static boolean loggedOut(Response response){
+        if(response.getStatusCode() == TestConfig.StatusCode.UNAUTHORIZED){
+            return true;
+        }
+        String location = response.getHeader("Location");
+        return response.getStatusCode() == TestConfig.StatusCode.REDIRECT && location != null
+                && location.contains("/login");
+    }
+
+    private SessionLease createSession(){
+        User user = TestDataManager.newUser();
+
+        Response registerResponse = apiClient.post("/register", TestDataManager.registrationParams(user));
+        int status = registerResponse.getStatusCode();
+        if(status != TestConfig.StatusCode.OK && status != TestConfig.StatusCode.REDIRECT){
+            throw new IllegalStateException("Cannot register pooled user " + user.getEmail() + ": " + status);
+        }
+
+        SessionLease lease = new SessionLease(user);
+        login(lease);
+        return lease;
+    }
+
+    private void login(SessionLease lease){
+        Response loginResponse = apiClient.post("/login", TestDataManager.loginParams(lease.getUser()));
+        String sessionId = apiClient.extractSessionCookie(loginResponse);
+        if(sessionId == null || sessionId.isEmpty()){
+            throw new IllegalStateException("Cannot log in pooled user " + lease.getUser().getEmail()
+                    + ": " + loginResponse.getStatusCode());
+        }
+        lease.loggedIn(sessionId);
+    }
+
+    /**
+     * 🛒 清空购物车 - 每一轮把场景加入过的商品各移除一次，整轮结束后才检查页面是否显示CART 0
+     * （购物车里有多种商品时，移除其中一种之后的页面不可能是CART 0）；同一商品加入了多件时需要多轮
+     *
+     * @return true 购物车已清空
+     */
+    private boolean resetCart(SessionLease lease){
+        if(lease.cartProducts().isEmpty()){
+            return true;
+        }
+        for(int round = 0; round < MAX_CART_RESET_ATTEMPTS; round++){
+            Response response = null;
+            for(String productId : lease.cartProducts()){
+                response = send(lease, session -> apiClient.withSession(session)
+                                .getFollowingRedirects("/removeFromCart?productId=" + productId),
+                        RedirectChain::getFirstResponse).getFinalResponse();
+            }
+            if(CART_PAGE.scan(response).contains("CART 0")){
+                lease.clearCartProducts();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.testdata;
+
+import com.ecommerce.models.User;
+import com.ecommerce.utils.TestConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 💾 会话文件 - 造数结果的紧凑二进制格式，之后的运行直接加载，不必重新注册和登录
+ *
+ * 📄 格式（DataOutputStream，字符串为modified UTF-8）：
+ *   int 魔数"SESS" | short 版本 | UTF 被测系统地址 | long 保存时间（毫秒） | int 会话数
+ *   每个会话：UTF 邮箱 | UTF 密码 | UTF 名 | UTF 姓 | UTF 会话ID | short 购物车商品数 | UTF 商品ID...
+ */
+final class SessionStore {
+
+    private static final int MAGIC = 0x53455353; // "SESS"
+    private static final short VERSION = 1;
+
+    private SessionStore(){}
+
+    /**
+     * 📝 写出会话 - 先写临时文件再改名，写到一半失败不会留下损坏的文件
+     */
+    static void write(File file, List<SessionLease> sessions) throws IOException{
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(!parent.isDirectory() && !parent.mkdirs()){
+            throw new IOException("Cannot create directory " + parent);
+        }
+        File temporary = new File(parent, file.getName() + ".tmp");
+        long now = System.nanoTime();
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))){
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(TestConfig.BASE_URL);
+            long savedAt = System.currentTimeMillis();
+            out.writeLong(savedAt);
+            out.writeInt(sessions.size());
+            for(SessionLease session : sessions){
+                User user = session.getUser();
+                out.writeUTF(user.getEmail());
+                out.writeUTF(user.getPassword());
+                out.writeUTF(user.getFirstName());
+                out.writeUTF(user.getLastName());
+                out.writeUTF(session.getSessionId());
+                // 保存的是登录时刻，加载后会话的剩余有效期不变
+                out.writeLong(savedAt - TimeUnit.NANOSECONDS.toMillis(now - session.loggedInAt()));
+                Set<String> cartProducts = session.cartProducts();
+                out.writeShort(cartProducts.size());
+                for(String productId : cartProducts){
+                    out.writeUTF(productId);
+                }
+            }
+        }
+        if(!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))){
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /**
+     * 📂 读取会话
+     *
+     * @throws IOException 文件损坏、版本不符，或者是针对另一个被测系统地址造的数据
+     */
+    static List<SessionLease> read(File file) throws IOException{
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))){
+            if(in.readInt() != MAGIC){
+                throw new IOException(file + " is not a session file");
+            }
+            short version = in.readShort();
+            if(version != VERSION){
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            String baseUrl = in.readUTF();
+            if(!baseUrl.equals(TestConfig.BASE_URL)){
+                throw new IOException(file + " was seeded against " + baseUrl + ", not " + TestConfig.BASE_URL);
+            }
+            in.readLong(); // 保存时间，目前只用于排查
+
+            long nowMillis = System.currentTimeMillis();
+            long nowNanos = System.nanoTime();
+            int count = in.readInt();
+            List<SessionLease> sessions = new ArrayList<>(count);
+            for(int i = 0; i < count; i++){
+                User user = new User(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                SessionLease session = new SessionLease(user);
+                String sessionId = in.readUTF();
+                long loggedInAtMillis = in.readLong();
+                session.loggedIn(sessionId, nowNanos - TimeUnit.MILLISECONDS.toNanos(nowMillis - loggedInAtMillis));
+                for(int products = in.readShort(); products > 0; products--){
+                    session.markCartChanged(in.readUTF());
+                }
+                sessions.add(session);
+            }
+            return sessions;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.ecommerce.testdata;
+
+import com.ecommerce.models.User;
+import com.ecommerce.utils.TestConfig;
+import org.testng.annotations.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 💾 SessionStore单元测试 - 会话文件写出再读回内容不变，登录时间保留，损坏或不匹配的文件被拒绝
+ */
+public class SessionStoreTest {
+
+    @Test
+    public void roundTripsSessions() throws IOException{
+        long now = System.nanoTime();
+        SessionLease first = lease("first@example.com", "sess-1", now - TimeUnit.MINUTES.toNanos(10));
+        first.markCartChanged("1");
+        first.markCartChanged("7");
+        SessionLease second = lease("第二@example.com", "sess-2", now);
+        File file = tempFile();
+
+        SessionStore.write(file, Arrays.asList(first, second));
+        List<SessionLease> sessions = SessionStore.read(file);
+
+        assertEquals(sessions.size(), 2);
+        SessionLease read = sessions.get(0);
+        assertEquals(read.getUser().getEmail(), "first@example.com");
+        assertEquals(read.getUser().getPassword(), "secret");
+        assertEquals(read.getUser().getFirstName(), "Test");
+        assertEquals(read.getUser().getLastName(), "User");
+        assertEquals(read.getSessionId(), "sess-1");
+        assertEquals(read.cartProducts(), new HashSet<>(Arrays.asList("1", "7")));
+        // 毫秒精度保存，两次换算各有不到1毫秒的误差
+        assertTrue(Math.abs(read.loggedInAt() - first.loggedInAt()) < TimeUnit.MILLISECONDS.toNanos(50),
+                "logged in at drifted by " + (read.loggedInAt() - first.loggedInAt()) + "ns");
+
+        assertEquals(sessions.get(1).getUser().getEmail(), "第二@example.com");
+        assertTrue(sessions.get(1).cartProducts().isEmpty());
+    }
+
+    /**
+     * ♻️ 再次写入时替换原来的文件，不留下临时文件
+     */
+    @Test
+    public void replacesExistingFile() throws IOException{
+        File file = tempFile();
+        SessionStore.write(file, Arrays.asList(lease("a@example.com", "a", System.nanoTime()),
+                lease("b@example.com", "b", System.nanoTime())));
+
+        SessionStore.write(file, Arrays.asList(lease("c@example.com", "c", System.nanoTime())));
+
+        List<SessionLease> sessions = SessionStore.read(file);
+        assertEquals(sessions.size(), 1);
+        assertEquals(sessions.get(0).getSessionId(), "c");
+        assertFalse(new File(file.getParentFile(), file.getName() + ".tmp").exists());
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = ".* is not a session file")
+    public void rejectsOtherFiles() throws IOException{
+        File file = tempFile();
+        try(DataOutputStream out = new DataOutputStream(new FileOutputStream(file))){
+            out.writeInt(0x54524146); // 流量日志的魔数
+        }
+        SessionStore.read(file);
+    }
+
+    @Test(expectedExceptions = IOException.class, expectedExceptionsMessageRegExp = ".* was seeded against .*")
+    public void rejectsSessionsForAnotherBaseUrl() throws IOException{
+        File file = tempFile();
+        try(DataOutputStream out = new DataOutputStream(new FileOutputStream(file))){
+            out.writeInt(0x53455353);
+            out.writeShort(1);
+            out.writeUTF(TestConfig.BASE_URL + "other/");
+        }
+        SessionStore.read(file);
+    }
+
+    private static SessionLease lease(String email, String sessionId, long loggedInAt){
+        SessionLease lease = new SessionLease(new User(email, "secret", "Test", "User"));
+        lease.loggedIn(sessionId, loggedInAt);
+        return lease;
+    }
+
+    private static File tempFile() throws IOException{
+        File file = File.createTempFile("sessions", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -1,48 +1,153 @@
 package com.ecommerce.testdata;
 
 import com.ecommerce.models.User;
+import com.ecommerce.utils.StepLog;
 import com.ecommerce.utils.TestConfig;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * 🏭 测试数据管理类 - 测试数据的"工厂"
  * 职责：集中管理所有测试用例需要的数据，保证测试数据的一致性和可维护性
  */
 public class TestDataManager {
 
+    /** 🔢 每个线程一次领取的序号段大小 - 全局计数器每生成这么多用户才被访问一次 */
+    private static final int SEQUENCE_BLOCK = 1024;
+
+    private static final AtomicLong NEXT_BLOCK = new AtomicLong();
+
+    /** 🧵 当前线程领取的序号段：{下一个序号, 段的结束序号（不含）} */
+    private static final ThreadLocal<long[]> BLOCK = ThreadLocal.withInitial(() -> new long[2]);
+
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Carol", "David", "Emma", "Frank", "Grace", "Henry",
+            "Ivy", "Jack", "Kate", "Leo", "Mia", "Noah", "Olivia", "Paul"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Brown", "Taylor", "Miller", "Wilson", "Moore",
+            "Clark", "Lewis", "Walker", "Young", "King", "Wright", "Scott", "Green", "Baker"};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Maple Dr", "Cedar Ln", "Pine Rd", "Elm St",
+            "Lake View", "Hill Rd"};
+    private static final String[] CITIES = {"Springfield", "Riverton", "Fairview", "Georgetown", "Salem", "Madison",
+            "Ashland", "Clinton"};
+    private static final String[] STATES = {"CA", "NY", "TX", "WA", "IL", "FL", "OR", "MA"};
+    private static final char[] DIGITS = "0123456789".toCharArray();
+
+    static {
+        StepLog.info("Test users: run id {}, seed {} (reproduce with -Dtest.user.seed={})",
+                TestConfig.TestUser.RUN_ID, TestConfig.TestUser.SEED, TestConfig.TestUser.SEED);
+    }
+
     /**
-     * 🎯 获取默认测试用户 - 测试数据的"标准模板"
+     * 🎯 获取默认测试用户 - 保留给旧代码的入口
      *
-     * 📝 方法签名解析：
-     * public static User getDefaultUser()
-     *   ↑       ↑     ↑        ↑
-     *   访问修饰符 静态关键字 返回类型  方法名
+     * @return User 与newUser()相同：每次调用都是一个新的唯一用户，不再是固定的共享账号
+     * @deprecated 固定的共享账号在并行场景中互相干扰，已经移除；请直接调用 {@link #newUser()}
+     */
+    @Deprecated
+    public static User getDefaultUser(){
+        return newUser();
+    }
+
+    /**
+     * 🏭 生成一个唯一的测试用户 - 并行场景和压测中的每个虚拟用户都注册不同的邮箱
      *
-     * @return User 返回一个完全配置好的User对象，包含所有必要的测试数据
+     * 🔢 唯一性：邮箱由 运行标识 + 序号 组成。每个线程从全局计数器一次领取一段序号，
+     *    段内用线程自己的游标递增，不加锁，线程之间也几乎不竞争
+     * 🎲 可复现：除邮箱中的运行标识外，用户的所有数据只由 种子 + 序号 决定，见 {@link #user(long)}
      *
-     * 🏗️ 这个方法的作用：
-     * 1. 创建标准的测试用户对象
-     * 2. 设置所有必要的用户属性
-     * 3. 返回可以直接使用的测试数据
+     * @return User 已填好全部注册字段的新用户
      */
+    public static User newUser(){
+        long[] block = BLOCK.get();
+        if(block[0] == block[1]){
+            block[0] = NEXT_BLOCK.getAndIncrement() * SEQUENCE_BLOCK;
+            block[1] = block[0] + SEQUENCE_BLOCK;
+        }
+        return user(block[0]++);
+    }
 
-    public static User getDefaultUser(){
-        // 🆕 创建新的User对象实例 - 空的"用户表格"
-        User user = new User();
+    /**
+     * 🎲 按序号生成测试用户 - 相同的 test.user.seed 和序号总是得到相同的数据
+     * 日志中失败用户的邮箱带有序号，用同一个种子调用本方法即可重新得到这个用户
+     *
+     * @param sequence 用户序号（邮箱中最后一段数字）
+     * @return User 新的用户对象
+     */
+    public static User user(long sequence){
+        // SplittableRandom的混合函数得到两个64位随机数，生成一个用户不需要创建随机数对象；
+        // 各字段取的位段互不重叠，字段之间没有相关性：
+        //   bits: 名0-3 姓4-7 门牌号8-17 街道18-20 城市21-23 州24-26 邮编27-43
+        //   more: 电话0-33 密码34-63
+        long bits = mix64(TestConfig.TestUser.SEED + (sequence + 1) * 0x9E3779B97F4A7C15L);
+        long more = mix64(bits ^ 0x632BE59BD9B4E019L);
 
-        // 📝 使用setter方法填充用户数据 - 从TestConfig获取预设值
-        user.setEmail(TestConfig.TestUser.EMAIL);
-        user.setPassword(TestConfig.TestUser.PASSWORD);
-        user.setFirstName(TestConfig.TestUser.FIRST_NAME);
-        user.setLastName(TestConfig.TestUser.LAST_NAME);
-        user.setAddress1(TestConfig.TestUser.ADDRESS1);
+        User user = new User();
+        user.setEmail(new StringBuilder(48).append("user.").append(TestConfig.TestUser.RUN_ID)
+                .append('.').append(sequence).append("@example.com").toString());
+        user.setPassword(new StringBuilder(16).append("Pw").append(Long.toString(more >>> 34, 36)).append('1').toString());
+        user.setFirstName(FIRST_NAMES[(int) (bits & 15)]);
+        user.setLastName(LAST_NAMES[(int) (bits >>> 4 & 15)]);
+        user.setAddress1(new StringBuilder(24).append(1 + (bits >>> 8 & 1023)).append(' ')
+                .append(STREETS[(int) (bits >>> 18 & 7)]).toString());
         user.setAddress2(TestConfig.TestUser.ADDRESS2);
-        user.setZipcode(TestConfig.TestUser.ZIPCODE);
-        user.setCity(TestConfig.TestUser.CITY);
-        user.setState(TestConfig.TestUser.STATE);
+        user.setZipcode(digits(bits >>> 27 & 0x1FFFF, 5));
+        user.setCity(CITIES[(int) (bits >>> 21 & 7)]);
+        user.setState(STATES[(int) (bits >>> 24 & 7)]);
         user.setCountry(TestConfig.TestUser.COUNTRY);
-        user.setPhone(TestConfig.TestUser.PHONE);
-
-        // 📤 返回完全配置好的User对象 - "成品用户
+        user.setPhone(digits(more & 0x3FFFFFFFFL, 10));
         return user;
     }
-}
\ No newline at end of file
+
+    /** 🔢 非负的value按十进制取最低的length位，生成固定长度的数字串（邮编、电话号码） */
+    private static String digits(long value, int length){
+        char[] chars = new char[length];
+        long remaining = value;
+        for(int i = length - 1; i >= 0; i--){
+            chars[i] = DIGITS[(int) (remaining % 10)];
+            remaining /= 10;
+        }
+        return new String(chars);
+    }
+
+    private static long mix64(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 🔄 注册表单参数 - 将User对象转换为/register需要的HTTP表单参数
+     *
+     * @param user User对象
+     * @return Map<String, String> HTTP表单参数
+     */
+    public static Map<String,String> registrationParams(User user){
+        Map<String,String> params = new HashMap<>();
+        params.put("email", user.getEmail());
+        params.put("password", user.getPassword());
+        params.put("firstName", user.getFirstName());
+        params.put("lastName", user.getLastName());
+        params.put("address1", user.getAddress1());
+        params.put("address2", user.getAddress2());
+        params.put("zipcode", user.getZipcode());
+        params.put("city", user.getCity());
+        params.put("state", user.getState());
+        params.put("country", user.getCountry());
+        params.put("phone", user.getPhone());
+        return params;
+    }
+
+    /**
+     * 🔐 登录表单参数 - /login需要的邮箱和密码
+     *
+     * @param user User对象
+     * @return Map<String, String> HTTP表单参数
+     */
+    public static Map<String,String> loginParams(User user){
+        Map<String,String> params = new HashMap<>();
+        params.put("email", user.getEmail());
+        params.put("password", user.getPassword());
+        return params;
+    }
+}
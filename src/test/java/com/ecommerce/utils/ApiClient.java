@@ -1,73 +1,188 @@
 package com.ecommerce.utils;
 
-import io.restassured.RestAssured;
-import io.restassured.config.HttpClientConfig;
 import io.restassured.config.RestAssuredConfig;
-import io.restassured.http.ContentType;
+import io.restassured.http.Cookie;
+import io.restassured.http.Header;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * 🛠️ HTTP客户端封装类 - 测试框架的"通信专家"
  * 职责：封装所有HTTP请求细节，提供简洁易用的API给测试步骤使用
+ *
+ * 🧵 线程安全：ApiClient是不可变对象，基础URL、配置和会话都在每次请求时传入，
+ * 不修改任何RestAssured全局状态，因此并行场景之间不会互相干扰
+ *
+ * 🚚 传输层：请求通过环境的HttpTransport发送（http.transport=restassured或jdk），
+ * 两种传输层返回的都是RestAssured的Response，步骤代码不受影响
+ *
+ * 🌍 环境：无参构造函数使用当前线程正在运行的Environment（基础URL、超时、连接池、延迟记录器），
+ * 同一个JVM中不同环境的场景互不影响
+ *
+ * 🗄️ 缓存：启用http.cache时，不带Cookie的GET请求经过环境的HttpCache（按Cache-Control和ETag重新验证），
+ * 缓存命中不发送请求，也不记录延迟
+ *
+ * 📼 录制：设置traffic.record.file时，每个发出的请求和响应都写入TrafficRecorder的二进制日志，
+ * 之后可以用TrafficReplay按原来的节奏或更快的速度回放
+ *
+ * 🔬 剖析：StepProfiler插件启用时，每个请求的耗时拆成客户端CPU时间和网络等待，记到发出它的Cucumber步骤
+ *
+ * ✈️ JFR：每个请求提交一个HttpRequestEvent（端点、状态码、响应字节数、连接是否复用），没有录制时几乎没有开销
  */
 public class ApiClient {
 
+    /** 🍪 会话Cookie的名称 */
+    private static final String SESSION_COOKIE = "session";
+
+    /** 🌐 基础URL - 所有请求的起点 */
+    private final String baseUrl;
+
+    /** 🚚 传输层 - 超时、连接池等都在其中 */
+    private final HttpTransport transport;
+
+    /** 🍪 随请求发送的Cookie（包括会话ID），为空时发送匿名请求 */
+    private final Map<String,String> cookies;
+
+    /** ⏱️ 记录请求耗时的记录器 - 每个环境一个 */
+    private final LatencyRecorder latency;
+
+    /** 🗄️ 匿名GET请求的缓存，为null时不缓存 */
+    private final HttpCache cache;
+
     /**
-     * 📝 HTTP请求规范对象 - 所有请求的配置基础
-     * 包含认证信息、超时设置、内容类型等通用配置
+     * 🏗️ 构造函数 - 访问当前线程正在运行的环境（未配置环境时即TestConfig中的基础URL和默认配置）
      */
-    private RequestSpecification request;
+    public ApiClient(){
+        this(Environment.current());
+    }
 
     /**
-     * 🏗️ 构造函数 - 初始化HTTP客户端配置
-     * 设置所有请求的通用参数，确保一致性
+     * 🏗️ 构造函数 - 访问指定环境
+     *
+     * @param environment 被测环境
      */
-    public ApiClient(){
-        // 🌐 设置基础URL - 所有请求的起点
-        RestAssured.baseURI = TestConfig.BASE_URL;
+    public ApiClient(Environment environment){
+        this(environment.baseUrl(), environment.transport(), Collections.emptyMap(), environment.latency(),
+                environment.cache());
+    }
 
-        // ⏱️ 配置超时设置 - 防止请求无限期挂起
-        RestAssuredConfig config = RestAssuredConfig.config()
-                .httpClient(HttpClientConfig.httpClientConfig()
-                        .setParam("http.connection.timeout", TestConfig.TIMEOUT)  // 🔌 连接建立超时
-                        .setParam("http.socket.timeout", TestConfig.TIMEOUT));    // 📡 数据传输超时
+    /**
+     * 🏗️ 构造函数 - 使用默认传输层访问另一个基础URL（例如随机端口上的内置替身服务器）
+     *
+     * @param baseUrl 被测系统的基础URL
+     */
+    public ApiClient(String baseUrl){
+        this(baseUrl, Environment.defaultEnvironment().transport());
+    }
 
-        this.request = RestAssured.given()
-                .config(config)
-                .contentType(ContentType.URLENC)
-                .accept(ContentType.HTML)
-                .redirects().follow(false)
-                .urlEncodingEnabled(true);
+    /**
+     * 🏗️ 构造函数 - 使用指定的传输层访问一个基础URL（例如基准测试对比两种传输层）
+     *
+     * @param baseUrl 被测系统的基础URL
+     * @param transport 传输层
+     */
+    public ApiClient(String baseUrl, HttpTransport transport){
+        this(baseUrl, transport, Collections.emptyMap(), LatencyRecorder.shared(), null);
     }
 
     /**
-     * 🔐 会话管理 - 为请求添加Session Cookie
-     * 实现链式调用，方便连续设置多个参数
+     * 🏗️ 构造函数 - 显式指定基础URL、配置和Cookie
      *
-     * @param sessionId 会话ID，登录后获得的身份凭证
-     * @return ApiClient 返回当前对象，支持链式调用
+     * @param baseUrl 被测系统的基础URL
+     * @param config RestAssured请求配置
+     * @param cookies 随每个请求发送的Cookie
      */
+    public ApiClient(String baseUrl, RestAssuredConfig config, Map<String,String> cookies){
+        this(baseUrl, new RestAssuredTransport(config), cookies, LatencyRecorder.shared(), null);
+    }
 
+    private ApiClient(String baseUrl, HttpTransport transport, Map<String,String> cookies, LatencyRecorder latency,
+                      HttpCache cache){
+        this.baseUrl = baseUrl;
+        this.transport = transport;
+        this.cookies = Collections.unmodifiableMap(new LinkedHashMap<>(cookies));
+        this.latency = latency;
+        this.cache = cache;
+    }
+
+    /**
+     * 🔐 会话管理 - 返回一个携带Session Cookie的新客户端
+     * 当前对象保持不变，因此同一个ApiClient可以安全地被多个线程使用
+     *
+     * @param sessionId 会话ID，登录后获得的身份凭证
+     * @return ApiClient 携带该会话的新客户端，支持链式调用：apiClient.withSession(...).get(...)
+     */
     public ApiClient withSession(String sessionId){
+        Map<String,String> jar = new LinkedHashMap<>(cookies);
         if(sessionId != null && !sessionId.isEmpty()){
-            // 🍪 添加Session Cookie到请求头
-            this.request = request.cookie("session",sessionId);
+            jar.put(SESSION_COOKIE, sessionId);
+        }else{
+            jar.remove(SESSION_COOKIE);
         }
+        return new ApiClient(baseUrl, transport, jar, latency, cache);
+    }
 
-        return this;// 🔗 返回this支持链式调用：apiClient.withSession(...).get(...)
+    /**
+     * 🍪 Cookie管理 - 返回一个携带这些Cookie的新客户端（替换当前所有Cookie）
+     *
+     * @param cookies Cookie名称和值
+     * @return ApiClient 携带这些Cookie的新客户端
+     */
+    public ApiClient withCookies(Map<String,String> cookies){
+        return new ApiClient(baseUrl, transport, cookies, latency, cache);
     }
 
     /**
-     * 📨 GET请求 - 发送HTTP GET请求
+     * 🗄️ 返回一个不使用缓存的新客户端 - 测量被测系统本身的延迟和吞吐量时使用
+     */
+    public ApiClient withoutCache(){
+        return cache == null ? this : new ApiClient(baseUrl, transport, cookies, latency, null);
+    }
+
+    /**
+     * 📝 创建RestAssured请求规范 - 基准测试直接调用它，单独测量构建请求的开销
+     *
+     * @throws IllegalStateException 当前传输层不是RestAssured
+     */
+    public RequestSpecification newRequest(){
+        if(!(transport instanceof RestAssuredTransport)){
+            throw new IllegalStateException("newRequest() requires the RestAssured transport, not "
+                    + transport.getClass().getSimpleName());
+        }
+        return ((RestAssuredTransport) transport).newRequest(baseUrl, cookies);
+    }
+
+    /**
+     * 📨 GET请求 - 发送HTTP GET请求，匿名请求在启用缓存时先查缓存
      *
      * @param endpoint 请求端点（不包含基础URL）
      * @return Response HTTP响应对象
      */
     public Response get(String endpoint){
-        return request.get(endpoint);
+        return get(endpoint, endpoint);
+    }
+
+    /**
+     * 📨 GET请求，耗时记录在latencyKey下（重定向的每一跳不和直接请求同一端点混在一起）
+     */
+    private Response get(String endpoint, String latencyKey){
+        if(cache == null || !cookies.isEmpty()){
+            return execute(TrafficRecorder.GET, endpoint, latencyKey, null,
+                    () -> transport.get(baseUrl, endpoint, cookies, Collections.emptyMap()));
+        }
+        // 📌 缓存键包含基础URL，重定向到其它站点的绝对地址不会和本站页面混在一起
+        return cache.get(endpoint.startsWith("http") ? endpoint : baseUrl + endpoint,
+                validators -> execute(TrafficRecorder.GET, endpoint, latencyKey, null,
+                        () -> transport.get(baseUrl, endpoint, cookies, validators)));
     }
 
     /**
@@ -78,7 +193,263 @@ public class ApiClient {
      * @return Response HTTP响应对象
      */
     public Response post(String endpoint, Map<String,String> formParams){
-        return request.formParams(formParams).post(endpoint);
+        return post(endpoint, endpoint, formParams);
+    }
+
+    private Response post(String endpoint, String latencyKey, Map<String,String> formParams){
+        return execute(TrafficRecorder.POST, endpoint, latencyKey, formParams,
+                () -> transport.post(baseUrl, endpoint, cookies, formParams));
+    }
+
+    /**
+     * 🔄 GET请求并跟随重定向 - 整条链（包括第一个请求）的耗时会以"端点+redirects"记录到LatencyRecorder
+     *
+     * @param endpoint 请求端点
+     * @return RedirectChain 最终响应、每一跳耗时和Cookie
+     */
+    public RedirectChain getFollowingRedirects(String endpoint){
+        long start = System.nanoTime();
+        RedirectChain chain = followRedirects(get(endpoint), TrafficRecorder.GET, null, start);
+        // 📌 先去掉查询参数再加后缀，否则"+redirects"会随查询参数一起被去掉，和单个请求混在一起
+        record(LatencyRecorder.normalize(endpoint) + "+redirects", chain.getFinalResponse().getStatusCode(),
+                chain.getTotalNanos());
+        return chain;
+    }
+
+    /**
+     * 🔄 跟随重定向 - 从一个已有的GET响应开始，沿Location头继续请求直到不再重定向
+     * Cookie罐以当前客户端的Cookie为起点，每一跳都应用响应中的Set-Cookie（空值表示删除），
+     * 最多跟随TestConfig.MAX_REDIRECTS跳，所有请求都走同一个连接池
+     *
+     * 📌 每一跳的耗时记录在"地址+hop"下（例如 /login+hop），不计入直接请求该地址的延迟
+     *
+     * @param response 可能是重定向的响应
+     * @return RedirectChain 没有重定向时最终响应就是response本身
+     */
+    public RedirectChain followRedirects(Response response){
+        return followRedirects(response, TrafficRecorder.GET, null, System.nanoTime());
+    }
+
+    /**
+     * 🔄 跟随POST请求的重定向 - 307/308按原方法重新提交同样的表单，301/302/303改为GET且不带请求体
+     *
+     * @param response POST请求的响应
+     * @param formParams 该POST请求提交的表单参数
+     * @return RedirectChain 没有重定向时最终响应就是response本身
+     */
+    public RedirectChain followRedirects(Response response, Map<String,String> formParams){
+        return followRedirects(response, TrafficRecorder.POST, formParams, System.nanoTime());
+    }
+
+    private RedirectChain followRedirects(Response response, byte method, Map<String,String> formParams, long start){
+        Map<String,String> jar = new LinkedHashMap<>(cookies);
+        applySetCookies(jar, response);
+
+        List<RedirectChain.Hop> hops = new ArrayList<>();
+        Response current = response;
+        String location = getLocationHeader(current);
+        while(isRedirect(current) && location != null){
+            if(hops.size() >= TestConfig.MAX_REDIRECTS){
+                throw new IllegalStateException("Too many redirects (" + hops.size() + ") starting from "
+                        + getLocationHeader(response));
+            }
+            // 🔁 307/308要求保持方法和请求体；301/302/303按浏览器的做法改为GET
+            int status = current.getStatusCode();
+            if(status != 307 && status != 308){
+                method = TrafficRecorder.GET;
+                formParams = null;
+            }
+            String hopKey = LatencyRecorder.normalize(location) + "+hop";
+            long hopStart = System.nanoTime();
+            current = method == TrafficRecorder.POST
+                    ? withCookies(jar).post(location, hopKey, formParams)
+                    : withCookies(jar).get(location, hopKey);
+            hops.add(new RedirectChain.Hop(location, current.getStatusCode(), System.nanoTime() - hopStart));
+            applySetCookies(jar, current);
+            location = getLocationHeader(current);
+        }
+        return new RedirectChain(response, current, hops, jar, System.nanoTime() - start);
+    }
+
+    /**
+     * 📍 获取重定向地址 - 从HTTP响应中提取Location头
+     * 处理header名称大小写不敏感的问题
+     *
+     * @param response HTTP响应对象
+     * @return String 重定向地址，如果不存在返回null
+     */
+    public String getLocationHeader(Response response){
+        for(Header header : response.getHeaders()){
+            if("location".equalsIgnoreCase(header.getName())){
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRedirect(Response response){
+        int status = response.getStatusCode();
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+
+    /**
+     * 🍪 把响应中的Set-Cookie应用到Cookie罐 - 空值或Max-Age=0表示删除
+     */
+    private static void applySetCookies(Map<String,String> jar, Response response){
+        for(Cookie cookie : response.getDetailedCookies()){
+            if(cookie.getValue() == null || cookie.getValue().isEmpty() || cookie.getMaxAge() == 0){
+                jar.remove(cookie.getName());
+            }else{
+                jar.put(cookie.getName(), cookie.getValue());
+            }
+        }
+    }
+
+    /**
+     * ⚡ 异步GET请求 - 立即返回；jdk传输层使用异步I/O，不占用线程等待响应
+     *
+     * @param endpoint 请求端点（不包含基础URL）
+     * @return CompletableFuture<Response> 请求完成时得到响应
+     */
+    public CompletableFuture<Response> getAsync(String endpoint){
+        if(cache != null && cookies.isEmpty()){
+            return CompletableFuture.supplyAsync(LatencyRecorder.propagate(() -> get(endpoint)), RequestExecutors.shared());
+        }
+        return executeAsync(TrafficRecorder.GET, endpoint, null,
+                () -> transport.getAsync(baseUrl, endpoint, cookies, Collections.emptyMap()));
+    }
+
+    /**
+     * ⚡ 异步POST请求 - 立即返回；jdk传输层使用异步I/O，不占用线程等待响应
+     *
+     * @param endpoint 请求端点
+     * @param formParams 表单参数键值对
+     * @return CompletableFuture<Response> 请求完成时得到响应
+     */
+    public CompletableFuture<Response> postAsync(String endpoint, Map<String,String> formParams){
+        return executeAsync(TrafficRecorder.POST, endpoint, formParams,
+                () -> transport.postAsync(baseUrl, endpoint, cookies, formParams));
+    }
+
+    /**
+     * 📦 批量请求 - 同时发送多个请求，最多maxConcurrency个并发
+     * 示例：apiClient.sendAll(List.of(c -> c.get("/"), c -> c.get("/cart")), 2)
+     *
+     * @param requests 每个请求都以当前客户端为参数发送
+     * @param maxConcurrency 最大并发请求数
+     * @return 所有响应，顺序与requests一致
+     */
+    public CompletableFuture<List<Response>> sendAll(List<Function<ApiClient,Response>> requests, int maxConcurrency){
+        List<Supplier<Response>> tasks = new ArrayList<>(requests.size());
+        for(Function<ApiClient,Response> request : requests){
+            tasks.add(LatencyRecorder.propagate(() -> request.apply(this)));
+        }
+        return RequestExecutors.runAll(tasks, maxConcurrency);
+    }
+
+    /**
+     * 🚀 执行请求 - 把耗时记录到LatencyRecorder（传输层返回时响应体已经读完），
+     * 设置了traffic.record.file时同时写入流量日志；在剖析的步骤中时，把耗时按客户端CPU时间和网络等待记到该步骤
+     */
+    private Response execute(byte method, String endpoint, String latencyKey, Map<String,String> formParams,
+                             Supplier<Response> sender){
+        StepProfiler.Step step = StepProfiler.current();
+        long cpuStart = step != null ? StepProfiler.threadCpuNanos() : 0;
+        HttpRequestEvent event = new HttpRequestEvent();
+        if(event.isEnabled()){
+            HttpConnectionPool.clearLastLease();
+        }
+        long start = System.nanoTime();
+        long measuredStart = LatencyRecorder.measuredStart(start);
+        event.begin();
+        Response response = null;
+        try{
+            response = sender.get();
+            recordTraffic(method, endpoint, formParams, start, response);
+            return response;
+        }finally{
+            event.end();
+            long end = System.nanoTime();
+            long duration = end - start;
+            record(latencyKey, response != null ? response.getStatusCode() : 0, end - measuredStart);
+            if(step != null){
+                step.request(profileName(method, endpoint), duration, StepProfiler.threadCpuNanos() - cpuStart);
+            }
+            if(event.shouldCommit()){
+                Boolean reused = HttpConnectionPool.lastLeaseReused();
+                commit(event, method, endpoint, response, reused == null ? "unknown" : reused ? "reused" : "new", false);
+            }
+        }
+    }
+
+    /**
+     * ⚡ 执行异步请求 - 完成时记录耗时；场景记录器和剖析中的步骤在发送时取得，完成回调可能在其它线程上执行
+     */
+    private CompletableFuture<Response> executeAsync(byte method, String endpoint, Map<String,String> formParams,
+                                                     Supplier<CompletableFuture<Response>> sender){
+        LatencyRecorder scenario = LatencyRecorder.scenario();
+        StepProfiler.Step step = StepProfiler.current();
+        long cpuStart = step != null ? StepProfiler.threadCpuNanos() : 0;
+        HttpRequestEvent event = new HttpRequestEvent();
+        long start = System.nanoTime();
+        long measuredStart = LatencyRecorder.measuredStart(start);
+        event.begin();
+        CompletableFuture<Response> future = sender.get();
+        long sendCpu = step != null ? StepProfiler.threadCpuNanos() - cpuStart : 0;
+        return future.whenComplete((response, error) -> {
+            event.end();
+            long end = System.nanoTime();
+            long duration = end - start;
+            if(response != null){
+                recordTraffic(method, endpoint, formParams, start, response);
+            }
+            record(endpoint, response != null ? response.getStatusCode() : 0, end - measuredStart, scenario);
+            if(step != null){
+                step.request(profileName(method, endpoint), duration, sendCpu);
+            }
+            if(event.shouldCommit()){
+                commit(event, method, endpoint, response, "unknown", true);
+            }
+        });
+    }
+
+    /** ✈️ 提交JFR事件 - 只在正在录制且超过阈值时调用，读取响应体长度的开销不会落在空闲路径上 */
+    private static void commit(HttpRequestEvent event, byte method, String endpoint, Response response,
+                               String connection, boolean async){
+        event.method = method == TrafficRecorder.POST ? "POST" : "GET";
+        event.endpoint = endpoint;
+        event.route = LatencyRecorder.normalize(endpoint);
+        event.status = response != null ? response.getStatusCode() : 0;
+        event.responseBytes = response != null ? response.asByteArray().length : 0;
+        event.connection = connection;
+        event.async = async;
+        event.commit();
+    }
+
+    /** 🔬 步骤剖析中的请求名称，例如"GET /product/{id}" */
+    private static String profileName(byte method, String endpoint){
+        return (method == TrafficRecorder.POST ? "POST " : "GET ") + LatencyRecorder.normalize(endpoint);
+    }
+
+    /** 📼 写入流量日志（未设置traffic.record.file时什么也不做） */
+    private void recordTraffic(byte method, String endpoint, Map<String,String> formParams, long start,
+                               Response response){
+        TrafficRecorder traffic = TrafficRecorder.shared();
+        if(traffic != null){
+            traffic.record(method, endpoint, formParams, cookies, start, System.nanoTime() - start, response);
+        }
+    }
+
+    /** ⏱️ 记录到环境的记录器，在场景中时同时记录到场景记录器 */
+    private void record(String endpoint, int statusCode, long durationNanos){
+        record(endpoint, statusCode, durationNanos, LatencyRecorder.scenario());
+    }
+
+    private void record(String endpoint, int statusCode, long durationNanos, LatencyRecorder scenario){
+        latency.record(endpoint, statusCode, durationNanos);
+        if(scenario != null){
+            scenario.record(endpoint, statusCode, durationNanos);
+        }
     }
 
     /**
@@ -89,6 +460,6 @@ public class ApiClient {
      * @return String session cookie值，如果不存在返回null
      */
     public String extractSessionCookie(Response response){
-        return response.getCookie("session");
+        return response.getCookie(SESSION_COOKIE);
     }
 }
\ No newline at end of file
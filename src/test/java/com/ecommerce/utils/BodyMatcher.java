@@ -0,0 +1,318 @@
+package com.ecommerce.utils;
+
+import io.restassured.response.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * 🔍 响应体多模式匹配器 - 一次扫描同时检查多个关键字
+ * 职责：替代对同一个响应体反复调用asString().contains(...)和Pattern.compile(...)
+ *
+ * 🎯 设计要点：
+ *   - 直接扫描响应的原始字节，不需要先把整个响应体解码成String
+ *   - 所有关键字预编译成Aho-Corasick自动机，每个字节只处理一次
+ *   - 支持三种探针：区分大小写的文本、忽略大小写的文本（仅ASCII）、紧跟在前缀后的数字（例如 CART (\d+)）
+ *   - 所有探针都有结果后提前结束扫描
+ *
+ * 🎯 使用方式：
+ *   static final BodyMatcher CART_PAGE = BodyMatcher.builder().contains("cartIcon").numberAfter("CART ").build();
+ *   BodyMatcher.Result page = CART_PAGE.scan(response);
+ *   page.contains("cartIcon"); page.number("CART ");
+ *
+ * 🧵 BodyMatcher构建后不可变，可以被所有线程共享
+ */
+public final class BodyMatcher {
+
+    private static final int ALPHABET = 256;
+
+    /** 区分大小写的自动机（包含contains和numberAfter的前缀） */
+    private final Automaton exact;
+    /** 忽略大小写的自动机，没有这类探针时为null */
+    private final Automaton folded;
+
+    private final Map<String, Integer> containsIndex;
+    private final Map<String, Integer> ignoreCaseIndex;
+    private final Map<String, Integer> numberIndex;
+    private final Kind[] kinds;
+    private final int probeCount;
+
+    private BodyMatcher(Builder builder){
+        this.containsIndex = new HashMap<>(builder.containsIndex);
+        this.ignoreCaseIndex = new HashMap<>(builder.ignoreCaseIndex);
+        this.numberIndex = new HashMap<>(builder.numberIndex);
+        this.probeCount = builder.probes.size();
+
+        List<byte[]> exactPatterns = new ArrayList<>();
+        List<Integer> exactProbes = new ArrayList<>();
+        List<byte[]> foldedPatterns = new ArrayList<>();
+        List<Integer> foldedProbes = new ArrayList<>();
+        for(int probe = 0; probe < builder.probes.size(); probe++){
+            Probe definition = builder.probes.get(probe);
+            if(definition.kind == Kind.IGNORE_CASE){
+                foldedPatterns.add(fold(definition.pattern));
+                foldedProbes.add(probe);
+            }else{
+                exactPatterns.add(definition.pattern);
+                exactProbes.add(probe);
+            }
+        }
+        this.exact = new Automaton(exactPatterns, exactProbes);
+        this.folded = foldedPatterns.isEmpty() ? null : new Automaton(foldedPatterns, foldedProbes);
+        this.kinds = new Kind[probeCount];
+        for(int probe = 0; probe < probeCount; probe++){
+            kinds[probe] = builder.probes.get(probe).kind;
+        }
+    }
+
+    /**
+     * 🏭 创建构建器
+     */
+    public static Builder builder(){
+        return new Builder();
+    }
+
+    /**
+     * 🔍 扫描响应体
+     */
+    public Result scan(Response response){
+        return scan(response.asByteArray());
+    }
+
+    /**
+     * 🔍 扫描字节数组 - 只遍历一次，所有探针都有结果时提前结束
+     */
+    public Result scan(byte[] body){
+        boolean[] found = new boolean[probeCount];
+        long[] numbers = new long[probeCount];
+        Arrays.fill(numbers, -1);
+        int remaining = probeCount;
+
+        int exactState = 0;
+        int foldedState = 0;
+        for(int position = 0; position < body.length && remaining > 0; position++){
+            int symbol = body[position] & 0xFF;
+
+            exactState = exact.next(exactState, symbol);
+            for(int probe : exact.outputs[exactState]){
+                if(found[probe]){
+                    continue;
+                }
+                if(kinds[probe] == Kind.NUMBER_AFTER){
+                    long number = parseNumber(body, position + 1);
+                    if(number < 0){
+                        continue; // 前缀后面没有数字，继续找下一次出现
+                    }
+                    numbers[probe] = number;
+                }
+                found[probe] = true;
+                remaining--;
+            }
+
+            if(folded != null){
+                foldedState = folded.next(foldedState, foldByte(symbol));
+                for(int probe : folded.outputs[foldedState]){
+                    if(!found[probe]){
+                        found[probe] = true;
+                        remaining--;
+                    }
+                }
+            }
+        }
+        return new Result(found, numbers);
+    }
+
+    /**
+     * 🔢 读取从start开始的十进制数字，没有数字时返回-1
+     */
+    private static long parseNumber(byte[] body, int start){
+        long value = -1;
+        for(int position = start; position < body.length; position++){
+            int digit = body[position] - '0';
+            if(digit < 0 || digit > 9){
+                break;
+            }
+            value = (value < 0 ? 0 : value * 10) + digit;
+        }
+        return value;
+    }
+
+    private static int foldByte(int symbol){
+        return symbol >= 'A' && symbol <= 'Z' ? symbol + ('a' - 'A') : symbol;
+    }
+
+    private static byte[] fold(byte[] pattern){
+        byte[] folded = new byte[pattern.length];
+        for(int i = 0; i < pattern.length; i++){
+            folded[i] = (byte) foldByte(pattern[i] & 0xFF);
+        }
+        return folded;
+    }
+
+    /**
+     * 📋 扫描结果 - 按构建时使用的关键字查询
+     */
+    public final class Result {
+        private final boolean[] found;
+        private final long[] numbers;
+
+        private Result(boolean[] found, long[] numbers){
+            this.found = found;
+            this.numbers = numbers;
+        }
+
+        /** ✅ 响应体是否包含该文本（区分大小写） */
+        public boolean contains(String literal){
+            return found[index(containsIndex, literal)];
+        }
+
+        /** ✅ 响应体是否包含该文本（忽略ASCII大小写） */
+        public boolean containsIgnoreCase(String literal){
+            return found[index(ignoreCaseIndex, literal)];
+        }
+
+        /** 🔢 第一次出现的"前缀 + 数字"中的数字，没有出现时返回-1 */
+        public long number(String prefix){
+            return numbers[index(numberIndex, prefix)];
+        }
+
+        private int index(Map<String, Integer> probes, String key){
+            Integer probe = probes.get(key);
+            if(probe == null){
+                throw new IllegalArgumentException("No such probe registered in this BodyMatcher: " + key);
+            }
+            return probe;
+        }
+    }
+
+    /**
+     * 🔧 构建器 - 注册所有需要检查的探针
+     */
+    public static final class Builder {
+        private final List<Probe> probes = new ArrayList<>();
+        private final Map<String, Integer> containsIndex = new HashMap<>();
+        private final Map<String, Integer> ignoreCaseIndex = new HashMap<>();
+        private final Map<String, Integer> numberIndex = new HashMap<>();
+
+        private Builder(){}
+
+        /** ➕ 区分大小写的文本 */
+        public Builder contains(String literal){
+            return add(containsIndex, literal, Kind.CONTAINS);
+        }
+
+        /** ➕ 忽略ASCII大小写的文本 */
+        public Builder containsIgnoreCase(String literal){
+            return add(ignoreCaseIndex, literal, Kind.IGNORE_CASE);
+        }
+
+        /** ➕ 紧跟在前缀后面的数字，相当于正则 prefix(\d+) */
+        public Builder numberAfter(String prefix){
+            return add(numberIndex, prefix, Kind.NUMBER_AFTER);
+        }
+
+        public BodyMatcher build(){
+            return new BodyMatcher(this);
+        }
+
+        private Builder add(Map<String, Integer> index, String literal, Kind kind){
+            if(literal.isEmpty()){
+                throw new IllegalArgumentException("Probe must not be empty");
+            }
+            if(!index.containsKey(literal)){
+                index.put(literal, probes.size());
+                probes.add(new Probe(literal.getBytes(StandardCharsets.UTF_8), kind));
+            }
+            return this;
+        }
+    }
+
+    private enum Kind { CONTAINS, IGNORE_CASE, NUMBER_AFTER }
+
+    private static final class Probe {
+        final byte[] pattern;
+        final Kind kind;
+
+        Probe(byte[] pattern, Kind kind){
+            this.pattern = pattern;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * 🤖 Aho-Corasick自动机 - 预先展开成完整的状态转移表，扫描时每个字节一次查表
+     */
+    private static final class Automaton {
+        private final int[] transitions;
+        private final int[][] outputs;
+
+        Automaton(List<byte[]> patterns, List<Integer> probeIds){
+            // 1️⃣ 构建字典树
+            List<int[]> gotoTable = new ArrayList<>();
+            List<List<Integer>> output = new ArrayList<>();
+            gotoTable.add(newRow());
+            output.add(new ArrayList<>());
+            for(int i = 0; i < patterns.size(); i++){
+                int state = 0;
+                for(byte b : patterns.get(i)){
+                    int symbol = b & 0xFF;
+                    if(gotoTable.get(state)[symbol] < 0){
+                        gotoTable.get(state)[symbol] = gotoTable.size();
+                        gotoTable.add(newRow());
+                        output.add(new ArrayList<>());
+                    }
+                    state = gotoTable.get(state)[symbol];
+                }
+                output.get(state).add(probeIds.get(i));
+            }
+
+            // 2️⃣ 广度优先计算失败链接，同时补全转移表
+            int states = gotoTable.size();
+            int[] failure = new int[states];
+            this.transitions = new int[states * ALPHABET];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for(int symbol = 0; symbol < ALPHABET; symbol++){
+                int next = gotoTable.get(0)[symbol];
+                transitions[symbol] = Math.max(next, 0);
+                if(next > 0){
+                    queue.add(next);
+                }
+            }
+            while(!queue.isEmpty()){
+                int state = queue.poll();
+                output.get(state).addAll(output.get(failure[state]));
+                for(int symbol = 0; symbol < ALPHABET; symbol++){
+                    int next = gotoTable.get(state)[symbol];
+                    if(next > 0){
+                        failure[next] = transitions[failure[state] * ALPHABET + symbol];
+                        transitions[state * ALPHABET + symbol] = next;
+                        queue.add(next);
+                    }else{
+                        transitions[state * ALPHABET + symbol] = transitions[failure[state] * ALPHABET + symbol];
+                    }
+                }
+            }
+
+            this.outputs = new int[states][];
+            for(int state = 0; state < states; state++){
+                outputs[state] = output.get(state).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        int next(int state, int symbol){
+            return transitions[state * ALPHABET + symbol];
+        }
+
+        private static int[] newRow(){
+            int[] row = new int[ALPHABET];
+            Arrays.fill(row, -1);
+            return row;
+        }
+    }
+}
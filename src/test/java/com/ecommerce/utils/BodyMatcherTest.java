@@ -0,0 +1,102 @@
+package com.ecommerce.utils;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 🔍 BodyMatcher单元测试 - 重叠的关键字、互为后缀的关键字、忽略大小写和前缀后的数字
+ */
+public class BodyMatcherTest {
+
+    /**
+     * 🔁 经典的 he/she/his/hers：一个位置同时结束多个关键字，靠失败链接输出
+     */
+    @Test
+    public void findsOverlappingPatterns(){
+        BodyMatcher matcher = BodyMatcher.builder().contains("he").contains("she").contains("his").contains("hers").build();
+
+        BodyMatcher.Result result = matcher.scan(bytes("ushers"));
+
+        assertTrue(result.contains("he"));
+        assertTrue(result.contains("she"));
+        assertTrue(result.contains("hers"));
+        assertFalse(result.contains("his"));
+    }
+
+    /**
+     * 🔚 一个关键字是另一个的后缀，而且匹配从失败状态继续
+     */
+    @Test
+    public void findsSuffixPatternsAfterFailure(){
+        BodyMatcher matcher = BodyMatcher.builder().contains("abcd").contains("bc").contains("c").build();
+
+        BodyMatcher.Result result = matcher.scan(bytes("xxabcx"));
+
+        assertTrue(result.contains("bc"));
+        assertTrue(result.contains("c"));
+        assertFalse(result.contains("abcd"));
+    }
+
+    /**
+     * 🔡 忽略大小写的探针和区分大小写的探针互不影响
+     */
+    @Test
+    public void foldsOnlyIgnoreCaseProbes(){
+        BodyMatcher matcher = BodyMatcher.builder()
+                .contains("Add to cart")
+                .containsIgnoreCase("Add To Cart")
+                .containsIgnoreCase("logged in as")
+                .build();
+
+        BodyMatcher.Result result = matcher.scan(bytes("<a>ADD TO CART</a> Logged In As <b>user</b>"));
+
+        assertFalse(result.contains("Add to cart"));
+        assertTrue(result.containsIgnoreCase("Add To Cart"));
+        assertTrue(result.containsIgnoreCase("logged in as"));
+    }
+
+    /**
+     * 🔢 前缀后面没有数字时继续找下一次出现；一直没有时返回-1
+     */
+    @Test
+    public void readsNumberAfterPrefix(){
+        BodyMatcher matcher = BodyMatcher.builder().numberAfter("CART ").numberAfter("Total: ").build();
+
+        BodyMatcher.Result result = matcher.scan(bytes("CART is empty, CART 12 items"));
+
+        assertEquals(result.number("CART "), 12);
+        assertEquals(result.number("Total: "), -1);
+    }
+
+    /**
+     * 🔀 同一段文本同时命中区分大小写的数字探针和忽略大小写的文本探针
+     */
+    @Test
+    public void matchesExactAndFoldedProbesOnSameBytes(){
+        BodyMatcher matcher = BodyMatcher.builder().numberAfter("CART ").containsIgnoreCase("cart").build();
+
+        BodyMatcher.Result result = matcher.scan(bytes("CART 3"));
+
+        assertEquals(result.number("CART "), 3);
+        assertTrue(result.containsIgnoreCase("cart"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsUnregisteredProbe(){
+        BodyMatcher.builder().contains("cartIcon").build().scan(bytes("cartIcon")).contains("other");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsEmptyProbe(){
+        BodyMatcher.builder().contains("");
+    }
+
+    private static byte[] bytes(String body){
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,291 @@
+package com.ecommerce.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🌍 被测环境 - 一个环境有自己的基础URL、超时、传输层（连接池）、延迟记录器和场景结果
+ * 职责：让同一个JVM同时对多个环境（例如dev和staging）运行同一套场景，并对比各环境的延迟
+ *
+ * 🎯 使用方式：
+ *   mvn test -Denvironments=dev,staging
+ *   每个环境读取 config-<名称>.properties（先找environment.config.dir目录，再找classpath），支持的配置项：
+ *   base.url、timeout、http.transport、http.pool.max.total、http.pool.max.per.route、http.pool.idle.timeout、http.pool.keep.alive、
+ *   http.pool.validate.after.inactivity
+ *
+ * 🧵 当前环境：运行器在执行场景的线程上设置当前环境，场景中 new ApiClient() 自动使用它；
+ *    没有配置environments时，当前环境就是由TestConfig.BASE_URL和TIMEOUT构成的默认环境
+ */
+public final class Environment {
+
+    private static final Environment DEFAULT = new Environment("default", TestConfig.BASE_URL, TestConfig.TIMEOUT,
+            TestConfig.TRANSPORT, HttpConnectionPool.shared(), LatencyRecorder.shared());
+
+    private static final ThreadLocal<Environment> CURRENT = new ThreadLocal<>();
+
+    private static volatile List<Environment> configured;
+
+    private final String name;
+    private final String baseUrl;
+    private final int timeout;
+    private final HttpConnectionPool pool;
+    private final LatencyRecorder latency;
+    private final HttpTransport transport;
+    private final HttpCache cache;
+    private final ConcurrentLinkedQueue<ScenarioResult> scenarios = new ConcurrentLinkedQueue<>();
+
+    private Environment(String name, String baseUrl, int timeout, String transport, HttpConnectionPool pool,
+                        LatencyRecorder latency){
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.pool = pool;
+        this.latency = latency;
+        this.transport = HttpTransport.create(transport, pool, timeout);
+        this.cache = TestConfig.Cache.ENABLED ? new HttpCache(TestConfig.Cache.MAX_ENTRIES) : null;
+    }
+
+    /**
+     * 🏠 默认环境 - TestConfig.BASE_URL + 进程级共享连接池和延迟记录器
+     */
+    public static Environment defaultEnvironment(){
+        return DEFAULT;
+    }
+
+    /**
+     * ✅ 是否配置了environments（即使只配置了一个，也按环境配置文件运行）
+     */
+    public static boolean isConfigured(){
+        return !TestConfig.ENVIRONMENTS.trim().isEmpty();
+    }
+
+    /**
+     * 📋 本次运行的所有环境 - 没有配置environments时只有默认环境
+     */
+    public static List<Environment> configured(){
+        List<Environment> environments = configured;
+        if(environments == null){
+            synchronized(Environment.class){
+                environments = configured;
+                if(environments == null){
+                    environments = new ArrayList<>();
+                    for(String name : TestConfig.ENVIRONMENTS.split(",")){
+                        if(!name.trim().isEmpty()){
+                            environments.add(load(name.trim()));
+                        }
+                    }
+                    if(environments.isEmpty()){
+                        environments.add(DEFAULT);
+                    }
+                    configured = environments = Collections.unmodifiableList(environments);
+                }
+            }
+        }
+        return environments;
+    }
+
+    /**
+     * 🧵 当前线程正在运行的环境
+     */
+    public static Environment current(){
+        Environment environment = CURRENT.get();
+        return environment != null ? environment : DEFAULT;
+    }
+
+    /**
+     * 🔁 在指定环境中执行 - 执行期间当前线程创建的ApiClient都访问该环境
+     */
+    public static void runIn(Environment environment, Runnable action){
+        Environment previous = CURRENT.get();
+        CURRENT.set(environment);
+        try{
+            action.run();
+        }finally{
+            if(previous != null){
+                CURRENT.set(previous);
+            }else{
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 📂 读取环境配置文件 config-<name>.properties
+     *
+     * @throws IllegalArgumentException 找不到配置文件或缺少base.url
+     */
+    public static Environment load(String name){
+        Properties properties = new Properties();
+        String fileName = "config-" + name + ".properties";
+        File file = new File(TestConfig.ENVIRONMENT_CONFIG_DIR, fileName);
+        try(InputStream in = file.isFile() ? new FileInputStream(file)
+                : Environment.class.getClassLoader().getResourceAsStream(fileName)){
+            if(in == null){
+                throw new IllegalArgumentException("No configuration for environment '" + name + "': "
+                        + file.getPath() + " does not exist and " + fileName + " is not on the classpath");
+            }
+            properties.load(in);
+        }catch(IOException e){
+            throw new IllegalArgumentException("Cannot read configuration for environment '" + name + "'", e);
+        }
+
+        String baseUrl = properties.getProperty("base.url");
+        if(baseUrl == null || baseUrl.trim().isEmpty()){
+            throw new IllegalArgumentException(fileName + " must define base.url");
+        }
+        HttpConnectionPool pool = new HttpConnectionPool(
+                intProperty(properties, "http.pool.max.total", TestConfig.Pool.MAX_TOTAL),
+                intProperty(properties, "http.pool.max.per.route", TestConfig.Pool.MAX_PER_ROUTE),
+                intProperty(properties, "http.pool.idle.timeout", TestConfig.Pool.IDLE_TIMEOUT),
+                intProperty(properties, "http.pool.keep.alive", TestConfig.Pool.KEEP_ALIVE),
+                intProperty(properties, "http.pool.validate.after.inactivity", TestConfig.Pool.VALIDATE_AFTER_INACTIVITY));
+        return new Environment(name, baseUrl.trim(), intProperty(properties, "timeout", TestConfig.TIMEOUT),
+                properties.getProperty("http.transport", TestConfig.TRANSPORT), pool,
+                new LatencyRecorder(TimeUnit.MILLISECONDS.toMicros(TestConfig.LATENCY_EXPECTED_INTERVAL)));
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue){
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /** 🏷️ 环境名称（配置文件名中的部分） */
+    public String name(){ return name; }
+
+    /** 🌐 基础URL */
+    public String baseUrl(){ return baseUrl; }
+
+    /** ⏱️ 请求超时（毫秒） */
+    public int timeout(){ return timeout; }
+
+    /** 🔌 该环境独占的连接池（restassured传输层使用） */
+    public HttpConnectionPool pool(){ return pool; }
+
+    /** ⏱️ 该环境的延迟记录器 */
+    public LatencyRecorder latency(){ return latency; }
+
+    /** 🚚 访问该环境的传输层（http.transport） */
+    public HttpTransport transport(){ return transport; }
+
+    /** 🗄️ 该环境的HTTP缓存，未启用（http.cache=false）时为null */
+    public HttpCache cache(){ return cache; }
+
+    /**
+     * ✍️ 记录场景结果 - 由钩子在场景结束时调用
+     *
+     * @param scenario 场景名称:行号
+     * @param status Cucumber状态（PASSED、FAILED……）
+     * @param durationNanos 场景耗时
+     */
+    public void recordScenario(String scenario, String status, long durationNanos){
+        scenarios.add(new ScenarioResult(scenario, status, durationNanos));
+    }
+
+    /**
+     * 💾 写出该环境的结果 - 目录下的latency.json和scenarios.json
+     */
+    public void writeReports(File directory) throws IOException{
+        latency.writeReport(new File(directory, "latency.json"));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for(ScenarioResult result : scenarios){
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("scenario", result.scenario);
+            entry.put("status", result.status);
+            entry.put("durationMs", TimeUnit.NANOSECONDS.toMillis(result.durationNanos));
+            results.add(entry);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("environment", name);
+        report.put("baseUrl", baseUrl);
+        report.put("passed", count("PASSED"));
+        report.put("failed", count("FAILED"));
+        report.put("scenarios", results);
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(directory, "scenarios.json"), report);
+    }
+
+    /**
+     * 📊 各环境延迟对比 - 每个端点一行，每个环境一列（p50 / p99，毫秒），同时写出JSON
+     *
+     * @return 可直接输出到控制台的对比表
+     */
+    public static String compare(List<Environment> environments, File file) throws IOException{
+        TreeSet<String> endpoints = new TreeSet<>();
+        for(Environment environment : environments){
+            endpoints.addAll(environment.latency.endpoints());
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%-28s", "Latency p50 / p99 (ms)"));
+        StringBuilder results = new StringBuilder(String.format("%-28s", "Scenarios passed / failed"));
+        for(Environment environment : environments){
+            table.append(String.format(" | %20s", environment.name));
+            results.append(String.format(" | %20s", environment.count("PASSED") + " / " + environment.count("FAILED")));
+        }
+        table.append('\n').append(results);
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        for(String endpoint : endpoints){
+            table.append('\n').append(String.format("%-28s", endpoint));
+            Map<String, Object> row = new LinkedHashMap<>();
+            for(Environment environment : environments){
+                Histogram histogram = environment.latency.histogram(endpoint);
+                if(histogram.getTotalCount() == 0){
+                    table.append(String.format(" | %20s", "-"));
+                    continue;
+                }
+                double p50 = histogram.getValueAtPercentile(50) / 1000.0;
+                double p99 = histogram.getValueAtPercentile(99) / 1000.0;
+                table.append(String.format(" | %20s", String.format("%.1f / %.1f", p50, p99)));
+                Map<String, Object> cell = new LinkedHashMap<>();
+                cell.put("count", histogram.getTotalCount());
+                cell.put("p50", p50);
+                cell.put("p99", p99);
+                row.put(environment.name, cell);
+            }
+            comparison.put(endpoint, row);
+        }
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(!parent.isDirectory() && !parent.mkdirs()){
+            throw new IOException("Cannot create report directory: " + parent);
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, comparison);
+        return table.toString();
+    }
+
+    private long count(String status){
+        return scenarios.stream().filter(result -> status.equals(result.status)).count();
+    }
+
+    @Override
+    public String toString(){
+        return name + " (" + baseUrl + ")";
+    }
+
+    /** 📝 一个场景在该环境中的结果 */
+    private static final class ScenarioResult {
+        final String scenario;
+        final String status;
+        final long durationNanos;
+
+        ScenarioResult(String scenario, String status, long durationNanos){
+            this.scenario = scenario;
+            this.status = status;
+            this.durationNanos = durationNanos;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.ecommerce.utils;
+
+import io.restassured.response.Response;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 🗄️ 匿名GET响应缓存 - ApiClient对不带Cookie的GET请求使用，行为类似浏览器的私有缓存
+ * 职责：减少验证步骤中对同一匿名页面的重复请求，同时统计被测系统自身的缓存支持情况
+ *
+ * 🎯 缓存规则：
+ *   - 只缓存200响应；Cache-Control: no-store 不缓存
+ *   - max-age（减去Age头）内直接返回缓存；no-cache或过期后带 If-None-Match / If-Modified-Since 重新验证
+ *   - 服务端返回304时继续使用缓存的响应，并按304的头更新有效期
+ *   - 既没有max-age也没有ETag/Last-Modified的响应无法复用，不缓存
+ *   - 条目数超过上限时淘汰最久未使用的条目（LRU）
+ */
+public class HttpCache {
+
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+
+    /** 📊 统计 */
+    private final LongAdder freshHits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param maxEntries 最多缓存的响应数
+     */
+    public HttpCache(int maxEntries){
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true){ // 按访问顺序排列，最早的就是最久未使用的
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest){
+                if(size() > HttpCache.this.maxEntries){
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 📥 通过缓存获取响应
+     *
+     * @param key 缓存键（完整URL）
+     * @param fetch 发送请求，参数是需要附加的条件请求头（没有缓存条目时为空）
+     * @return 缓存的响应或新请求的响应
+     */
+    public Response get(String key, Function<Map<String, String>, Response> fetch){
+        long now = System.nanoTime();
+        Entry entry = lookup(key);
+        if(entry != null && now < entry.freshUntil){
+            freshHits.increment();
+            return entry.response;
+        }
+
+        Response response = fetch.apply(entry == null ? Collections.emptyMap() : entry.validators());
+        if(entry != null && response.getStatusCode() == 304){
+            revalidated.increment();
+            store(key, new Entry(entry.response, freshUntil(response, System.nanoTime()),
+                    entry.etag, entry.lastModified));
+            return entry.response;
+        }
+
+        misses.increment();
+        CacheControl control = CacheControl.of(response);
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+        if(response.getStatusCode() != 200 || control.noStore
+                || (control.maxAgeSeconds <= 0 && etag == null && lastModified == null)){
+            uncacheable.increment();
+            remove(key);
+            return response;
+        }
+        store(key, new Entry(response, freshUntil(response, System.nanoTime()), etag, lastModified));
+        return response;
+    }
+
+    /** 📊 当前缓存的条目数 */
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * 📊 统计摘要 - 命中率说明缓存省掉了多少请求，可缓存比例说明被测系统自身的缓存头是否到位
+     */
+    public String summary(){
+        long fresh = freshHits.sum();
+        long validated = revalidated.sum();
+        long missed = misses.sum();
+        long lookups = fresh + validated + missed;
+        long responses = validated + missed; // 真正发到服务端的请求
+        return String.format("HTTP cache: lookups=%d, fresh hits=%d, revalidated (304)=%d, misses=%d, hit ratio=%.1f%%, "
+                        + "uncacheable responses=%.1f%%, entries=%d/%d, evictions=%d",
+                lookups, fresh, validated, missed, lookups == 0 ? 0 : (fresh + validated) * 100.0 / lookups,
+                responses == 0 ? 0 : uncacheable.sum() * 100.0 / responses, size(), maxEntries, evictions.sum());
+    }
+
+    private synchronized Entry lookup(String key){
+        return entries.get(key);
+    }
+
+    private synchronized void store(String key, Entry entry){
+        entries.put(key, entry);
+    }
+
+    private synchronized void remove(String key){
+        entries.remove(key);
+    }
+
+    /** ⏳ 新鲜期的截止时间 - max-age减去响应在上游缓存中已经停留的时间（Age头） */
+    private static long freshUntil(Response response, long now){
+        CacheControl control = CacheControl.of(response);
+        if(control.noCache || control.maxAgeSeconds <= 0){
+            return now; // 每次都要重新验证
+        }
+        long age = 0;
+        String ageHeader = response.getHeader("Age");
+        if(ageHeader != null){
+            try{
+                age = Long.parseLong(ageHeader.trim());
+            }catch(NumberFormatException ignored){
+                // 非法的Age头，按0处理
+            }
+        }
+        return now + TimeUnit.SECONDS.toNanos(Math.max(0, control.maxAgeSeconds - age));
+    }
+
+    /**
+     * 📄 一个缓存条目 - 不可变，重新验证后用新条目替换
+     */
+    private static final class Entry {
+        final Response response;
+        final long freshUntil;
+        final String etag;
+        final String lastModified;
+
+        Entry(Response response, long freshUntil, String etag, String lastModified){
+            this.response = response;
+            this.freshUntil = freshUntil;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /** 🔍 条件请求头 */
+        Map<String, String> validators(){
+            Map<String, String> headers = new LinkedHashMap<>();
+            if(etag != null){
+                headers.put("If-None-Match", etag);
+            }
+            if(lastModified != null){
+                headers.put("If-Modified-Since", lastModified);
+            }
+            return headers;
+        }
+    }
+
+    /**
+     * 🧾 解析后的Cache-Control头
+     */
+    private static final class CacheControl {
+        boolean noStore;
+        boolean noCache;
+        long maxAgeSeconds = -1;
+
+        static CacheControl of(Response response){
+            CacheControl control = new CacheControl();
+            String header = response.getHeader("Cache-Control");
+            if(header == null){
+                return control;
+            }
+            for(String directive : header.split(",")){
+                String name = directive.trim().toLowerCase();
+                if(name.equals("no-store")){
+                    control.noStore = true;
+                }else if(name.equals("no-cache")){
+                    control.noCache = true;
+                }else if(name.startsWith("max-age=")){
+                    try{
+                        control.maxAgeSeconds = Long.parseLong(name.substring("max-age=".length()).replace("\"", ""));
+                    }catch(NumberFormatException ignored){
+                        control.noCache = true; // 无法解析时保守处理：每次重新验证
+                    }
+                }
+            }
+            return control;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ecommerce.utils;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * 🗄️ HttpCache单元测试 - 新鲜期内命中、304重新验证、不可缓存的响应和LRU淘汰
+ */
+public class HttpCacheTest {
+
+    @Test
+    public void servesFreshResponseWithoutFetching(){
+        HttpCache cache = new HttpCache(10);
+        Fetcher fetcher = new Fetcher(response(200, "products", "Cache-Control", "max-age=60"));
+
+        Response first = cache.get("/products", fetcher);
+        Response second = cache.get("/products", fetcher);
+
+        assertSame(second, first);
+        assertEquals(fetcher.calls.get(), 1);
+    }
+
+    /**
+     * ⏳ Age头已经用完max-age时立即过期，下一次带条件请求头重新验证
+     */
+    @Test
+    public void subtractsAgeFromMaxAge(){
+        HttpCache cache = new HttpCache(10);
+        Fetcher fetcher = new Fetcher(
+                response(200, "products", "Cache-Control", "max-age=60", "Age", "60", "ETag", "\"v1\""),
+                response(304, "", "Cache-Control", "max-age=60"));
+
+        cache.get("/products", fetcher);
+        cache.get("/products", fetcher);
+
+        assertEquals(fetcher.calls.get(), 2);
+        assertEquals(fetcher.validators.get(1).get("If-None-Match"), "\"v1\"");
+    }
+
+    /**
+     * 🔁 no-cache每次都重新验证；304时返回缓存的响应，并按304的头更新有效期
+     */
+    @Test
+    public void revalidatesWithValidatorsAndKeepsBodyOn304(){
+        HttpCache cache = new HttpCache(10);
+        Response original = response(200, "home", "Cache-Control", "no-cache",
+                "ETag", "\"v1\"", "Last-Modified", "Mon, 05 Oct 2026 10:00:00 GMT");
+        Fetcher fetcher = new Fetcher(original, response(304, "", "Cache-Control", "max-age=60"));
+
+        cache.get("/", fetcher);
+        Response revalidated = cache.get("/", fetcher);
+        Response fresh = cache.get("/", fetcher);
+
+        assertSame(revalidated, original);
+        assertSame(fresh, original);
+        assertEquals(fetcher.calls.get(), 2);
+        assertEquals(fetcher.validators.get(0).size(), 0);
+        assertEquals(fetcher.validators.get(1).get("If-None-Match"), "\"v1\"");
+        assertEquals(fetcher.validators.get(1).get("If-Modified-Since"), "Mon, 05 Oct 2026 10:00:00 GMT");
+    }
+
+    @Test
+    public void doesNotStoreUncacheableResponses(){
+        HttpCache cache = new HttpCache(10);
+        Fetcher fetcher = new Fetcher(
+                response(200, "a", "Cache-Control", "no-store, max-age=60", "ETag", "\"v1\""),
+                response(200, "b"),
+                response(404, "c", "Cache-Control", "max-age=60"));
+
+        cache.get("/no-store", fetcher);
+        cache.get("/no-validators", fetcher);
+        cache.get("/missing", fetcher);
+
+        assertEquals(cache.size(), 0);
+    }
+
+    /**
+     * 🧹 超过上限时淘汰最久未使用的条目，刚访问过的条目保留
+     */
+    @Test
+    public void evictsLeastRecentlyUsedEntry(){
+        HttpCache cache = new HttpCache(2);
+        Fetcher fetcher = new Fetcher(response(200, "page", "Cache-Control", "max-age=60"));
+
+        cache.get("/a", fetcher);
+        cache.get("/b", fetcher);
+        cache.get("/a", fetcher); // /a 变成最近使用
+        cache.get("/c", fetcher); // 淘汰 /b
+        assertEquals(fetcher.calls.get(), 3);
+        assertEquals(cache.size(), 2);
+
+        cache.get("/a", fetcher);
+        assertEquals(fetcher.calls.get(), 3);
+        cache.get("/b", fetcher);
+        assertEquals(fetcher.calls.get(), 4);
+        assertNull(fetcher.validators.get(3).get("If-None-Match"));
+    }
+
+    /**
+     * 🏗️ 构造响应 - headers为 名称, 值, 名称, 值...
+     */
+    private static Response response(int status, String body, String... headers){
+        List<Header> list = new ArrayList<>();
+        for(int i = 0; i < headers.length; i += 2){
+            list.add(new Header(headers[i], headers[i + 1]));
+        }
+        return new ResponseBuilder().setStatusCode(status).setBody(body).setHeaders(new Headers(list)).build();
+    }
+
+    /**
+     * 📡 假的请求发送 - 按顺序返回给定的响应（最后一个重复使用），并记下每次的条件请求头
+     */
+    private static final class Fetcher implements Function<Map<String, String>, Response> {
+        final AtomicInteger calls = new AtomicInteger();
+        final List<Map<String, String>> validators = new ArrayList<>();
+        private final Response[] responses;
+
+        Fetcher(Response... responses){
+            this.responses = responses;
+        }
+
+        @Override
+        public Response apply(Map<String, String> conditionalHeaders){
+            validators.add(conditionalHeaders);
+            int call = calls.getAndIncrement();
+            return responses[Math.min(call, responses.length - 1)];
+        }
+    }
+}
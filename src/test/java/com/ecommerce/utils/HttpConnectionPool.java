@@ -0,0 +1,274 @@
+package com.ecommerce.utils;
+
+import io.restassured.config.HttpClientConfig;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpEntity;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.protocol.HTTP;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🔌 共享HTTP连接池 - 整个测试进程只有一个
+ * 职责：为所有ApiClient提供keep-alive连接复用、每主机连接上限和空闲连接回收，
+ * 并统计连接是被复用还是新建的
+ */
+@SuppressWarnings("deprecation") // RestAssured 5.x 仍然基于 HttpClient 4.x 的旧版 API
+public class HttpConnectionPool {
+
+    private static final HttpConnectionPool SHARED = new HttpConnectionPool(
+            TestConfig.Pool.MAX_TOTAL, TestConfig.Pool.MAX_PER_ROUTE,
+            TestConfig.Pool.IDLE_TIMEOUT, TestConfig.Pool.KEEP_ALIVE, TestConfig.Pool.VALIDATE_AFTER_INACTIVITY);
+
+    private final CountingConnectionManager connectionManager;
+    private final DefaultHttpClient httpClient;
+    private final ScheduledExecutorService evictor;
+    private final long validateAfterInactivityNanos;
+
+    /** 🕰️ 连接归还到池中的时间，按底层Socket记录（每次租用的连接包装都是新对象），连接关闭后随Socket回收 */
+    private final Map<Socket, Long> idleSince = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** 📊 连接统计：复用次数 / 新建次数 / 复用前发现已被服务器关闭的次数 */
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    /** 🧵 当前线程最近一次租用的连接是否是复用的，供ApiClient的JFR事件使用 */
+    private static final ThreadLocal<Boolean> LAST_LEASE_REUSED = new ThreadLocal<>();
+
+    /**
+     * 🏗️ 构造函数 - 创建连接池并启动空闲连接回收线程
+     *
+     * @param maxTotal 最大连接总数
+     * @param maxPerRoute 每个目标主机的最大连接数
+     * @param idleTimeoutMillis 空闲连接回收时间
+     * @param keepAliveMillis 服务器未声明Keep-Alive时的默认保持时间
+     */
+    public HttpConnectionPool(int maxTotal, int maxPerRoute, long idleTimeoutMillis, long keepAliveMillis) {
+        this(maxTotal, maxPerRoute, idleTimeoutMillis, keepAliveMillis, TestConfig.Pool.VALIDATE_AFTER_INACTIVITY);
+    }
+
+    /**
+     * 🏗️ 构造函数 - 创建连接池并启动空闲连接回收线程
+     *
+     * @param maxTotal 最大连接总数
+     * @param maxPerRoute 每个目标主机的最大连接数
+     * @param idleTimeoutMillis 空闲连接回收时间
+     * @param keepAliveMillis 服务器未声明Keep-Alive时的默认保持时间
+     * @param validateAfterInactivityMillis 空闲超过该时间的连接在复用前先做stale检查，0表示沿用每个请求前都检查
+     */
+    public HttpConnectionPool(int maxTotal, int maxPerRoute, long idleTimeoutMillis, long keepAliveMillis,
+                              long validateAfterInactivityMillis) {
+        this.validateAfterInactivityNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterInactivityMillis);
+        this.connectionManager = new CountingConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        this.httpClient = new DefaultHttpClient(connectionManager);
+        httpClient.setKeepAliveStrategy(keepAliveStrategy(keepAliveMillis));
+        // 🩺 旧版API默认每个请求前都做stale检查（约1ms），改为只检查空闲超过validateAfterInactivity的连接
+        if (validateAfterInactivityMillis > 0) {
+            HttpConnectionParams.setStaleCheckingEnabled(httpClient.getParams(), false);
+        }
+        // 📭 空响应体（例如Content-Length: 0的302）换成非流式实体：RestAssured不会去读长度为0的响应体，
+        //    流读不到结尾，连接就一直不会归还；非流式实体让HttpClient在返回响应前直接释放连接
+        httpClient.addResponseInterceptor((response, context) -> {
+            HttpEntity entity = response.getEntity();
+            if(entity != null && entity.isStreaming() && entity.getContentLength() == 0){
+                ByteArrayEntity empty = new ByteArrayEntity(new byte[0]);
+                empty.setContentType(entity.getContentType());
+                response.setEntity(empty);
+            }
+        });
+
+        // 🧹 定期关闭过期和空闲太久的连接；回收线程按周期运行，连接最多会空闲到1.5倍回收时间，
+        //    服务器的空闲超时必须比这更长，更短的服务器端关闭由租用时的stale检查兜底
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 🌐 获取进程级共享连接池
+     */
+    public static HttpConnectionPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * ⚙️ 生成RestAssured的HttpClient配置 - 所有请求都使用同一个池化的HttpClient
+     *
+     * @param timeoutMillis 连接和读取超时（毫秒）
+     * @return HttpClientConfig 可直接放入RestAssuredConfig
+     */
+    public HttpClientConfig httpClientConfig(int timeoutMillis) {
+        return HttpClientConfig.httpClientConfig()
+                .httpClientFactory(() -> httpClient)
+                .reuseHttpClientInstance()
+                .setParam("http.connection.timeout", timeoutMillis)  // 🔌 连接建立超时
+                .setParam("http.socket.timeout", timeoutMillis);     // 📡 数据传输超时
+    }
+
+    /** ♻️ 复用已有连接的次数 */
+    public long reusedConnections() {
+        return reused.sum();
+    }
+
+    /** 🆕 新建连接的次数 */
+    public long openedConnections() {
+        return opened.sum();
+    }
+
+    /** 🩺 复用前stale检查发现连接已被服务器关闭、改为新建连接的次数 */
+    public long staleConnections() {
+        return stale.sum();
+    }
+
+    /** 🧹 清除当前线程的租用记录 - 在发送请求前调用 */
+    static void clearLastLease() {
+        LAST_LEASE_REUSED.remove();
+    }
+
+    /**
+     * ♻️ 当前线程最近一次租用的连接是否是复用的
+     *
+     * @return null 清除之后没有在当前线程租用过连接（例如jdk传输层或异步请求）
+     */
+    static Boolean lastLeaseReused() {
+        return LAST_LEASE_REUSED.get();
+    }
+
+    /**
+     * 📊 连接统计摘要 - 用于在测试结束时输出连接复用效果
+     */
+    public String summary() {
+        long reusedCount = reusedConnections();
+        long openedCount = openedConnections();
+        long total = reusedCount + openedCount;
+        double ratio = total == 0 ? 0 : reusedCount * 100.0 / total;
+        return String.format("HTTP connection pool: leases=%d, reused=%d, opened=%d, stale=%d, reuse ratio=%.1f%%, %s",
+                total, reusedCount, openedCount, stale.sum(), ratio, connectionManager.getTotalStats());
+    }
+
+    /**
+     * 🛑 关闭连接池 - 释放所有连接并停止回收线程
+     */
+    public void shutdown() {
+        evictor.shutdownNow();
+        connectionManager.shutdown();
+    }
+
+    /**
+     * ⏱️ Keep-Alive策略 - 优先使用服务器Keep-Alive头中的timeout，否则使用默认值
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long keepAliveMillis) {
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (NumberFormatException ignored) {
+                        // 非法的timeout值，使用默认值
+                    }
+                }
+            }
+            return keepAliveMillis;
+        };
+    }
+
+    /**
+     * 🔢 带统计的连接管理器 - 租用连接时判断连接是否已经打开（复用）还是需要新建
+     *
+     * 🩺 HttpClient 4.x 的旧版连接管理器没有setValidateAfterInactivity，这里补上同样的语义：
+     *   归还时记下时间，再次租用时空闲超过validateAfterInactivity就做一次stale检查（约1ms），
+     *   已被服务器关闭的连接直接关掉，由HttpClient重新建立，而不是把非幂等的POST写进一个死连接
+     */
+    private class CountingConnectionManager extends PoolingClientConnectionManager {
+
+        CountingConnectionManager() {
+            super(SchemeRegistryFactory.createDefault());
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ClientConnectionRequest delegate = super.requestConnection(route, state);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit unit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    ManagedClientConnection connection = delegate.getConnection(timeout, unit);
+                    boolean open = connection.isOpen() && !closedWhileIdle(connection);
+                    if (open) {
+                        reused.increment();
+                    } else {
+                        opened.increment();
+                    }
+                    LAST_LEASE_REUSED.set(open);
+                    return connection;
+                }
+
+                @Override
+                public void abortRequest() {
+                    delegate.abortRequest();
+                }
+            };
+        }
+
+        @Override
+        public void releaseConnection(ManagedClientConnection connection, long keepAlive, TimeUnit unit) {
+            if (validateAfterInactivityNanos > 0 && connection.isOpen()) {
+                idleSince.put(connection.getSocket(), System.nanoTime());
+            }
+            super.releaseConnection(connection, keepAlive, unit);
+        }
+
+        /** 🩺 空闲太久的连接做stale检查，已被服务器关闭的就地关掉 */
+        private boolean closedWhileIdle(ManagedClientConnection connection) {
+            if (validateAfterInactivityNanos <= 0) {
+                return false;
+            }
+            Long since = idleSince.remove(connection.getSocket());
+            if (since == null || System.nanoTime() - since < validateAfterInactivityNanos) {
+                return false;
+            }
+            if (!connection.isStale()) {
+                return false;
+            }
+            stale.increment();
+            try {
+                connection.close();
+            } catch (IOException ignored) {
+                // 连接已经不可用，关闭失败也会在重新建立时被替换
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ✈️ HTTP请求的JFR事件 - ApiClient每发出一个请求提交一个，持续时间即请求耗时
+ * 没有录制时shouldCommit()为false，事件对象被JIT消除，几乎没有开销；
+ * 在JDK Mission Control中可以和GC、线程、Socket读写事件放在同一条时间线上对照
+ */
+@Name("com.ecommerce.HttpRequest")
+@Label("HTTP Request")
+@Category({"E-commerce Tests", "HTTP"})
+@Description("A request sent by ApiClient")
+@StackTrace(false)
+class HttpRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Endpoint")
+    @Description("Endpoint as requested, without the base URL")
+    String endpoint;
+
+    @Label("Route")
+    @Description("Endpoint with IDs and query parameters normalized, as in the latency report")
+    String route;
+
+    @Label("Status")
+    int status;
+
+    @Label("Response Bytes")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Connection")
+    @Description("reused, new, or unknown (jdk transport and asynchronous requests)")
+    String connection;
+
+    @Label("Asynchronous")
+    boolean async;
+}
@@ -0,0 +1,75 @@
+package com.ecommerce.utils;
+
+import io.restassured.response.Response;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 🚚 HTTP传输层 - ApiClient通过它发送请求，步骤代码看到的始终是RestAssured的Response
+ * 职责：把"怎么发请求"从ApiClient中分离出来，可以在RestAssured和更轻量的java.net.http之间切换
+ *
+ * 🎯 约定：
+ *   - 不跟随重定向，不保存Cookie（Cookie由ApiClient在每次请求时传入）
+ *   - 返回时响应体已经完整读出，连接已归还
+ *   - 网络异常以（包装的）IOException抛出，调用方可以沿cause链判断是否可以重试
+ */
+public interface HttpTransport {
+
+    /**
+     * 📨 GET请求
+     *
+     * @param baseUrl 基础URL
+     * @param endpoint 请求端点，也可以是完整的URL（例如重定向的Location）
+     * @param cookies 随请求发送的Cookie
+     * @param headers 额外的请求头（例如条件请求头）
+     */
+    Response get(String baseUrl, String endpoint, Map<String, String> cookies, Map<String, String> headers);
+
+    /**
+     * 📨 POST表单请求
+     *
+     * @param formParams 表单参数，以application/x-www-form-urlencoded发送
+     */
+    Response post(String baseUrl, String endpoint, Map<String, String> cookies, Map<String, String> formParams);
+
+    /**
+     * ⚡ 异步GET请求 - 默认在RequestExecutors的线程上同步发送，支持异步I/O的实现可以覆盖
+     */
+    default CompletableFuture<Response> getAsync(String baseUrl, String endpoint, Map<String, String> cookies,
+                                                 Map<String, String> headers){
+        return CompletableFuture.supplyAsync(() -> get(baseUrl, endpoint, cookies, headers), RequestExecutors.shared());
+    }
+
+    /**
+     * ⚡ 异步POST请求 - 默认在RequestExecutors的线程上同步发送，支持异步I/O的实现可以覆盖
+     */
+    default CompletableFuture<Response> postAsync(String baseUrl, String endpoint, Map<String, String> cookies,
+                                                  Map<String, String> formParams){
+        return CompletableFuture.supplyAsync(() -> post(baseUrl, endpoint, cookies, formParams), RequestExecutors.shared());
+    }
+
+    /**
+     * 📊 统计摘要 - 运行结束时输出（连接复用率、HTTP版本分布等）
+     */
+    String summary();
+
+    /**
+     * 🏭 按名称创建传输层
+     *
+     * @param name restassured 或 jdk
+     * @param pool restassured使用的连接池
+     * @param timeoutMillis 连接和读取超时
+     * @throws IllegalArgumentException 未知的传输方式
+     */
+    static HttpTransport create(String name, HttpConnectionPool pool, int timeoutMillis){
+        switch(name.trim().toLowerCase()){
+            case "restassured":
+                return new RestAssuredTransport(pool, timeoutMillis);
+            case "jdk":
+                return new JdkHttpTransport(timeoutMillis, TestConfig.HTTP_VERSION);
+            default:
+                throw new IllegalArgumentException("Unknown http.transport '" + name + "', expected restassured or jdk");
+        }
+    }
+}
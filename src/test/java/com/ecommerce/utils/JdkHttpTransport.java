@@ -0,0 +1,285 @@
+package com.ecommerce.utils;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Cookie;
+import io.restassured.http.Cookies;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpCookie;
+import java.net.SocketException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 🚚 java.net.http传输层 - JDK自带的HttpClient，支持HTTP/2和真正的异步I/O
+ * 职责：用更少的分配和CPU发送请求，让一台压测机能产生更大的负载
+ *
+ * 🎯 要点：
+ *   - 每个环境一个HttpClient，内部自带连接池；HTTP/2时同一主机的请求复用一条连接
+ *   - 明文http下请求HTTP/2会先尝试h2c升级，服务端不支持时自动使用HTTP/1.1
+ *   - 异步请求不占用调用线程，getAsync/postAsync直接使用HttpClient.sendAsync
+ *   - 复用的连接已被服务端关闭、一个字节的响应都没收到时，只重试幂等请求（与Apache HttpClient的默认重试一致）；
+ *     POST可能已经被服务端处理，重试会重复注册、重复加购
+ *   - 响应转换成RestAssured的Response（状态码、响应头、Cookie、响应体），步骤代码无需修改
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+    private static final String FORM = "application/x-www-form-urlencoded; charset=UTF-8";
+
+    /** 🔁 没有收到响应时的最大重试次数 */
+    private static final int MAX_RETRIES = 2;
+
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final HttpClient.Version version;
+
+    /** 📊 按实际使用的协议版本统计响应数 */
+    private final LongAdder http2Responses = new LongAdder();
+    private final LongAdder http1Responses = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param timeoutMillis 连接和请求超时（毫秒）
+     * @param version HTTP_2 或 HTTP_1_1
+     */
+    public JdkHttpTransport(int timeoutMillis, String version){
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.version = HttpClient.Version.valueOf(version.trim().toUpperCase());
+        this.executor = RequestExecutors.newExecutor("jdk-http");
+        this.client = HttpClient.newBuilder()
+                .version(this.version)
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER) // 与RestAssured传输层一致，重定向由ApiClient处理
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * 🛑 停止传输层自己的执行线程 - 之后不能再发送请求；整个进程共用的传输层不需要调用
+     */
+    public void close(){
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Response get(String baseUrl, String endpoint, Map<String, String> cookies, Map<String, String> headers){
+        return send(newRequest(baseUrl, endpoint, cookies, headers).GET().build());
+    }
+
+    @Override
+    public Response post(String baseUrl, String endpoint, Map<String, String> cookies, Map<String, String> formParams){
+        return send(newRequest(baseUrl, endpoint, cookies, Map.of())
+                .header("Content-Type", FORM)
+                .POST(HttpRequest.BodyPublishers.ofString(encodeForm(formParams)))
+                .build());
+    }
+
+    @Override
+    public CompletableFuture<Response> getAsync(String baseUrl, String endpoint, Map<String, String> cookies,
+                                                Map<String, String> headers){
+        return sendAsync(newRequest(baseUrl, endpoint, cookies, headers).GET().build(), 0);
+    }
+
+    @Override
+    public CompletableFuture<Response> postAsync(String baseUrl, String endpoint, Map<String, String> cookies,
+                                                 Map<String, String> formParams){
+        return sendAsync(newRequest(baseUrl, endpoint, cookies, Map.of())
+                .header("Content-Type", FORM)
+                .POST(HttpRequest.BodyPublishers.ofString(encodeForm(formParams)))
+                .build(), 0);
+    }
+
+    @Override
+    public String summary(){
+        return String.format("java.net.http transport (%s requested): responses=%d, HTTP/2=%d, HTTP/1.1=%d, retries=%d",
+                version, http2Responses.sum() + http1Responses.sum(), http2Responses.sum(), http1Responses.sum(),
+                retries.sum());
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private HttpRequest.Builder newRequest(String baseUrl, String endpoint, Map<String, String> cookies,
+                                           Map<String, String> headers){
+        HttpRequest.Builder request = HttpRequest.newBuilder(resolve(baseUrl, endpoint))
+                .timeout(timeout)
+                .header("Accept", "text/html");
+        if(!cookies.isEmpty()){
+            StringBuilder cookie = new StringBuilder();
+            cookies.forEach((name, value) -> {
+                if(cookie.length() > 0){
+                    cookie.append("; ");
+                }
+                cookie.append(name).append('=').append(value);
+            });
+            request.header("Cookie", cookie.toString());
+        }
+        headers.forEach(request::header);
+        return request;
+    }
+
+    /**
+     * 🔗 拼接URL - 与RestAssured一致：完整URL直接使用，否则接在基础URL（包括其路径）后面
+     */
+    static URI resolve(String baseUrl, String endpoint){
+        if(endpoint.startsWith("http://") || endpoint.startsWith("https://")){
+            return URI.create(endpoint);
+        }
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        return URI.create(endpoint.startsWith("/") ? base + endpoint : base + "/" + endpoint);
+    }
+
+    /**
+     * 📮 按application/x-www-form-urlencoded编码表单参数 - post()/postAsync()的请求体（基准测试也调用它）
+     */
+    public static String encodeForm(Map<String, String> formParams){
+        StringBuilder form = new StringBuilder();
+        formParams.forEach((name, value) -> {
+            if(form.length() > 0){
+                form.append('&');
+            }
+            form.append(URLEncoder.encode(name, StandardCharsets.UTF_8)).append('=')
+                    .append(URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8));
+        });
+        return form.toString();
+    }
+
+    private Response send(HttpRequest request){
+        for(int attempt = 0; ; attempt++){
+            try{
+                return toResponse(client.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+            }catch(IOException e){
+                if(attempt < MAX_RETRIES && isRetryable(request, e)){
+                    retries.increment();
+                    continue;
+                }
+                throw new UncheckedIOException(request.method() + " " + request.uri() + " failed", e);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sending " + request.method() + " " + request.uri(), e);
+            }
+        }
+    }
+
+    private CompletableFuture<Response> sendAsync(HttpRequest request, int attempt){
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if(error == null){
+                        return CompletableFuture.completedFuture(toResponse(response));
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if(attempt < MAX_RETRIES && isRetryable(request, cause)){
+                        retries.increment();
+                        return sendAsync(request, attempt + 1);
+                    }
+                    return CompletableFuture.<Response>failedFuture(cause instanceof IOException
+                            ? new UncheckedIOException(request.method() + " " + request.uri() + " failed", (IOException) cause)
+                            : cause);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * 🔁 幂等请求在没有收到响应时可以重试 - 无法知道请求写出之前还是之后连接被关闭，
+     * 非幂等请求（POST）可能已经被服务端执行，交给调用方处理
+     */
+    private static boolean isRetryable(HttpRequest request, Throwable error){
+        return isIdempotent(request.method()) && isNoResponse(error);
+    }
+
+    private static boolean isIdempotent(String method){
+        switch(method){
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+            case "TRACE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 🔌 服务端在发送任何响应之前关闭了连接（通常是复用了一条刚被服务端关闭的空闲连接）
+     */
+    private static boolean isNoResponse(Throwable error){
+        return error instanceof EOFException
+                || error instanceof SocketException // Connection reset
+                || (error instanceof IOException && String.valueOf(error.getMessage()).contains("received no bytes"));
+    }
+
+    /**
+     * 🔄 转换成RestAssured的Response - Set-Cookie解析为Cookie，步骤中的getCookie、getDetailedCookies照常可用
+     */
+    private Response toResponse(HttpResponse<byte[]> response){
+        boolean http2 = response.version() == HttpClient.Version.HTTP_2;
+        (http2 ? http2Responses : http1Responses).increment();
+
+        List<Header> headers = new ArrayList<>();
+        List<Cookie> cookies = new ArrayList<>();
+        response.headers().map().forEach((name, values) -> {
+            for(String value : values){
+                headers.add(new Header(name, value));
+                if("set-cookie".equalsIgnoreCase(name)){
+                    addCookies(cookies, value);
+                }
+            }
+        });
+
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(response.statusCode())
+                .setStatusLine((http2 ? "HTTP/2 " : "HTTP/1.1 ") + response.statusCode())
+                .setHeaders(new Headers(headers))
+                .setCookies(new Cookies(cookies))
+                .setBody(response.body());
+        response.headers().firstValue("Content-Type").ifPresent(builder::setContentType);
+        return builder.build();
+    }
+
+    private static void addCookies(List<Cookie> cookies, String header){
+        List<HttpCookie> parsed;
+        try{
+            parsed = HttpCookie.parse(header);
+        }catch(IllegalArgumentException e){
+            return; // 无法解析的Cookie忽略，和浏览器一样
+        }
+        for(HttpCookie cookie : parsed){
+            Cookie.Builder builder = new Cookie.Builder(cookie.getName(), cookie.getValue())
+                    .setHttpOnly(cookie.isHttpOnly())
+                    .setSecured(cookie.getSecure());
+            if(cookie.getPath() != null){
+                builder.setPath(cookie.getPath());
+            }
+            if(cookie.getDomain() != null){
+                builder.setDomain(cookie.getDomain());
+            }
+            if(cookie.getMaxAge() >= 0){
+                builder.setMaxAge((int) Math.min(Integer.MAX_VALUE, cookie.getMaxAge()));
+            }
+            cookies.add(builder.build());
+        }
+    }
+}
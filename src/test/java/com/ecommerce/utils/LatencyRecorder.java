@@ -0,0 +1,327 @@
+package com.ecommerce.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ⏱️ 接口延迟记录器 - 按"端点 + 状态码"记录每次请求的延迟直方图
+ * 职责：ApiClient每次请求后记录耗时，运行结束时输出各端点的延迟分位数
+ *
+ * 🎯 设计要点：
+ *   - 使用HdrHistogram的ConcurrentHistogram，记录操作无锁，适合并行和压测
+ *   - 直方图按需扩容，单位为微秒，保留3位有效数字，内存占用很小
+ *   - 配置了预期请求间隔时，按间隔补录样本，修正协调遗漏（coordinated omission）；
+ *     闭环压测没有配置间隔时，结束后按实测的每用户请求间隔修正报告（correctForCoordinatedOmission）；
+ *     开放模型压测中场景的第一个请求从计划到达时刻开始计时
+ *
+ * 🎬 场景记录器：钩子在每个场景开始时为当前线程打开一个独立的记录器，ApiClient同时记录到其中，
+ *   延迟SLO步骤只看本场景发出的请求；异步请求通过propagate()把场景记录器带到执行线程
+ */
+public class LatencyRecorder {
+
+    private static final LatencyRecorder SHARED = new LatencyRecorder(
+            TimeUnit.MILLISECONDS.toMicros(TestConfig.LATENCY_EXPECTED_INTERVAL));
+
+    /** 📊 报告中输出的分位数 */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /** 端点 -> 状态码 -> 直方图 */
+    private final Map<String, Map<Integer, Histogram>> histograms = new ConcurrentHashMap<>();
+
+    /** 🎬 当前线程正在运行的场景的记录器 */
+    private static final ThreadLocal<LatencyRecorder> SCENARIO = new ThreadLocal<>();
+
+    /** 🚪 开放模型中当前线程的场景计划开始时刻（System.nanoTime），还没有被第一个请求取走时不为null */
+    private static final ThreadLocal<Long> INTENDED_START = new ThreadLocal<>();
+
+    private final long expectedIntervalMicros;
+
+    /** 📏 运行结束后实测的修正间隔（微秒），只在记录时没有补录（expectedIntervalMicros为0）时用于报告 */
+    private volatile long measuredIntervalMicros;
+
+    /**
+     * 🏗️ 构造函数
+     *
+     * @param expectedIntervalMicros 预期请求间隔（微秒），0表示不修正协调遗漏
+     */
+    public LatencyRecorder(long expectedIntervalMicros){
+        this.expectedIntervalMicros = expectedIntervalMicros;
+    }
+
+    /**
+     * 🌐 获取进程级共享记录器
+     */
+    public static LatencyRecorder shared(){
+        return SHARED;
+    }
+
+    /**
+     * 🎬 为当前线程的场景打开新的记录器
+     */
+    public static LatencyRecorder beginScenario(){
+        LatencyRecorder recorder = new LatencyRecorder(0); // 只统计真实发出的请求
+        SCENARIO.set(recorder);
+        return recorder;
+    }
+
+    /**
+     * 🏁 关闭当前线程的场景记录器
+     */
+    public static void endScenario(){
+        SCENARIO.remove();
+    }
+
+    /**
+     * 🎬 当前线程的场景记录器，不在场景中时为null
+     */
+    public static LatencyRecorder scenario(){
+        return SCENARIO.get();
+    }
+
+    /**
+     * 🧵 把当前线程的场景记录器带到另一个线程 - 返回的任务执行期间使用提交时的场景记录器，
+     * 发出的请求也计入StepProfiler中提交时的步骤
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task){
+        Supplier<T> inStep = StepProfiler.propagate(task);
+        LatencyRecorder scenario = SCENARIO.get();
+        if(scenario == null){
+            return inStep;
+        }
+        return () -> {
+            LatencyRecorder previous = SCENARIO.get();
+            SCENARIO.set(scenario);
+            try{
+                return inStep.get();
+            }finally{
+                if(previous != null){
+                    SCENARIO.set(previous);
+                }else{
+                    SCENARIO.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * 🚪 设置当前线程场景的计划开始时刻 - 开放模型中场景晚于计划开始时，这段延误计入场景的第一个请求，
+     * 不会因为压测机或被测系统变慢而被"遗漏"（相当于从计划时刻开始计时，而不是从实际发送时刻）
+     *
+     * @param intendedNanos 计划开始的System.nanoTime()时刻
+     */
+    public static void intendedStart(long intendedNanos){
+        INTENDED_START.set(intendedNanos);
+    }
+
+    /**
+     * 🧹 清除当前线程场景的计划开始时刻
+     */
+    public static void clearIntendedStart(){
+        INTENDED_START.remove();
+    }
+
+    /**
+     * ⏱️ 请求的计时起点 - 当前线程有尚未取走的计划开始时刻时返回它（只返回一次），否则返回实际发送时刻
+     *
+     * @param actualStartNanos 实际发送时刻
+     */
+    static long measuredStart(long actualStartNanos){
+        Long intended = INTENDED_START.get();
+        if(intended == null){
+            return actualStartNanos;
+        }
+        INTENDED_START.remove();
+        return Math.min(intended, actualStartNanos);
+    }
+
+    /**
+     * ✍️ 记录一次请求
+     *
+     * @param endpoint 请求端点，查询参数会被去掉（/addToCart?productId=1 -> /addToCart）
+     * @param statusCode HTTP状态码，请求异常时为0
+     * @param durationNanos 请求耗时（纳秒）
+     */
+    public void record(String endpoint, int statusCode, long durationNanos){
+        Histogram histogram = histograms
+                .computeIfAbsent(normalize(endpoint), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(statusCode, key -> newHistogram());
+
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        if(expectedIntervalMicros > 0){
+            histogram.recordValueWithExpectedInterval(micros, expectedIntervalMicros);
+        }else{
+            histogram.recordValue(micros);
+        }
+    }
+
+    /**
+     * 📈 某个端点所有状态码合并后的直方图（副本）
+     *
+     * @return 直方图副本；该端点没有记录时返回空直方图
+     */
+    public Histogram histogram(String endpoint){
+        Histogram merged = newHistogram();
+        Map<Integer, Histogram> byStatus = histograms.get(normalize(endpoint));
+        if(byStatus != null){
+            byStatus.values().forEach(histogram -> merged.add(histogram.copy()));
+        }
+        return merged;
+    }
+
+    /**
+     * 📸 所有直方图的副本（端点 -> 状态码 -> 直方图） - 分布式压测的工作进程定期发给协调进程
+     */
+    public Map<String, Map<Integer, Histogram>> snapshot(){
+        Map<String, Map<Integer, Histogram>> snapshot = new TreeMap<>();
+        histograms.forEach((endpoint, byStatus) -> {
+            Map<Integer, Histogram> copies = new TreeMap<>();
+            byStatus.forEach((status, histogram) -> copies.put(status, histogram.copy()));
+            snapshot.put(endpoint, copies);
+        });
+        return snapshot;
+    }
+
+    /**
+     * ➕ 合并另一个记录器（或另一个进程）的直方图 - 合并的是原始计数，分位数是精确的，不是平均值的平均
+     *
+     * @param endpoint 规范化后的端点
+     * @param statusCode HTTP状态码
+     * @param histogram 要合并的直方图
+     */
+    public void add(String endpoint, int statusCode, Histogram histogram){
+        histograms.computeIfAbsent(normalize(endpoint), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(statusCode, key -> newHistogram())
+                .add(histogram);
+    }
+
+    /**
+     * 📏 按实测间隔修正报告中的协调遗漏 - 记录时没有配置预期间隔的运行（闭环压测），
+     * 结束后由压测运行器按每个虚拟用户的平均请求间隔调用；原始直方图不变，只影响report()
+     *
+     * @param intervalMicros 每个发送方两次请求之间的预期间隔（微秒），0表示不修正
+     */
+    public void correctForCoordinatedOmission(long intervalMicros){
+        if(expectedIntervalMicros == 0){
+            measuredIntervalMicros = intervalMicros;
+        }
+    }
+
+    /**
+     * 🔢 所有端点记录的请求总数
+     */
+    public long totalCount(){
+        return histograms.values().stream()
+                .flatMap(byStatus -> byStatus.values().stream())
+                .mapToLong(Histogram::getTotalCount)
+                .sum();
+    }
+
+    /**
+     * 📋 已记录的端点（规范化后的路径）
+     */
+    public Set<String> endpoints(){
+        return new TreeSet<>(histograms.keySet());
+    }
+
+    /**
+     * 📝 生成报告数据 - 每个端点的总体分位数和按状态码拆分的分位数（毫秒）
+     */
+    public Map<String, Object> report(){
+        long measured = measuredIntervalMicros;
+        Map<String, Object> endpoints = new TreeMap<>();
+        histograms.forEach((endpoint, byStatus) -> {
+            Map<String, Object> entry = summarize(corrected(histogram(endpoint), measured));
+            Map<String, Object> statuses = new TreeMap<>();
+            byStatus.forEach((status, histogram) ->
+                    statuses.put(String.valueOf(status), summarize(corrected(histogram.copy(), measured))));
+            entry.put("statuses", statuses);
+            endpoints.put(endpoint, entry);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", Instant.now().toString());
+        report.put("unit", "ms");
+        report.put("coordinatedOmission", expectedIntervalMicros > 0 ? "configured" : measured > 0 ? "measured" : "none");
+        report.put("coordinatedOmissionIntervalMs", (expectedIntervalMicros > 0 ? expectedIntervalMicros : measured) / 1000.0);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    /**
+     * 💾 写出报告 - 以JSON格式写到报告目录
+     *
+     * @param file 报告文件
+     */
+    public void writeReport(File file) throws IOException{
+        File parent = file.getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()){
+            throw new IOException("Cannot create report directory: " + parent);
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report());
+    }
+
+    /**
+     * 🧹 清空所有记录
+     */
+    public void reset(){
+        histograms.clear();
+    }
+
+    private static Histogram corrected(Histogram histogram, long intervalMicros){
+        return intervalMicros > 0 ? histogram.copyCorrectedForCoordinatedOmission(intervalMicros) : histogram;
+    }
+
+    private static Map<String, Object> summarize(Histogram histogram){
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        for(int i = 0; i < PERCENTILES.length; i++){
+            summary.put(PERCENTILE_NAMES[i], toMillis(histogram.getValueAtPercentile(PERCENTILES[i])));
+        }
+        summary.put("max", toMillis(histogram.getMaxValue()));
+        return summary;
+    }
+
+    private static double toMillis(long micros){
+        return micros / 1000.0;
+    }
+
+    private static Histogram newHistogram(){
+        return new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * 🔧 规范化端点 - 去掉协议、主机和查询参数，只保留路径
+     */
+    static String normalize(String endpoint){
+        if(endpoint == null || endpoint.isEmpty()){
+            return "/";
+        }
+        String path = endpoint;
+        int scheme = path.indexOf("://");
+        if(scheme >= 0){
+            int slash = path.indexOf('/', scheme + 3);
+            path = slash >= 0 ? path.substring(slash) : "/";
+        }
+        int query = path.indexOf('?');
+        if(query >= 0){
+            path = path.substring(0, query);
+        }
+        return path.isEmpty() ? "/" : path;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.utils;
+
+import io.restassured.response.Response;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 🔄 重定向链 - ApiClient跟随重定向的结果
+ * 包含第一个响应、最终响应、每一跳的耗时以及跟随过程中积累的Cookie
+ */
+public class RedirectChain {
+
+    private final Response firstResponse;
+    private final Response finalResponse;
+    private final List<Hop> hops;
+    private final Map<String,String> cookies;
+    private final long totalNanos;
+
+    RedirectChain(Response firstResponse, Response finalResponse, List<Hop> hops,
+                  Map<String,String> cookies, long totalNanos){
+        this.firstResponse = firstResponse;
+        this.finalResponse = finalResponse;
+        this.hops = Collections.unmodifiableList(hops);
+        this.cookies = Collections.unmodifiableMap(cookies);
+        this.totalNanos = totalNanos;
+    }
+
+    /** 📨 第一个响应（通常是302） */
+    public Response getFirstResponse(){ return firstResponse; }
+
+    /** 🏁 最终响应（不再重定向的页面） */
+    public Response getFinalResponse(){ return finalResponse; }
+
+    /** 🦘 每一跳重定向，不包含第一个请求 */
+    public List<Hop> getHops(){ return hops; }
+
+    /** 🍪 跟随结束时Cookie罐中的所有Cookie */
+    public Map<String,String> getCookies(){ return cookies; }
+
+    /** 🔑 跟随结束时的会话ID，会话被清除时为null */
+    public String getSessionId(){ return cookies.get("session"); }
+
+    /** ⏱️ 整条链的耗时（纳秒），由ApiClient发起第一个请求时包含第一个请求 */
+    public long getTotalNanos(){ return totalNanos; }
+
+    /**
+     * 🦘 一跳重定向 - 请求的地址、返回的状态码和耗时
+     */
+    public static class Hop {
+        private final String location;
+        private final int statusCode;
+        private final long durationNanos;
+
+        Hop(String location, int statusCode, long durationNanos){
+            this.location = location;
+            this.statusCode = statusCode;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getLocation(){ return location; }
+
+        public int getStatusCode(){ return statusCode; }
+
+        public long getDurationNanos(){ return durationNanos; }
+
+        @Override
+        public String toString(){
+            return String.format("%s -> %d (%.1f ms)", location, statusCode, durationNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ecommerce.utils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 🧵 异步请求执行器 - 为ApiClient的异步和批量请求提供线程
+ * 职责：根据executor.mode选择平台线程或虚拟线程，并提供带并发上限的批量执行
+ *
+ * 🎯 执行模式（-Dexecutor.mode=...）：
+ *   - platform: 按需创建的守护线程池（默认，Java 11可用）
+ *   - virtual:  每个任务一个虚拟线程，需要在JDK 21+上运行；低版本JDK自动退回platform
+ */
+public class RequestExecutors {
+
+    private static final Method VIRTUAL_FACTORY = virtualThreadFactory();
+
+    private static final boolean VIRTUAL = "virtual".equalsIgnoreCase(TestConfig.EXECUTOR_MODE) && VIRTUAL_FACTORY != null;
+
+    private static final ExecutorService SHARED = newExecutor("api-request");
+
+    private RequestExecutors(){}
+
+    /**
+     * 🌐 获取进程级共享执行器
+     */
+    public static ExecutorService shared(){
+        return SHARED;
+    }
+
+    /**
+     * ✅ 当前是否真的运行在虚拟线程模式
+     */
+    public static boolean isVirtual(){
+        return VIRTUAL;
+    }
+
+    /**
+     * 📦 批量执行 - 同时最多运行maxConcurrency个任务，全部完成后按原顺序返回结果
+     * 用固定数量的"通道"依次领取任务，不需要阻塞等待信号量
+     *
+     * @param tasks 需要执行的任务
+     * @param maxConcurrency 最大并发数
+     * @return 所有任务结果，顺序与tasks一致；任一任务失败时整体失败
+     */
+    public static <T> CompletableFuture<List<T>> runAll(List<? extends Supplier<T>> tasks, int maxConcurrency){
+        if(maxConcurrency < 1){
+            throw new IllegalArgumentException("maxConcurrency must be at least 1: " + maxConcurrency);
+        }
+        int size = tasks.size();
+        Object[] results = new Object[size];
+        AtomicInteger next = new AtomicInteger();
+
+        int lanes = Math.min(maxConcurrency, size);
+        CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+        for(int lane = 0; lane < lanes; lane++){
+            laneFutures[lane] = CompletableFuture.runAsync(() -> {
+                // 🔁 每个通道不断领取下一个任务，直到任务全部被领取
+                for(int index = next.getAndIncrement(); index < size; index = next.getAndIncrement()){
+                    results[index] = tasks.get(index).get();
+                }
+            }, SHARED);
+        }
+
+        return CompletableFuture.allOf(laneFutures).thenApply(ignored -> {
+            @SuppressWarnings("unchecked")
+            List<T> list = (List<T>) new ArrayList<>(Arrays.asList(results));
+            return list;
+        });
+    }
+
+    /**
+     * 🏭 按当前模式创建新的执行器 - 虚拟线程模式下每个任务一个虚拟线程，否则是守护线程池
+     *
+     * @param threadPrefix 平台线程的名称前缀
+     */
+    public static ExecutorService newExecutor(String threadPrefix){
+        if(VIRTUAL){
+            try{
+                return (ExecutorService) VIRTUAL_FACTORY.invoke(null);
+            }catch(ReflectiveOperationException e){
+                throw new IllegalStateException("Cannot create virtual thread executor", e);
+            }
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 🔍 查找虚拟线程工厂方法 - 通过反射调用，项目仍然以Java 11编译
+     */
+    private static Method virtualThreadFactory(){
+        try{
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }catch(NoSuchMethodException e){
+            if("virtual".equalsIgnoreCase(TestConfig.EXECUTOR_MODE)){
+                StepLog.warn("Virtual threads are not available on Java {}, falling back to platform threads",
+                        System.getProperty("java.version"));
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.utils;
+
+import io.restassured.RestAssured;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+import java.util.Map;
+
+/**
+ * 🚚 RestAssured传输层 - 原来ApiClient的请求方式：RestAssured + 池化的Apache HttpClient
+ * 功能最全（日志过滤器、断言DSL都可用），但每个请求的构建和分配开销较大
+ */
+public class RestAssuredTransport implements HttpTransport {
+
+    private final RestAssuredConfig config;
+    private final HttpConnectionPool pool; // 使用外部传入的配置时为null
+
+    /**
+     * 🏗️ 构造函数 - 使用连接池和超时
+     */
+    public RestAssuredTransport(HttpConnectionPool pool, int timeoutMillis){
+        this.config = RestAssuredConfig.config().httpClient(pool.httpClientConfig(timeoutMillis));
+        this.pool = pool;
+    }
+
+    /**
+     * 🏗️ 构造函数 - 使用现成的RestAssured配置
+     */
+    public RestAssuredTransport(RestAssuredConfig config){
+        this.config = config;
+        this.pool = null;
+    }
+
+    /**
+     * 📝 创建请求规范 - 每次请求都新建，避免共享可变的RequestSpecification
+     * 基准测试也直接调用它，单独测量构建请求的开销
+     */
+    public RequestSpecification newRequest(String baseUrl, Map<String, String> cookies){
+        RequestSpecification request = RestAssured.given()
+                .baseUri(baseUrl)
+                .config(config)
+                .contentType(ContentType.URLENC)
+                .accept(ContentType.HTML)
+                .redirects().follow(false)
+                .urlEncodingEnabled(true);
+
+        if(!cookies.isEmpty()){
+            // 🍪 添加Session Cookie等到请求头
+            request.cookies(cookies);
+        }
+        return request;
+    }
+
+    @Override
+    public Response get(String baseUrl, String endpoint, Map<String, String> cookies, Map<String, String> headers){
+        RequestSpecification request = newRequest(baseUrl, cookies);
+        if(!headers.isEmpty()){
+            request.headers(headers);
+        }
+        return readFully(request.get(endpoint));
+    }
+
+    @Override
+    public Response post(String baseUrl, String endpoint, Map<String, String> cookies, Map<String, String> formParams){
+        return readFully(newRequest(baseUrl, cookies).formParams(formParams).post(endpoint));
+    }
+
+    @Override
+    public String summary(){
+        return pool != null ? pool.summary() : "RestAssured transport with a custom configuration";
+    }
+
+    /**
+     * 📥 读完响应体 - 响应体读完后连接才会归还连接池，只检查状态码的调用（例如登出、重定向）否则会一直占用连接
+     */
+    private static Response readFully(Response response){
+        response.asByteArray();
+        return response;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.utils;
+
+import io.cucumber.core.plugin.HtmlFormatter;
+import io.cucumber.core.plugin.JsonFormatter;
+import io.cucumber.plugin.EventListener;
+import io.cucumber.plugin.event.EventPublisher;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * 📊 Cucumber报告插件 - 按文件扩展名写HTML（.html）或JSON（其他）报告，文件放在报告目录（report.dir）下
+ * 职责：默认报告直接配置在运行器的@CucumberOptions中，IDE里运行或不经过pom运行时同样有报告，
+ * JSON报告也就是下一次运行的场景历史（scenario.history）
+ *
+ * 🧩 分片运行（shard.count大于1）时只改文件名：REPORT_DIR/shards/cucumber-shard-N.json，
+ * 各分片不会同时写同一个文件；-Pmerge-reports 再把它们合并回 REPORT_DIR/cucumber.json
+ *
+ * 🎯 使用方式：plugin = {"com.ecommerce.utils.ShardedReport:cucumber.json"}
+ */
+public class ShardedReport implements EventListener {
+
+    /**
+     * 🔁 实际的格式化器 - JsonFormatter不是ConcurrentEventListener，本插件也不是，
+     * Cucumber会按场景顺序转发事件，并行运行时报告内容不会交错
+     */
+    private final Consumer<EventPublisher> formatter;
+
+    /**
+     * 🏗️ 构造函数 - 由Cucumber按插件参数创建
+     *
+     * @param fileName 报告文件名，例如 cucumber.json、cucumber.html
+     */
+    public ShardedReport(String fileName) throws IOException{
+        File file = file(fileName);
+        File parent = file.getParentFile();
+        if(parent != null && !parent.exists() && !parent.mkdirs()){
+            throw new IOException("Cannot create report directory: " + parent);
+        }
+        OutputStream out = new FileOutputStream(file);
+        formatter = fileName.endsWith(".html") ? new HtmlFormatter(out)::setEventPublisher
+                : new JsonFormatter(out)::setEventPublisher;
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher){
+        formatter.accept(publisher);
+    }
+
+    /**
+     * 📁 报告文件 - 不分片时是 REPORT_DIR/文件名，分片时是 REPORT_DIR/shards/名字-shard-N.扩展名
+     */
+    static File file(String fileName){
+        if(TestConfig.Shard.COUNT <= 1){
+            return new File(TestConfig.REPORT_DIR, fileName);
+        }
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+        return new File(new File(TestConfig.REPORT_DIR, "shards"), base + "-shard-" + TestConfig.Shard.INDEX + extension);
+    }
+}
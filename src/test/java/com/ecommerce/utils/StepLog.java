@@ -0,0 +1,348 @@
+package com.ecommerce.utils;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 📝 步骤日志 - 替代步骤定义里的System.out.println
+ * 职责：按级别过滤日志，按场景暂存日志，由后台线程批量异步写出
+ *
+ * 🎯 设计要点：
+ *   - 调用方只把"模板 + 参数"放进无锁环形缓冲区，字符串拼接和格式化都在后台线程完成
+ *   - 后台线程一次取出一批日志，拼成一个字符串后只写一次stdout，并行场景不再争抢stdout的锁
+ *   - 场景开始后日志先暂存在当前线程的场景上下文里；场景结束时，
+ *     通过的场景只写出不低于log.level的日志，失败的场景写出全部细节
+ *   - 类型为Supplier的参数只在真正写出时才计算，适合响应体片段这类开销大的内容
+ *
+ * 🎯 使用方式：
+ *   StepLog.debug("Login status: {}", response.getStatusCode());
+ *   StepLog.trace("Body: {}", (Supplier<String>) () -> response.asString());
+ *   StepLog.info("✓ Login successful");
+ */
+public final class StepLog {
+
+    /**
+     * 📶 日志级别
+     */
+    public enum Level { TRACE, DEBUG, INFO, WARN, ERROR }
+
+    /** 🚦 通过的场景和场景外日志的最低输出级别 */
+    private static final Level THRESHOLD = parseLevel(TestConfig.LOG_LEVEL);
+
+    /** 📦 单个场景最多暂存的日志条数，超出的部分只计数 */
+    private static final int MAX_SCENARIO_ENTRIES = 2000;
+
+    /** 📤 后台线程每批最多写出的日志条数 */
+    private static final int BATCH_SIZE = 256;
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS", Locale.ROOT)
+            .withZone(ZoneId.systemDefault());
+
+    private static final ThreadLocal<ScenarioContext> CONTEXT = new ThreadLocal<>();
+
+    private static final RingBuffer BUFFER = new RingBuffer(TestConfig.LOG_BUFFER_SIZE);
+    private static final Writer WRITER = new Writer(System.out);
+
+    static{
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(StepLog::flush, "step-log-flush"));
+    }
+
+    private StepLog(){}
+
+    public static void trace(String pattern, Object... args){ log(Level.TRACE, pattern, args); }
+
+    public static void debug(String pattern, Object... args){ log(Level.DEBUG, pattern, args); }
+
+    public static void info(String pattern, Object... args){ log(Level.INFO, pattern, args); }
+
+    public static void warn(String pattern, Object... args){ log(Level.WARN, pattern, args); }
+
+    public static void error(String pattern, Object... args){ log(Level.ERROR, pattern, args); }
+
+    /**
+     * ✅ 该级别的日志是否一定会写出（不考虑场景失败时的完整输出）
+     */
+    public static boolean isEnabled(Level level){
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    /**
+     * 🎬 场景开始 - 之后当前线程的日志暂存到该场景
+     *
+     * @param scenario 场景名称，会出现在每条日志中
+     */
+    public static void beginScenario(String scenario){
+        CONTEXT.set(new ScenarioContext(scenario));
+    }
+
+    /**
+     * 🏁 场景结束 - 失败时写出全部暂存日志，否则只写出达到级别的日志
+     *
+     * @param failed 场景是否失败
+     */
+    public static void endScenario(boolean failed){
+        ScenarioContext context = CONTEXT.get();
+        if(context == null){
+            return;
+        }
+        CONTEXT.remove();
+
+        if(failed){
+            publish(new Entry(Level.ERROR, context.name, "❌ Scenario failed, {} log entries{}",
+                    new Object[]{context.entries.size() + context.dropped,
+                            context.dropped > 0 ? " (" + context.dropped + " not kept)" : ""}));
+        }
+        for(Entry entry : context.entries){
+            if(failed || isEnabled(entry.level)){
+                publish(entry);
+            }
+        }
+    }
+
+    /**
+     * 🚿 等待已提交的日志全部写出 - 在运行器输出汇总前调用，保证输出顺序
+     */
+    public static void flush(){
+        long target = BUFFER.published();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while(WRITER.written() < target && System.nanoTime() < deadline){
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+        }
+    }
+
+    /** 📊 因缓冲区写满而等待的次数 */
+    public static long contendedOffers(){
+        return BUFFER.contended.sum();
+    }
+
+    private static void log(Level level, String pattern, Object[] args){
+        ScenarioContext context = CONTEXT.get();
+        if(context != null){
+            if(context.entries.size() < MAX_SCENARIO_ENTRIES){
+                context.entries.add(new Entry(level, context.name, pattern, args));
+            }else{
+                context.dropped++;
+            }
+            return;
+        }
+        if(isEnabled(level)){
+            publish(new Entry(level, null, pattern, args));
+        }
+    }
+
+    private static void publish(Entry entry){
+        while(!BUFFER.offer(entry)){
+            // 缓冲区已满：唤醒后台线程并短暂等待，不丢日志
+            BUFFER.contended.increment();
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        // 😴 后台线程只在缓冲区为空时才睡眠，平时这里只是一次volatile读
+        if(WRITER.sleeping){
+            LockSupport.unpark(WRITER);
+        }
+    }
+
+    private static Level parseLevel(String name){
+        try{
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }catch(IllegalArgumentException e){
+            return Level.INFO;
+        }
+    }
+
+    /**
+     * 🔧 按顺序用参数替换模板中的{}，Supplier参数在这里才求值
+     */
+    static String format(String pattern, Object[] args){
+        if(args == null || args.length == 0){
+            return pattern;
+        }
+        StringBuilder text = new StringBuilder(pattern.length() + 16 * args.length);
+        int argument = 0;
+        int from = 0;
+        int placeholder;
+        while(argument < args.length && (placeholder = pattern.indexOf("{}", from)) >= 0){
+            text.append(pattern, from, placeholder);
+            Object value = args[argument++];
+            if(value instanceof Supplier){
+                value = ((Supplier<?>) value).get();
+            }
+            text.append(value);
+            from = placeholder + 2;
+        }
+        return text.append(pattern, from, pattern.length()).toString();
+    }
+
+    /**
+     * 📄 一条日志 - 只保存模板和参数，写出时才格式化
+     */
+    private static final class Entry {
+        final Level level;
+        final long timestamp = System.currentTimeMillis();
+        final String thread = Thread.currentThread().getName();
+        final String scenario;
+        final String pattern;
+        final Object[] args;
+
+        Entry(Level level, String scenario, String pattern, Object[] args){
+            this.level = level;
+            this.scenario = scenario;
+            this.pattern = pattern;
+            this.args = args;
+        }
+
+        void appendTo(StringBuilder out){
+            out.append(TIME.format(Instant.ofEpochMilli(timestamp)))
+                    .append(' ').append(String.format("%-5s", level))
+                    .append(" [").append(thread).append("] ");
+            if(scenario != null){
+                out.append('[').append(scenario).append("] ");
+            }
+            String message;
+            try{
+                message = format(pattern, args);
+            }catch(RuntimeException e){
+                message = pattern + " <format failed: " + e + ">";
+            }
+            out.append(message).append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * 🎬 场景上下文 - 只被执行该场景的线程访问
+     */
+    private static final class ScenarioContext {
+        final String name;
+        final List<Entry> entries = new ArrayList<>();
+        int dropped;
+
+        ScenarioContext(String name){
+            this.name = name;
+        }
+    }
+
+    /**
+     * 🔁 有界多生产者单消费者环形缓冲区
+     * 每个槽位带一个序号：生产者CAS抢占写入位置，消费者按序号判断槽位是否可读，全程无锁
+     */
+    private static final class RingBuffer {
+        private final Entry[] entries;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private long head;
+        final LongAdder contended = new LongAdder();
+
+        RingBuffer(int requestedCapacity){
+            int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+            this.entries = new Entry[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for(int i = 0; i < capacity; i++){
+                sequences.set(i, i);
+            }
+        }
+
+        /** 生产者调用，缓冲区已满时返回false */
+        boolean offer(Entry entry){
+            while(true){
+                long position = tail.get();
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - position;
+                if(difference == 0){
+                    if(tail.compareAndSet(position, position + 1)){
+                        entries[index] = entry;
+                        // 📌 volatile写：之后生产者读Writer.sleeping，与后台线程"先置sleeping再检查缓冲区"配对，不会漏掉唤醒
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                }else if(difference < 0){
+                    return false;
+                }
+            }
+        }
+
+        /** 只有后台写出线程调用，没有可读日志时返回null */
+        Entry poll(){
+            int index = (int) (head & mask);
+            if(sequences.get(index) != head + 1){
+                return null;
+            }
+            Entry entry = entries[index];
+            entries[index] = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            return entry;
+        }
+
+        /** 只有后台写出线程调用：下一个位置是否已经可读 */
+        boolean hasEntry(){
+            return sequences.get((int) (head & mask)) == head + 1;
+        }
+
+        /** 已被生产者抢占的位置数 */
+        long published(){
+            return tail.get();
+        }
+    }
+
+    /**
+     * ✍️ 后台写出线程 - 批量取出日志，每批只写一次stdout；没有日志时一直睡眠，由生产者唤醒
+     */
+    private static final class Writer extends Thread {
+        private final PrintStream out;
+        private final AtomicLong written = new AtomicLong();
+
+        /** 😴 正在（或即将）睡眠，生产者看到true时唤醒它 */
+        volatile boolean sleeping;
+
+        Writer(PrintStream out){
+            super("step-log-writer");
+            this.out = out;
+            setDaemon(true);
+        }
+
+        long written(){
+            return written.get();
+        }
+
+        @Override
+        public void run(){
+            StringBuilder batch = new StringBuilder(8192);
+            while(true){
+                int count = 0;
+                Entry entry;
+                while(count < BATCH_SIZE && (entry = BUFFER.poll()) != null){
+                    entry.appendTo(batch);
+                    count++;
+                }
+                if(count == 0){
+                    sleeping = true;
+                    if(!BUFFER.hasEntry()){ // 置位后再检查一次，期间发布的日志不会被漏掉
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                    continue;
+                }
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+                written.addAndGet(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.ecommerce.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStep;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 🔬 步骤性能剖析插件 - Cucumber事件监听器，记录每个步骤（包括钩子）的耗时、CPU时间和分配的字节数
+ * 职责：回答"慢在哪个步骤、是等网络还是客户端自己在忙"，延迟报告只能看到端点，看不到步骤
+ *
+ * 🎯 设计要点：
+ *   - ConcurrentEventListener的事件在执行步骤的线程上同步发出，步骤开始时为当前线程打开一个Step，
+ *     ApiClient在请求结束时把耗时记到当前线程的Step中（异步请求在发送时取得Step）
+ *   - 每个请求拆成"客户端"和"网络"两部分：请求期间当前线程消耗的CPU时间算客户端（组装请求、解析响应），
+ *     其余的等待时间算网络；异步请求只有发送时的CPU时间算客户端
+ *   - 步骤结束后才完成的异步请求不计入该步骤
+ *
+ * 📄 输出（报告目录下的profile/）：
+ *   - step-profile.json：按"Feature + 步骤"汇总的次数、耗时、CPU、分配字节、请求数、网络和客户端时间
+ *   - step-profile.collapsed：折叠栈格式（Feature;场景;步骤;请求;network|client 微秒），
+ *     可直接交给flamegraph.pl或speedscope生成火焰图；并发的请求按各自耗时累加
+ *
+ * 🎯 使用方式：TestRunner的@CucumberOptions中已注册，默认不记录；mvn test -Dprofile.steps=true 打开
+ */
+public class StepProfiler implements ConcurrentEventListener {
+
+    /** 🧵 当前线程正在执行的步骤 */
+    private static final ThreadLocal<Step> CURRENT = new ThreadLocal<>();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    private final File directory;
+
+    /** "Feature\n步骤" -> 汇总 */
+    private final Map<String, StepStats> steps = new ConcurrentHashMap<>();
+
+    /** 折叠栈 -> 微秒 */
+    private final Map<String, LongAdder> stacks = new ConcurrentHashMap<>();
+
+    /**
+     * 🏗️ 构造函数 - 报告写到 REPORT_DIR/profile
+     */
+    public StepProfiler(){
+        this(new File(TestConfig.REPORT_DIR, "profile"));
+    }
+
+    /**
+     * 🏗️ 构造函数 - 插件参数指定报告目录，例如 com.ecommerce.utils.StepProfiler:target/profile
+     */
+    public StepProfiler(File directory){
+        this.directory = directory;
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher){
+        if(!TestConfig.Profile.ENABLED){
+            return;
+        }
+        publisher.registerHandlerFor(TestStepStarted.class, this::stepStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::stepFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, event -> writeReports());
+    }
+
+    /**
+     * 🎬 当前线程正在执行的步骤，不在步骤中（或未启用剖析）时为null
+     */
+    static Step current(){
+        return CURRENT.get();
+    }
+
+    /**
+     * 🧵 把当前线程的步骤带到另一个线程 - 返回的任务中发出的请求也计入提交时的步骤
+     */
+    static <T> Supplier<T> propagate(Supplier<T> task){
+        Step step = CURRENT.get();
+        if(step == null){
+            return task;
+        }
+        return () -> {
+            Step previous = CURRENT.get();
+            CURRENT.set(step);
+            try{
+                return task.get();
+            }finally{
+                if(previous != null){
+                    CURRENT.set(previous);
+                }else{
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    /** ⏱️ 当前线程已消耗的CPU时间（纳秒），不支持时为0 */
+    static long threadCpuNanos(){
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long threadAllocatedBytes(){
+        return ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private void stepStarted(TestStepStarted event){
+        CURRENT.set(new Step(event.getTestCase(), event.getTestStep()));
+    }
+
+    private void stepFinished(TestStepFinished event){
+        Step step = CURRENT.get();
+        CURRENT.remove();
+        if(step == null || step.testStep != event.getTestStep()){
+            return;
+        }
+        long wallNanos = System.nanoTime() - step.wallStart;
+        long cpuNanos = threadCpuNanos() - step.cpuStart;
+        long allocatedBytes = threadAllocatedBytes() - step.allocatedStart;
+
+        Map<String, long[]> requests = step.requests();
+        long requestCount = 0;
+        long networkNanos = 0;
+        long clientNanos = 0;
+        String stack = frame(step.feature) + ";" + frame(step.scenario) + ";" + frame(step.name);
+        for(Map.Entry<String, long[]> request : requests.entrySet()){
+            long[] totals = request.getValue();
+            requestCount += totals[0];
+            networkNanos += totals[1];
+            clientNanos += totals[2];
+            addStack(stack + ";" + frame(request.getKey()) + ";network", totals[1]);
+            addStack(stack + ";" + frame(request.getKey()) + ";client", totals[2]);
+        }
+        addStack(stack, wallNanos - networkNanos - clientNanos); // 步骤代码自身（断言、钩子逻辑、等待等）
+
+        steps.computeIfAbsent(step.feature + "\n" + step.name, key -> new StepStats(step.feature, step.name))
+                .add(wallNanos, cpuNanos, allocatedBytes, requestCount, networkNanos, clientNanos,
+                        event.getResult().getStatus() != Status.PASSED);
+    }
+
+    private void addStack(String stack, long nanos){
+        long micros = nanos / 1000;
+        if(micros > 0){
+            stacks.computeIfAbsent(stack, key -> new LongAdder()).add(micros);
+        }
+    }
+
+    /**
+     * 💾 运行结束时写出报告，并打印总耗时最长的步骤
+     */
+    private void writeReports(){
+        if(steps.isEmpty()){
+            return;
+        }
+        List<StepStats> sorted = new ArrayList<>(steps.values());
+        sorted.sort(Comparator.comparingLong((StepStats stats) -> stats.wallNanos.sum()).reversed());
+
+        // 🧩 分片共用报告目录时各自写一份，互不覆盖
+        String name = TestConfig.Shard.COUNT > 1 ? "step-profile-shard-" + TestConfig.Shard.INDEX : "step-profile";
+        File report = new File(directory, name + ".json");
+        File collapsed = new File(directory, name + ".collapsed");
+        try{
+            if(!directory.exists() && !directory.mkdirs()){
+                throw new IOException("Cannot create report directory: " + directory);
+            }
+            List<Map<String, Object>> entries = new ArrayList<>(sorted.size());
+            for(StepStats stats : sorted){
+                entries.add(stats.report());
+            }
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("generatedAt", Instant.now().toString());
+            content.put("unit", "ms");
+            content.put("cpuTimeSupported", CPU_TIME);
+            content.put("allocationSupported", ALLOCATIONS != null);
+            content.put("steps", entries);
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(report, content);
+
+            try(PrintWriter out = new PrintWriter(collapsed, StandardCharsets.UTF_8.name())){
+                new TreeMap<>(stacks).forEach((stack, micros) -> out.println(stack + " " + micros.sum()));
+            }
+        }catch(IOException e){
+            System.err.println("Cannot write step profile: " + e);
+            return;
+        }
+
+        StringBuilder top = new StringBuilder(String.format(
+                "=== STEP PROFILE === top %d of %d steps by wall time (ms)%n  %6s %10s %10s %10s %10s %8s %10s %10s  %s%n",
+                Math.min(TestConfig.Profile.TOP, sorted.size()), sorted.size(),
+                "count", "wall", "max", "cpu", "alloc KB", "requests", "network", "client", "step"));
+        for(StepStats stats : sorted.subList(0, Math.min(TestConfig.Profile.TOP, sorted.size()))){
+            top.append(String.format("  %6d %10.1f %10.1f %10.1f %10d %8d %10.1f %10.1f  %s%n",
+                    stats.count.sum(), stats.wallNanos.sum() / 1e6, stats.maxWallNanos.get() / 1e6,
+                    stats.cpuNanos.sum() / 1e6, stats.allocatedBytes.sum() / 1024, stats.requests.sum(),
+                    stats.networkNanos.sum() / 1e6, stats.clientNanos.sum() / 1e6, stats.name));
+        }
+        System.out.print(top);
+        System.out.println("Step profile written to " + report.getPath() + " and " + collapsed.getPath());
+    }
+
+    /** 🔥 折叠栈中的一帧不能包含分号和换行 */
+    private static String frame(String name){
+        return name.replace(';', ',').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean(){
+        if(THREADS instanceof com.sun.management.ThreadMXBean){
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREADS;
+            if(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()){
+                return bean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 👣 一次步骤执行 - 开始时的计数器读数，以及其中发出的请求
+     */
+    static final class Step {
+        private final TestStep testStep;
+        private final String feature;
+        private final String scenario;
+        private final String name;
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocatedStart;
+
+        /** "GET /cart" -> {请求数, 网络纳秒, 客户端纳秒}，异步请求的回调可能在其它线程上写入 */
+        private final Map<String, long[]> requests = new HashMap<>();
+
+        private Step(TestCase testCase, TestStep testStep){
+            String uri = testCase.getUri().toString();
+            this.testStep = testStep;
+            this.feature = uri.substring(uri.lastIndexOf('/') + 1);
+            this.scenario = testCase.getName();
+            this.name = name(testStep);
+            this.wallStart = System.nanoTime();
+            this.cpuStart = threadCpuNanos();
+            this.allocatedStart = threadAllocatedBytes();
+        }
+
+        /**
+         * 📡 记录一个请求
+         *
+         * @param request 方法和规范化后的端点，例如"GET /product/{id}"
+         * @param durationNanos 请求总耗时
+         * @param clientNanos 其中客户端消耗的CPU时间
+         */
+        synchronized void request(String request, long durationNanos, long clientNanos){
+            long client = Math.min(Math.max(0, clientNanos), durationNanos);
+            long[] totals = requests.computeIfAbsent(request, key -> new long[3]);
+            totals[0]++;
+            totals[1] += durationNanos - client;
+            totals[2] += client;
+        }
+
+        private synchronized Map<String, long[]> requests(){
+            Map<String, long[]> copy = new TreeMap<>();
+            requests.forEach((request, totals) -> copy.put(request, totals.clone()));
+            return copy;
+        }
+
+        /** 🏷️ 步骤为"关键字 + 文本"，钩子为"@Before 类.方法" */
+        private static String name(TestStep testStep){
+            if(testStep instanceof PickleStepTestStep){
+                PickleStepTestStep step = (PickleStepTestStep) testStep;
+                return step.getStep().getKeyword() + step.getStep().getText();
+            }
+            String location = testStep.getCodeLocation();
+            int parameters = location.indexOf('(');
+            if(parameters > 0){
+                location = location.substring(0, parameters);
+            }
+            int method = location.lastIndexOf('.');
+            int type = method > 0 ? location.lastIndexOf('.', method - 1) : -1;
+            String hook = testStep instanceof HookTestStep ? ((HookTestStep) testStep).getHookType().name() : "HOOK";
+            return "@" + hook + " " + location.substring(type + 1);
+        }
+    }
+
+    /**
+     * 📊 同一个步骤的累计统计
+     */
+    private static final class StepStats {
+        private final String feature;
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAccumulator maxWallNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder networkNanos = new LongAdder();
+        private final LongAdder clientNanos = new LongAdder();
+
+        private StepStats(String feature, String name){
+            this.feature = feature;
+            this.name = name;
+        }
+
+        private void add(long wall, long cpu, long allocated, long requestCount, long network, long client, boolean notPassed){
+            count.increment();
+            if(notPassed){
+                failed.increment();
+            }
+            wallNanos.add(wall);
+            maxWallNanos.accumulate(wall);
+            cpuNanos.add(cpu);
+            allocatedBytes.add(allocated);
+            requests.add(requestCount);
+            networkNanos.add(network);
+            clientNanos.add(client);
+        }
+
+        private Map<String, Object> report(){
+            long executions = count.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("feature", feature);
+            entry.put("step", name);
+            entry.put("count", executions);
+            entry.put("notPassed", failed.sum());
+            entry.put("wallTotal", wallNanos.sum() / 1e6);
+            entry.put("wallMean", wallNanos.sum() / 1e6 / executions);
+            entry.put("wallMax", maxWallNanos.get() / 1e6);
+            entry.put("cpuTotal", cpuNanos.sum() / 1e6);
+            entry.put("allocatedBytes", allocatedBytes.sum());
+            entry.put("requests", requests.sum());
+            entry.put("networkTotal", networkNanos.sum() / 1e6);
+            entry.put("clientTotal", clientNanos.sum() / 1e6);
+            return entry;
+        }
+    }
+}
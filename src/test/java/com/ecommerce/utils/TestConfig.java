@@ -1,5 +1,7 @@
 package com.ecommerce.utils;
 
+import java.util.SplittableRandom;
+
 /**相关的配置参数
  * 这个类就像是测试框架的"控制面
  * ⚙️ 测试配置中心 - 集中管理所有测试板"，所有重要的设置都在这里定义
@@ -22,27 +24,399 @@ public class TestConfig {
             System.getProperty("timeout",
                     System.getenv().getOrDefault("TIMEOUT", "10000")));
 
+    /**
+     * 🧵 并行场景线程数 - 默认等于CPU核数
+     * ApiClient不再修改全局状态，场景可以安全地并行执行
+     */
+    public static final int SCENARIO_THREADS = intProperty("scenario.threads", "SCENARIO_THREADS",
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 🔄 跟随重定向的最大跳数 - 防止重定向循环
+     */
+    public static final int MAX_REDIRECTS = intProperty("http.max.redirects", "HTTP_MAX_REDIRECTS", 5);
+
+    /**
+     * 🚚 HTTP传输方式 - restassured（RestAssured + Apache HttpClient，默认）或 jdk（java.net.http，开销更小）
+     */
+    public static final String TRANSPORT = System.getProperty("http.transport",
+            System.getenv().getOrDefault("HTTP_TRANSPORT", "restassured"));
+
+    /**
+     * 🔀 jdk传输方式使用的HTTP版本 - HTTP_2（默认，服务端不支持时自动降级）或 HTTP_1_1
+     */
+    public static final String HTTP_VERSION = System.getProperty("http.version",
+            System.getenv().getOrDefault("HTTP_VERSION", "HTTP_2"));
+
+    /**
+     * 🧵 异步请求执行模式 - platform（平台线程）或 virtual（虚拟线程，需JDK 21+）
+     */
+    public static final String EXECUTOR_MODE = System.getProperty("executor.mode",
+            System.getenv().getOrDefault("EXECUTOR_MODE", "platform"));
+
+    /**
+     * 🎬 运行模式 - functional（功能测试，默认）或 load（压测，复用相同的步骤定义）
+     */
+    public static final String RUN_MODE = System.getProperty("run.mode",
+            System.getenv().getOrDefault("RUN_MODE", "functional"));
+
+    /**
+     * 📁 报告目录 - 与Cucumber JSON报告放在一起
+     */
+    public static final String REPORT_DIR = System.getProperty("report.dir",
+            System.getenv().getOrDefault("REPORT_DIR", "target/cucumber-reports"));
+
+    /**
+     * 🌍 同时运行的环境 - 逗号分隔的环境名称（例如 dev,staging），每个环境读取 config-<名称>.properties
+     * 为空时只运行BASE_URL指向的默认环境
+     */
+    public static final String ENVIRONMENTS = System.getProperty("environments",
+            System.getenv().getOrDefault("ENVIRONMENTS", ""));
+
+    /**
+     * 📂 环境配置文件所在目录 - 找不到时再从classpath查找
+     */
+    public static final String ENVIRONMENT_CONFIG_DIR = System.getProperty("environment.config.dir",
+            System.getenv().getOrDefault("ENVIRONMENT_CONFIG_DIR", "."));
+
+    /**
+     * 🔀 场景执行顺序 - duration（按历史耗时从长到短，默认）或 discovery（按Feature文件中的顺序）
+     */
+    public static final String SCENARIO_ORDER = System.getProperty("scenario.order",
+            System.getenv().getOrDefault("SCENARIO_ORDER", "duration"));
+
+    /**
+     * 📜 场景历史耗时来源 - 逗号分隔的Cucumber JSON报告，默认是上一次运行写出的报告
+     * （分片运行后由 -Pmerge-reports 把合并后的报告写回同一个文件）
+     */
+    public static final String SCENARIO_HISTORY = System.getProperty("scenario.history",
+            System.getenv().getOrDefault("SCENARIO_HISTORY", REPORT_DIR + "/cucumber.json"));
+
+    /**
+     * ⏱️ 协调遗漏修正的预期请求间隔（毫秒）
+     * 大于0时，每次记录都按该间隔补录被"错过"的样本（所有运行模式）；0表示不在记录时补录
+     * 未设置时哪些运行会被修正：
+     *   - 闭环压测：结束时按实测的每用户请求间隔（用户数 × 运行时长 ÷ 请求数）修正报告，见LoadTestRunner
+     *   - 开放模型（load.arrival.rate）：不补录，场景的第一个请求从计划到达时刻开始计时（见LatencyRecorder.intendedStart）
+     *   - 功能测试、流量回放：没有计划的请求节奏，不修正（latency.json中coordinatedOmission为none）
+     */
+    public static final int LATENCY_EXPECTED_INTERVAL = intProperty("latency.expected.interval",
+            "LATENCY_EXPECTED_INTERVAL", 0);
+
+    /**
+     * 📝 步骤日志级别 - TRACE / DEBUG / INFO / WARN / ERROR
+     * 通过的场景只输出不低于该级别的日志，失败的场景输出全部细节；压测模式默认WARN
+     */
+    public static final String LOG_LEVEL = System.getProperty("log.level",
+            System.getenv().getOrDefault("LOG_LEVEL", "load".equalsIgnoreCase(RUN_MODE) ? "WARN" : "INFO"));
+
+    /**
+     * 📦 日志环形缓冲区容量（条，向上取整为2的幂）- 写满时调用方短暂等待后台线程写出
+     */
+    public static final int LOG_BUFFER_SIZE = intProperty("log.buffer.size", "LOG_BUFFER_SIZE", 8192);
+
+    /**
+     * 🔌 连接池配置 - 所有ApiClient共享同一个keep-alive连接池
+     * 避免每个场景重复建立TCP连接
+     */
+    public static class Pool{
+        /** 🔢 连接池最大连接总数 */
+        public static final int MAX_TOTAL = intProperty("http.pool.max.total", "HTTP_POOL_MAX_TOTAL", 200);
+
+        /** 🎯 每个目标主机的最大连接数 */
+        public static final int MAX_PER_ROUTE = intProperty("http.pool.max.per.route", "HTTP_POOL_MAX_PER_ROUTE", 50);
+
+        /** 💤 空闲连接回收时间（毫秒） - 空闲超过该时间的连接会被关闭 */
+        public static final int IDLE_TIMEOUT = intProperty("http.pool.idle.timeout", "HTTP_POOL_IDLE_TIMEOUT", 30000);
+
+        /** ♻️ 服务器未声明Keep-Alive时默认保持连接的时间（毫秒） */
+        public static final int KEEP_ALIVE = intProperty("http.pool.keep.alive", "HTTP_POOL_KEEP_ALIVE", 30000);
+
+        /** 🩺 复用前检查连接的空闲时间（毫秒） - 空闲超过该时间的连接在租用时先做一次stale检查，0表示沿用每个请求前都检查 */
+        public static final int VALIDATE_AFTER_INACTIVITY = intProperty("http.pool.validate.after.inactivity",
+                "HTTP_POOL_VALIDATE_AFTER_INACTIVITY", 2000);
+    }
+
+    /**
+     * 🗄️ HTTP缓存配置 - 不带Cookie的GET请求按Cache-Control和ETag/Last-Modified缓存，每个环境一个缓存
+     */
+    public static class Cache{
+        /** ✅ 是否启用缓存 */
+        public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("http.cache",
+                System.getenv().getOrDefault("HTTP_CACHE", "false")));
+
+        /** 🔢 最多缓存的响应数，超出后淘汰最久未使用的 */
+        public static final int MAX_ENTRIES = intProperty("http.cache.max.entries", "HTTP_CACHE_MAX_ENTRIES", 256);
+    }
+
+    /**
+     * 📈 压测配置 - 仅在 run.mode=load 时使用
+     */
+    public static class Load{
+        /** 👥 虚拟用户数 */
+        public static final int USERS = intProperty("load.users", "LOAD_USERS", 10);
+
+        /** 🔁 每个虚拟用户执行的场景次数（load.duration为0时生效） */
+        public static final int ITERATIONS = intProperty("load.iterations", "LOAD_ITERATIONS", 1);
+
+        /** ⏳ 压测持续时间（秒），大于0时按时长运行并忽略load.iterations */
+        public static final int DURATION = intProperty("load.duration", "LOAD_DURATION", 0);
+
+        /** 📶 爬坡时间（秒） - 虚拟用户在这段时间内均匀启动 */
+        public static final int RAMP_UP = intProperty("load.ramp.up", "LOAD_RAMP_UP", 0);
+
+        /** 💭 思考时间（毫秒） - 每次场景结束后等待的时间 */
+        public static final int THINK_TIME = intProperty("load.think.time", "LOAD_THINK_TIME", 0);
+
+        /** 🎲 思考时间随机抖动（毫秒） - 实际思考时间在 THINK_TIME ± THINK_JITTER 之间 */
+        public static final int THINK_JITTER = intProperty("load.think.jitter", "LOAD_THINK_JITTER", 0);
+
+        /** ❌ 允许的最大失败率（百分比），超过则压测失败 */
+        public static final int MAX_ERROR_PERCENT = intProperty("load.max.error.percent", "LOAD_MAX_ERROR_PERCENT", 0);
+
+        /** 🖧 工作进程数，0表示在当前JVM中运行；大于0时当前JVM作为协调进程，把虚拟用户分给各工作进程 */
+        public static final int WORKERS = intProperty("load.workers", "LOAD_WORKERS", 0);
+
+        /** 🚀 是否由协调进程在本机启动工作进程；false时等待其它机器上用 -Pload-worker 启动的工作进程连接 */
+        public static final boolean SPAWN_WORKERS = Boolean.parseBoolean(System.getProperty("load.spawn.workers",
+                System.getenv().getOrDefault("LOAD_SPAWN_WORKERS", "true")));
+
+        /** 🔌 协调进程监听的地址，工作进程用 -Dload.coordinator=地址:端口 连接 */
+        public static final String COORDINATOR_HOST = System.getProperty("load.coordinator.host",
+                System.getenv().getOrDefault("LOAD_COORDINATOR_HOST", "127.0.0.1"));
+
+        /** 🔌 协调进程监听的端口，0表示随机端口（本机启动工作进程时） */
+        public static final int COORDINATOR_PORT = intProperty("load.coordinator.port", "LOAD_COORDINATOR_PORT", 0);
+
+        /** 📡 工作进程发送直方图快照的间隔（秒） */
+        public static final int SNAPSHOT_INTERVAL = intProperty("load.snapshot.interval", "LOAD_SNAPSHOT_INTERVAL", 2);
+
+        /**
+         * 🚪 开放模型到达率（每秒启动的场景数） - "50"为固定速率，"50..500"为阶梯式上升；
+         * 为空时使用闭环的虚拟用户模型（load.users），设置后需要load.duration
+         */
+        public static final String ARRIVAL_RATE = System.getProperty("load.arrival.rate",
+                System.getenv().getOrDefault("LOAD_ARRIVAL_RATE", ""));
+
+        /** 📶 阶梯式到达率的台阶数，时长平分 */
+        public static final int ARRIVAL_STEPS = intProperty("load.arrival.steps", "LOAD_ARRIVAL_STEPS", 10);
+
+        /** 🚦 开放模型的在途场景上限 - 到达时已满则丢弃并计数 */
+        public static final int MAX_IN_FLIGHT = intProperty("load.max.in.flight", "LOAD_MAX_IN_FLIGHT", 200);
+
+        /** 🐢 场景实际开始比计划晚多少毫秒算迟到 */
+        public static final int LATE_THRESHOLD = intProperty("load.late.threshold", "LOAD_LATE_THRESHOLD", 10);
+    }
+
+    /**
+     * 🎯 性能SLO步骤配置 - "should sustain N requests per second"按目标速率发送请求并检查实际吞吐量
+     */
+    public static class Slo{
+        /** ⏳ 吞吐量检查的持续时间（秒） */
+        public static final int DURATION = intProperty("slo.duration", "SLO_DURATION", 2);
+
+        /** 🧵 吞吐量检查的最大并发请求数 */
+        public static final int CONCURRENCY = intProperty("slo.concurrency", "SLO_CONCURRENCY", 8);
+
+        /** 📉 实际吞吐量允许低于目标的百分比 - 步骤中没有写"within N%"时使用 */
+        public static final int THROUGHPUT_TOLERANCE = intProperty("slo.throughput.tolerance",
+                "SLO_THROUGHPUT_TOLERANCE", 5);
+    }
+
+    /**
+     * 🎟️ 会话池配置 - 预先注册并登录一批用户，不测试注册流程的场景直接租用会话
+     */
+    public static class SessionPool{
+        /** 👥 预注册用户数，0表示不使用会话池（每个场景自己注册和登录） */
+        public static final int SIZE = intProperty("session.pool.size", "SESSION_POOL_SIZE", 0);
+
+        /** 🧵 批量注册时的最大并发数 */
+        public static final int SEED_CONCURRENCY = intProperty("session.pool.seed.concurrency",
+                "SESSION_POOL_SEED_CONCURRENCY", 8);
+
+        /** ⏳ 会话有效期（秒），超过后租用时自动重新登录 */
+        public static final int TTL = intProperty("session.pool.ttl", "SESSION_POOL_TTL", 600);
+
+        /** 💾 会话文件 - 存在时直接加载其中的会话，不存在时预注册后写入；为空表示不使用文件 */
+        public static final String FILE = System.getProperty("session.pool.file",
+                System.getenv().getOrDefault("SESSION_POOL_FILE", ""));
+    }
+
+    /**
+     * 🌱 批量造数配置 - 生成用户、注册、登录、填充购物车四个阶段流水线执行
+     */
+    public static class Seed{
+        /** 👥 单独运行造数时创建的用户数 */
+        public static final int USERS = intProperty("seed.users", "SEED_USERS", 1000);
+
+        /** 🧵 注册、登录、填充购物车每个阶段的最大并发数 */
+        public static final int CONCURRENCY = intProperty("seed.concurrency", "SEED_CONCURRENCY", 8);
+
+        /** 📦 阶段之间队列的容量 - 下游处理不过来时上游阻塞等待 */
+        public static final int QUEUE_CAPACITY = intProperty("seed.queue.capacity", "SEED_QUEUE_CAPACITY", 64);
+
+        /** 🔁 暂时性失败（网络异常、5xx、429）的最大重试次数 */
+        public static final int RETRIES = intProperty("seed.retries", "SEED_RETRIES", 3);
+
+        /** 🛒 每个用户加入购物车的商品件数，0表示不填充购物车 */
+        public static final int CART_ITEMS = intProperty("seed.cart.items", "SEED_CART_ITEMS", 0);
+
+        /** 🏷️ 填充购物车时轮流使用的商品ID（逗号分隔） */
+        public static final String CART_PRODUCTS = System.getProperty("seed.cart.products",
+                System.getenv().getOrDefault("SEED_CART_PRODUCTS", "1"));
+
+        /** 📊 进度输出间隔（秒） */
+        public static final int PROGRESS_INTERVAL = intProperty("seed.progress.interval", "SEED_PROGRESS_INTERVAL", 2);
+    }
+
+    /**
+     * 🧪 内置替身服务器配置 - 不依赖外部被测系统，在本进程内模拟电商站点
+     * 启用后监听BASE_URL中的端口（仅本机回环地址）
+     */
+    public static class Stub{
+        /** ✅ 是否启动替身服务器 */
+        public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("stub.server",
+                System.getenv().getOrDefault("STUB_SERVER", "false")));
+
+        /** ⏱️ 每个请求固定增加的服务端延迟（毫秒） */
+        public static final int LATENCY = intProperty("stub.latency", "STUB_LATENCY", 0);
+
+        /** 🎲 服务端延迟的随机抖动（毫秒） - 实际延迟在 LATENCY 到 LATENCY + LATENCY_JITTER 之间 */
+        public static final int LATENCY_JITTER = intProperty("stub.latency.jitter", "STUB_LATENCY_JITTER", 0);
+
+        /** 🧵 服务端处理线程数，0表示不限制；限制后超出的请求在服务端排队 */
+        public static final int THREADS = intProperty("stub.threads", "STUB_THREADS", 0);
+
+        /** 🗄️ 匿名页面的Cache-Control max-age（秒），0表示no-cache（每次都要用ETag重新验证） */
+        public static final int CACHE_MAX_AGE = intProperty("stub.cache.max.age", "STUB_CACHE_MAX_AGE", 0);
+
+        /**
+         * 🏁 @contention场景是否也对真实站点运行 - 默认只在替身服务器上运行：
+         * 场景会注册多个用户并用最多32个线程同时修改购物车，对共享环境来说就是一次小型压测
+         */
+        public static final boolean CONTENTION_REMOTE = Boolean.parseBoolean(System.getProperty("contention.remote",
+                System.getenv().getOrDefault("CONTENTION_REMOTE", "false")));
+    }
+
+    /**
+     * 📼 流量录制与回放配置 - 功能测试时录下所有请求，之后把这些用户旅程当作负载回放
+     *
+     * 🎯 运行方式：
+     *   mvn test -Dtraffic.record.file=target/traffic.bin
+     *   mvn -Preplay-traffic test -Dtraffic.replay.speed=max -Dtraffic.replay.passes=20
+     */
+    public static class Traffic{
+        /** 📝 录制文件，为空时不录制 */
+        public static final String RECORD_FILE = System.getProperty("traffic.record.file",
+                System.getenv().getOrDefault("TRAFFIC_RECORD_FILE", ""));
+
+        /** 📂 回放文件 */
+        public static final String REPLAY_FILE = System.getProperty("traffic.replay.file",
+                System.getenv().getOrDefault("TRAFFIC_REPLAY_FILE", "target/traffic.bin"));
+
+        /** ⏩ 回放速度：相对录制节奏的倍数（例如1、10），max表示不等待、尽快发送 */
+        public static final String REPLAY_SPEED = System.getProperty("traffic.replay.speed",
+                System.getenv().getOrDefault("TRAFFIC_REPLAY_SPEED", "1"));
+
+        /** 🔁 回放遍数 - 每一遍使用新的邮箱和会话 */
+        public static final int REPLAY_PASSES = intProperty("traffic.replay.passes", "TRAFFIC_REPLAY_PASSES", 1);
+
+        /** 🚦 同时在途的最大请求数 */
+        public static final int REPLAY_CONCURRENCY = intProperty("traffic.replay.concurrency",
+                "TRAFFIC_REPLAY_CONCURRENCY", 64);
+    }
+
+    /**
+     * 🔬 步骤性能剖析配置 - StepProfiler插件记录每个步骤的耗时、CPU时间、分配字节和其中的HTTP请求
+     */
+    public static class Profile{
+        /** ✅ 是否剖析步骤 - 默认关闭：每个步骤和请求都要读线程CPU时间和分配字节，需要时再打开 */
+        public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("profile.steps",
+                System.getenv().getOrDefault("PROFILE_STEPS", "false")));
+
+        /** 🏆 控制台输出总耗时最长的前几个步骤 */
+        public static final int TOP = intProperty("profile.top", "PROFILE_TOP", 10);
+    }
+
+    /**
+     * ✈️ JFR飞行记录配置 - 启用后进程内持续录制，场景失败或太慢时把最近一段录制写到报告目录的jfr/下
+     */
+    public static class Jfr{
+        /** ✅ 是否自动录制 */
+        public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("jfr.record",
+                System.getenv().getOrDefault("JFR_RECORD", "false")));
+
+        /** ⚙️ JFR内置配置：default（开销约1%）或profile（更多采样，开销约2%） */
+        public static final String SETTINGS = System.getProperty("jfr.settings",
+                System.getenv().getOrDefault("JFR_SETTINGS", "default"));
+
+        /** ⏳ 录制保留的时长（秒），每次转储包含这段时间内的事件 */
+        public static final int MAX_AGE = intProperty("jfr.max.age", "JFR_MAX_AGE", 120);
+
+        /** 🐢 场景耗时超过多少毫秒算慢场景，触发转储 */
+        public static final int SLOW_SCENARIO = intProperty("jfr.slow.scenario", "JFR_SLOW_SCENARIO", 10000);
+
+        /** 🔢 最多转储几次，避免长时间浸泡测试中写满磁盘 */
+        public static final int MAX_DUMPS = intProperty("jfr.max.dumps", "JFR_MAX_DUMPS", 10);
+    }
+
+    /**
+     * 🧩 分片配置 - 把场景按历史耗时均衡地分给多个JVM（同一台机器上的多个进程或多个构建节点）
+     * 每个分片用相同的场景列表和历史报告独立计算划分，只执行属于自己的那一份
+     *
+     * 🎯 运行方式（所有分片必须读取同一份历史报告，否则划分结果不一致）：
+     *   mvn test -Dshard.index=0 -Dshard.count=2 -Dscenario.history=history.json
+     *       -Dcucumber.plugin=json:target/cucumber-reports/shards/cucumber-shard-0.json
+     *   mvn -Pmerge-reports test   （合并各分片的JSON报告）
+     */
+    public static class Shard{
+        /** 🔢 当前分片序号，从0开始 */
+        public static final int INDEX = intProperty("shard.index", "SHARD_INDEX", 0);
+
+        /** 🧮 分片总数，1表示不分片 */
+        public static final int COUNT = intProperty("shard.count", "SHARD_COUNT", 1);
+    }
+
     /**
      * 👤 测试用户数据配置 - 封装所有测试用户的预设信息
      * 使用静态内部类组织相关配置，提高代码可读性
      */
     public static class TestUser{
-        public static final String EMAIL = generateTestEmail();
-        public static final String PASSWORD = "testpass1234";
-        public static final String FIRST_NAME = "Test";
-        public static final String LAST_NAME = "User";
-        public static final String ADDRESS1 = "123 Test St";
+        /** 🎲 生成测试用户数据的随机种子 - 未设置时随机选择，启动时打印出来，用同一个种子可以复现失败的运行 */
+        public static final long SEED = Long.parseLong(System.getProperty("test.user.seed",
+                System.getenv().getOrDefault("TEST_USER_SEED", String.valueOf(new SplittableRandom().nextLong()))));
+
+        /**
+         * 🏷️ 运行标识 - 拼进生成的邮箱，不同运行、不同分片注册的账号互不冲突
+         * 未设置时随机生成；设置了test.user.seed时由种子（和分片号）推导，只给种子就能复现同样的邮箱。
+         * 对保留了上次账号的被测系统用同一个种子重跑时，另设一个test.run.id，否则邮箱已经注册过
+         */
+        public static final String RUN_ID = System.getProperty("test.run.id",
+                System.getenv().getOrDefault("TEST_RUN_ID", defaultRunId(SEED)));
+
         public static final String ADDRESS2 = "Apt 1";
-        public static final String ZIPCODE = "12345";
-        public static final String CITY = "TestCity";
-        public static final String STATE = "TS";
         public static final String COUNTRY = "TestCountry";
-        public static final String PHONE = "1234567890";
     }
 
-    private static String generateTestEmail() {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        return "testuser_" + timestamp + "@example.com";
+    /**
+     * 🔧 读取整型配置 - 优先级：系统属性 > 环境变量 > 默认值
+     */
+    private static int intProperty(String key, String envName, int defaultValue) {
+        return Integer.parseInt(System.getProperty(key,
+                System.getenv().getOrDefault(envName, String.valueOf(defaultValue))));
+    }
+
+    /**
+     * 🏷️ 默认运行标识 - 显式设置了种子时为 s+种子（36进制），分片运行再加分片号；
+     * 否则为毫秒时间戳加随机后缀（36进制），同一毫秒启动的多个JVM也不会重复
+     */
+    private static String defaultRunId(long seed) {
+        if(System.getProperty("test.user.seed", System.getenv("TEST_USER_SEED")) != null){
+            String runId = "s" + Long.toUnsignedString(seed, 36);
+            return Shard.COUNT > 1 ? runId + "-" + Shard.INDEX : runId;
+        }
+        return Long.toString(System.currentTimeMillis(), 36)
+                + Long.toString(36 * 36 * 36 + new SplittableRandom().nextInt(35 * 36 * 36 * 36), 36);
     }
 
     /**
@@ -56,6 +430,9 @@ public class TestConfig {
         /** 🔄 重定向 - 请求需要进一步操作，通常需要跟随Location头 */
         public static final int REDIRECT = 302;
 
+        /** 🔒 未认证 - 会话无效或已被注销 */
+        public static final int UNAUTHORIZED = 401;
+
         /** ❌ 未找到 - 请求的资源不存在 */
         public static final int NOT_FOUND = 404;
     }
@@ -0,0 +1,195 @@
+package com.ecommerce.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 📖 流量日志读取器 - 以内存映射方式打开TrafficRecorder写出的日志
+ * 职责：打开时只扫描一遍记录长度建立索引（记录位置和开始时间），记录内容在回放到它时才解码，
+ * 文件内容由操作系统按需换入，不会整个读进堆里
+ *
+ * 📌 记录按请求完成的顺序写入，index()返回按开始时间排序后的顺序
+ * 📌 单个映射最大2GB，更大的日志请分成多次录制
+ */
+public final class TrafficLog {
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final long recordedAtMillis;
+    private final String baseUrl;
+    private final int[] positions;
+    private final long[] startNanos;
+
+    private TrafficLog(File file, MappedByteBuffer buffer){
+        this.file = file;
+        this.buffer = buffer;
+
+        ByteBuffer reader = buffer.duplicate();
+        if(reader.remaining() < Integer.BYTES + Short.BYTES || reader.getInt() != TrafficRecorder.MAGIC){
+            throw new IllegalArgumentException(file + " is not a traffic log");
+        }
+        short version = reader.getShort();
+        if(version != TrafficRecorder.VERSION){
+            throw new IllegalArgumentException(file + " has unsupported traffic log version " + version);
+        }
+        this.recordedAtMillis = reader.getLong();
+        this.baseUrl = getString(reader);
+
+        // 📇 第一遍只读长度和开始时间；最后一条不完整（例如进程被杀）时忽略
+        int[] positions = new int[1024];
+        long[] starts = new long[1024];
+        int count = 0;
+        while(reader.remaining() >= Integer.BYTES){
+            int length = reader.getInt();
+            if(length < Long.BYTES || length > reader.remaining()){
+                break;
+            }
+            if(count == positions.length){
+                positions = Arrays.copyOf(positions, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            positions[count] = reader.position();
+            starts[count] = reader.getLong(reader.position());
+            count++;
+            reader.position(reader.position() + length);
+        }
+        this.positions = Arrays.copyOf(positions, count);
+        this.startNanos = Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * 📂 打开日志文件
+     *
+     * @throws IllegalArgumentException 不是流量日志或版本不支持
+     */
+    public static TrafficLog open(File file) throws IOException{
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException(file + " is larger than 2GB, record shorter runs");
+            }
+            // 📌 映射在通道关闭后仍然有效
+            return new TrafficLog(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** 🔢 记录数 */
+    public int size(){
+        return positions.length;
+    }
+
+    /** 🌐 录制时的被测系统地址 */
+    public String baseUrl(){
+        return baseUrl;
+    }
+
+    /** 🕐 录制时间（毫秒时间戳） */
+    public long recordedAtMillis(){
+        return recordedAtMillis;
+    }
+
+    /** ⏱️ 第i条记录的开始时间（相对录制开始，纳秒） */
+    public long startNanos(int i){
+        return startNanos[i];
+    }
+
+    /**
+     * 📇 按开始时间排序的记录序号
+     */
+    public int[] index(){
+        Integer[] order = new Integer[positions.length];
+        for(int i = 0; i < order.length; i++){
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(startNanos[a], startNanos[b]));
+        int[] index = new int[order.length];
+        for(int i = 0; i < order.length; i++){
+            index[i] = order[i];
+        }
+        return index;
+    }
+
+    /**
+     * 📄 解码第i条记录 - 每次调用都使用独立的读取位置，可以在多个线程中同时调用
+     */
+    public Entry entry(int i){
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(positions[i]);
+        long start = reader.getLong();
+        long duration = reader.getLong();
+        byte method = reader.get();
+        String endpoint = getString(reader);
+        int sessionRef = reader.getInt();
+        int setsSessionRef = reader.getInt();
+        int status = reader.getShort() & 0xFFFF;
+        int bodyLength = reader.getInt();
+        int bodyCrc = reader.getInt();
+        int formCount = reader.getShort() & 0xFFFF;
+        Map<String, String> formParams = Collections.emptyMap();
+        if(formCount > 0){
+            formParams = new LinkedHashMap<>();
+            for(int param = 0; param < formCount; param++){
+                formParams.put(getString(reader), getString(reader));
+            }
+        }
+        return new Entry(start, duration, method, endpoint, sessionRef, setsSessionRef, status, bodyLength, bodyCrc,
+                formParams);
+    }
+
+    @Override
+    public String toString(){
+        return file.getPath() + " (" + size() + " requests recorded against " + baseUrl + ")";
+    }
+
+    private static String getString(ByteBuffer reader){
+        byte[] bytes = new byte[reader.getShort() & 0xFFFF];
+        reader.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 📄 一条录制的请求
+     */
+    public static final class Entry {
+        /** ⏱️ 开始时间（相对录制开始）和耗时，纳秒 */
+        public final long startNanos;
+        public final long durationNanos;
+        /** 📨 TrafficRecorder.GET 或 TrafficRecorder.POST */
+        public final byte method;
+        public final String endpoint;
+        /** 🍪 使用的会话编号和响应设置的会话编号，0表示没有 */
+        public final int sessionRef;
+        public final int setsSessionRef;
+        public final int status;
+        public final int bodyLength;
+        public final int bodyCrc;
+        public final Map<String, String> formParams;
+
+        Entry(long startNanos, long durationNanos, byte method, String endpoint, int sessionRef, int setsSessionRef,
+              int status, int bodyLength, int bodyCrc, Map<String, String> formParams){
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.method = method;
+            this.endpoint = endpoint;
+            this.sessionRef = sessionRef;
+            this.setsSessionRef = setsSessionRef;
+            this.status = status;
+            this.bodyLength = bodyLength;
+            this.bodyCrc = bodyCrc;
+            this.formParams = formParams;
+        }
+
+        @Override
+        public String toString(){
+            return (method == TrafficRecorder.POST ? "POST " : "GET ") + endpoint + " -> " + status;
+        }
+    }
+}
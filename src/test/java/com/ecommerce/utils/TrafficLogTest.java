@@ -0,0 +1,132 @@
+package com.ecommerce.utils;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Cookie;
+import io.restassured.http.Cookies;
+import io.restassured.response.Response;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * 📼 TrafficRecorder/TrafficLog单元测试 - 录制的日志读回来内容不变，会话编号和时间顺序正确
+ */
+public class TrafficLogTest {
+
+    @Test
+    public void roundTripsRecordedRequests() throws IOException{
+        File file = tempFile();
+        TrafficRecorder recorder = new TrafficRecorder(file, "http://shop.example.com/");
+        long epoch = System.nanoTime();
+
+        Map<String, String> login = new LinkedHashMap<>();
+        login.put("email", "user@example.com");
+        login.put("password", "");
+        recorder.record(TrafficRecorder.POST, "http://shop.example.com/login", login, Collections.emptyMap(),
+                epoch + 1_000, 2_000, response(302, "", "abc"));
+        recorder.record(TrafficRecorder.GET, "http://shop.example.com/view_cart?page=1", null,
+                Collections.singletonMap("session", "abc"), epoch + 5_000, 3_000, response(200, "购物车 CART 1", null));
+        recorder.record(TrafficRecorder.GET, "/products", null, Collections.singletonMap("session", "other"),
+                epoch + 4_000, 500, response(200, "products", null));
+        assertTrue(recorder.close());
+
+        TrafficLog log = TrafficLog.open(file);
+        assertEquals(log.size(), 3);
+        assertEquals(log.baseUrl(), "http://shop.example.com/");
+
+        TrafficLog.Entry post = log.entry(0);
+        assertEquals(post.method, TrafficRecorder.POST);
+        assertEquals(post.endpoint, "/login");
+        assertEquals(post.durationNanos, 2_000);
+        assertEquals(post.sessionRef, 0);
+        assertEquals(post.setsSessionRef, 1);
+        assertEquals(post.status, 302);
+        assertEquals(post.formParams, login);
+
+        TrafficLog.Entry cart = log.entry(1);
+        byte[] body = "购物车 CART 1".getBytes(StandardCharsets.UTF_8);
+        CRC32C crc = new CRC32C();
+        crc.update(body, 0, body.length);
+        assertEquals(cart.method, TrafficRecorder.GET);
+        assertEquals(cart.endpoint, "/view_cart?page=1");
+        assertEquals(cart.sessionRef, 1); // 使用登录时设置的会话
+        assertEquals(cart.setsSessionRef, 0);
+        assertEquals(cart.bodyLength, body.length);
+        assertEquals(cart.bodyCrc, (int) crc.getValue());
+        assertTrue(cart.formParams.isEmpty());
+
+        assertEquals(log.entry(2).sessionRef, 2);
+        assertEquals(log.startNanos(2) - log.startNanos(0), 3_000);
+    }
+
+    /**
+     * 📇 记录按完成顺序写入，index()按开始时间排序
+     */
+    @Test
+    public void indexOrdersByStartTime() throws IOException{
+        File file = tempFile();
+        TrafficRecorder recorder = new TrafficRecorder(file, "http://shop.example.com/");
+        long epoch = System.nanoTime();
+        recorder.record(TrafficRecorder.GET, "/slow", null, Collections.emptyMap(), epoch + 100, 900, response(200, "", null));
+        recorder.record(TrafficRecorder.GET, "/late", null, Collections.emptyMap(), epoch + 700, 100, response(200, "", null));
+        recorder.record(TrafficRecorder.GET, "/fast", null, Collections.emptyMap(), epoch + 300, 100, response(200, "", null));
+        recorder.close();
+
+        int[] index = TrafficLog.open(file).index();
+
+        assertEquals(index, new int[]{0, 2, 1});
+    }
+
+    /**
+     * ✂️ 进程被杀时最后一条记录可能只写了一半，读取时忽略它
+     */
+    @Test
+    public void ignoresTruncatedLastRecord() throws IOException{
+        File file = tempFile();
+        TrafficRecorder recorder = new TrafficRecorder(file, "http://shop.example.com/");
+        recorder.record(TrafficRecorder.GET, "/", null, Collections.emptyMap(), System.nanoTime(), 10,
+                response(200, "home", null));
+        recorder.close();
+        try(FileOutputStream out = new FileOutputStream(file, true)){
+            out.write(new byte[]{0, 0, 0, 100, 1, 2, 3}); // 声明100字节，只有3字节
+        }
+
+        assertEquals(TrafficLog.open(file).size(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectsOtherFiles() throws IOException{
+        File file = tempFile();
+        try(FileOutputStream out = new FileOutputStream(file)){
+            out.write("not a traffic log".getBytes(StandardCharsets.UTF_8));
+        }
+        TrafficLog.open(file);
+    }
+
+    /**
+     * 🏗️ 构造响应 - session不为null时设置会话Cookie
+     */
+    private static Response response(int status, String body, String session){
+        ResponseBuilder builder = new ResponseBuilder().setStatusCode(status).setBody(body);
+        if(session != null){
+            builder.setCookies(new Cookies(new Cookie.Builder("session", session).build()));
+        }
+        return builder.build();
+    }
+
+    private static File tempFile() throws IOException{
+        File file = File.createTempFile("traffic", ".bin");
+        file.deleteOnExit();
+        return file;
+    }
+}
@@ -0,0 +1,252 @@
+package com.ecommerce.utils;
+
+import io.restassured.http.Cookie;
+import io.restassured.response.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/**
+ * 📼 流量录制器 - 把功能测试中ApiClient发出的每个请求和响应追加写入紧凑的二进制日志
+ * 职责：录下auth.feature、cart.feature中的真实用户旅程，之后由TrafficReplay按1倍、10倍或最快速度回放
+ *
+ * 🎯 使用方式：
+ *   mvn test -Dtraffic.record.file=target/traffic.bin
+ *
+ * 📄 格式（大端序，字符串为2字节长度 + UTF-8）：
+ *   文件头：int 魔数"TRAF" | short 版本 | long 录制时间（毫秒） | 字符串 被测系统地址
+ *   每条记录：int 记录长度（不含本字段） | long 开始时间（相对录制开始，纳秒） | long 耗时（纳秒）
+ *            | byte 方法（0=GET, 1=POST） | 字符串 端点 | int 使用的会话编号 | int 响应设置的会话编号
+ *            | short 状态码 | int 响应体长度 | int 响应体CRC32C | short 表单参数个数 | (字符串 名称 | 字符串 值)...
+ *   会话编号：录制时每个不同的会话ID分配一个从1开始的编号，0表示没有；回放时编号映射到新登录得到的会话
+ *
+ * 🧵 线程安全：每个线程先在自己的缓冲区中编码记录，再加锁复制到共享的写缓冲区，写满时写入文件
+ */
+public final class TrafficRecorder {
+
+    public static final int MAGIC = 0x54524146; // "TRAF"
+    public static final short VERSION = 1;
+    public static final byte GET = 0;
+    public static final byte POST = 1;
+
+    private static final String SESSION_COOKIE = "session";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static volatile TrafficRecorder shared;
+    private static boolean sharedOpened;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final long epochNanos = System.nanoTime();
+    private final Map<String, Integer> sessionRefs = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSessionRef = new AtomicInteger(1);
+    private final AtomicInteger records = new AtomicInteger();
+    private final ThreadLocal<ByteBuffer> encodeBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+    private boolean closed;
+
+    /**
+     * 🏗️ 创建日志文件并写入文件头（已存在的文件被覆盖）
+     *
+     * @param file 日志文件
+     * @param baseUrl 被测系统地址，只用于回放时提示
+     */
+    public TrafficRecorder(File file, String baseUrl) throws IOException{
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(!parent.isDirectory() && !parent.mkdirs()){
+            throw new IOException("Cannot create directory " + parent);
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(64 + baseUrl.length() * 3);
+        header.putInt(MAGIC).putShort(VERSION).putLong(System.currentTimeMillis());
+        putString(header, baseUrl);
+        header.flip();
+        while(header.hasRemaining()){
+            channel.write(header);
+        }
+    }
+
+    /**
+     * 🌐 进程级录制器 - 设置了traffic.record.file时第一次调用创建，否则返回null
+     */
+    public static TrafficRecorder shared(){
+        TrafficRecorder recorder = shared;
+        if(recorder != null || TestConfig.Traffic.RECORD_FILE.isEmpty()){
+            return recorder;
+        }
+        synchronized(TrafficRecorder.class){
+            if(!sharedOpened){
+                sharedOpened = true;
+                try{
+                    shared = new TrafficRecorder(new File(TestConfig.Traffic.RECORD_FILE), TestConfig.BASE_URL);
+                }catch(IOException e){
+                    throw new UncheckedIOException("Cannot open traffic log " + TestConfig.Traffic.RECORD_FILE, e);
+                }
+                Runtime.getRuntime().addShutdownHook(new Thread(TrafficRecorder::closeShared, "traffic-recorder-close"));
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * 🛑 关闭进程级录制器并输出记录数，没有打开时什么也不做
+     */
+    public static void closeShared(){
+        TrafficRecorder recorder = shared;
+        if(recorder != null){
+            try{
+                if(recorder.close()){
+                    System.out.println("Recorded " + recorder.records.get() + " requests to " + recorder.file.getPath());
+                }
+            }catch(IOException e){
+                System.err.println("Cannot close traffic log " + recorder.file + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * ✍️ 记录一次请求
+     *
+     * @param method GET 或 POST
+     * @param endpoint 请求端点；完整URL只保留路径和查询参数，回放时发往新的地址
+     * @param formParams 表单参数，GET为null
+     * @param cookies 请求携带的Cookie
+     * @param startNanos 请求开始时的System.nanoTime()
+     * @param durationNanos 请求耗时
+     * @param response 响应（响应体已读完）
+     */
+    public void record(byte method, String endpoint, Map<String, String> formParams, Map<String, String> cookies,
+                       long startNanos, long durationNanos, Response response){
+        ByteBuffer buffer = encodeBuffer.get();
+        while(true){
+            try{
+                buffer.clear();
+                encode(buffer, method, endpoint, formParams, cookies, startNanos, durationNanos, response);
+                break;
+            }catch(java.nio.BufferOverflowException e){
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                encodeBuffer.set(buffer);
+            }
+        }
+        buffer.flip();
+        append(buffer);
+        records.incrementAndGet();
+    }
+
+    private void encode(ByteBuffer buffer, byte method, String endpoint, Map<String, String> formParams,
+                        Map<String, String> cookies, long startNanos, long durationNanos, Response response){
+        byte[] body = response.asByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(body, 0, body.length);
+
+        buffer.putInt(0); // 记录长度，编码完再回填
+        buffer.putLong(startNanos - epochNanos).putLong(durationNanos).put(method);
+        putString(buffer, pathOf(endpoint));
+        buffer.putInt(sessionRef(cookies.get(SESSION_COOKIE)));
+        buffer.putInt(sessionRef(newSession(response)));
+        buffer.putShort((short) response.getStatusCode()).putInt(body.length).putInt((int) crc.getValue());
+        if(formParams == null){
+            buffer.putShort((short) 0);
+        }else{
+            buffer.putShort((short) formParams.size());
+            for(Map.Entry<String, String> param : formParams.entrySet()){
+                putString(buffer, param.getKey());
+                putString(buffer, param.getValue() == null ? "" : param.getValue());
+            }
+        }
+        buffer.putInt(0, buffer.position() - Integer.BYTES);
+    }
+
+    /** 📥 复制到共享写缓冲区，写满时写入文件 */
+    private synchronized void append(ByteBuffer record){
+        if(closed){
+            return; // 关闭之后（例如关闭钩子运行时）仍在进行的请求不再记录
+        }
+        try{
+            if(record.remaining() > writeBuffer.remaining()){
+                flush();
+            }
+            if(record.remaining() > writeBuffer.capacity()){
+                while(record.hasRemaining()){
+                    channel.write(record);
+                }
+                return;
+            }
+            writeBuffer.put(record);
+        }catch(IOException e){
+            throw new UncheckedIOException("Cannot write traffic log " + file, e);
+        }
+    }
+
+    private void flush() throws IOException{
+        writeBuffer.flip();
+        while(writeBuffer.hasRemaining()){
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * 🛑 写出缓冲区并关闭文件
+     *
+     * @return false 已经关闭过
+     */
+    public synchronized boolean close() throws IOException{
+        if(closed){
+            return false;
+        }
+        closed = true;
+        flush();
+        channel.close();
+        return true;
+    }
+
+    /** 🔢 已记录的请求数 */
+    public int records(){
+        return records.get();
+    }
+
+    private int sessionRef(String sessionId){
+        if(sessionId == null || sessionId.isEmpty()){
+            return 0;
+        }
+        return sessionRefs.computeIfAbsent(sessionId, id -> nextSessionRef.getAndIncrement());
+    }
+
+    /** 🍪 响应设置的新会话ID；没有设置或是清除会话时返回null */
+    private static String newSession(Response response){
+        for(Cookie cookie : response.getDetailedCookies()){
+            if(SESSION_COOKIE.equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isEmpty()
+                    && cookie.getMaxAge() != 0){
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /** 🔗 完整URL只保留路径和查询参数 */
+    static String pathOf(String endpoint){
+        int scheme = endpoint.indexOf("://");
+        if(scheme < 0){
+            return endpoint;
+        }
+        int slash = endpoint.indexOf('/', scheme + 3);
+        return slash >= 0 ? endpoint.substring(slash) : "/";
+    }
+
+    static void putString(ByteBuffer buffer, String value){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+}
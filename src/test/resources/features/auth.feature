@@ -27,4 +27,17 @@ Feature: User Authentication
     Given a new user is registered
     And the user logs in with valid credentials
     When the user accesses the profile page
-    Then the profile page should be accessible
\ No newline at end of file
+    Then the profile page should be accessible
+
+  @performance
+  Scenario: Login latency stays within SLO
+    Given a new user is registered
+    When the user logs in with valid credentials
+    Then the login should be successful
+    And the p95 latency of "/login" should be below 1000 ms
+
+  @performance
+  Scenario: Login page sustains its target throughput
+    When "/login" is requested 20 times
+    Then the p95 latency of "/login" should be below 500 ms
+    And "/login" should sustain 50 requests per second within 5%
\ No newline at end of file
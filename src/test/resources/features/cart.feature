@@ -30,4 +30,29 @@ Feature: Shopping Cart Management
 
   Scenario: Unauthorized cart access
     When an unauthorized user views the cart
-    Then the user should be redirected to login
\ No newline at end of file
+    Then the user should be redirected to login
+
+  @performance
+  Scenario: Cart page latency stays within SLO
+    Given a logged-in user
+    And a product is available
+    And the user adds a product to the cart
+    When the user views the cart 20 times
+    Then the cart should be accessible
+    And the p95 latency of "/cart" should be below 500 ms
+    And the p99 latency of "/addToCart+redirects" should be below 1000 ms
+
+  @performance @contention
+  Scenario Outline: Concurrent cart mutations keep the cart count consistent
+    Given <sessions> users with their own logged-in sessions
+    When <threads> threads each add product "1" <adds> times while removing product "2", spread over the sessions
+    Then each cart should contain every product that was added
+    When <threads> threads remove product "1" from every cart at once
+    Then every cart should be empty
+
+    Examples:
+      | sessions | threads | adds |
+      | 1        | 1       | 20   |
+      | 1        | 8       | 10   |
+      | 1        | 32      | 5    |
+      | 8        | 32      | 5    |
\ No newline at end of file